@@ -0,0 +1,43 @@
+import java.io.File;
+
+public class PathCountTest {
+
+    private String source() {
+        return "x";
+    }
+
+    public void branch(boolean flag) {
+        String s = source();
+        String t;
+        if (flag) {
+            t = id(s);
+        } else {
+            t = copy(s);
+        }
+        new File(t);
+    }
+
+    public void loop(int n) {
+        String s = source();
+        for (int i = 0; i < n; i++) {
+            s = id(s);
+        }
+        new File(s);
+    }
+
+    public void twice() {
+        String s = source();
+        String a = id(s);
+        String b = id(a);
+        new File(b);
+    }
+
+    private String id(String v) {
+        return v;
+    }
+
+    private String copy(String v) {
+        return v;
+    }
+
+}
@@ -0,0 +1,30 @@
+import java.io.File;
+
+public class ShortestPathTest {
+
+    private String source() {
+        return "x";
+    }
+
+    public File run() {
+        String s = source();
+        String a = id(s);
+        String b = id(a);
+        File f = new File(b);
+        String c = repeat(s, 3);
+        new File(c);
+        return f;
+    }
+
+    private String id(String v) {
+        return v;
+    }
+
+    private String repeat(String v, int n) {
+        if (n == 0) {
+            return v;
+        }
+        return repeat(v, n - 1);
+    }
+
+}
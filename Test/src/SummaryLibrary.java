@@ -0,0 +1,30 @@
+public class SummaryLibrary {
+
+    private String value;
+
+    public SummaryLibrary(String value) {
+        this.value = value;
+    }
+
+    public String get() {
+        return value;
+    }
+
+    public void set(String value) {
+        this.value = value;
+    }
+
+    public static String pick(boolean first, String a, String b) {
+        return first ? a : b;
+    }
+
+    public String constant(String s) {
+        return "constant";
+    }
+
+    // Not public, not summarized
+    String copy(String s) {
+        return s;
+    }
+
+}
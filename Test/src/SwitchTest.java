@@ -0,0 +1,85 @@
+public class SwitchTest {
+
+    private int source() {
+        return 7;
+    }
+
+    public int tableSwitch(int i) {
+        switch (i) {
+            case 0:
+                return source();
+            case 1:
+                return table1();
+            case 2:
+                return table2();
+            default:
+                return 0;
+        }
+    }
+
+    public int lookupSwitch(int i) {
+        switch (i + 1) {
+            case 10:
+                return lookup10();
+            case 1000:
+                return lookup1000();
+            default:
+                return lookupDefault();
+        }
+    }
+
+    public int negatedSwitch(int i) {
+        switch (-i) {
+            case 0:
+                return negated0();
+            case 1:
+                return negated1();
+            case 2:
+                return negated2();
+            default:
+                return 0;
+        }
+    }
+
+    public int wideIncrement(int i) {
+        i += 1000;
+        return afterWide() + i;
+    }
+
+    private int table1() {
+        return 1;
+    }
+
+    private int table2() {
+        return 2;
+    }
+
+    private int lookup10() {
+        return 10;
+    }
+
+    private int lookup1000() {
+        return 1000;
+    }
+
+    private int lookupDefault() {
+        return 0;
+    }
+
+    private int negated0() {
+        return 0;
+    }
+
+    private int negated1() {
+        return -1;
+    }
+
+    private int negated2() {
+        return -2;
+    }
+
+    private int afterWide() {
+        return 1000;
+    }
+
+}
@@ -2,7 +2,23 @@
 
 intra=""
 spark=""
-while getopts ":a::i::s" opt; do
+threads=""
+multi=""
+bitset=""
+demand=""
+prescan=""
+store=""
+graph=""
+shortest=""
+pathThreads=""
+paths=""
+count=""
+prune=""
+summarize=""
+summaries=""
+serve=""
+port=""
+while getopts ":a::i::s::t:mbdpc:g:w:r:j:nul:L:q:P:" opt; do
 	case ${opt} in
 		a) 
 			target=$OPTARG
@@ -12,6 +28,54 @@ while getopts ":a::i::s" opt; do
       ;;
     s)
       spark="-spark"
+      ;;
+    t)
+      threads="-t $OPTARG"
+      ;;
+    m)
+      multi="-multi-entry"
+      ;;
+    b)
+      bitset="-bitset"
+      ;;
+    d)
+      demand="-demand"
+      ;;
+    p)
+      prescan="-prescan"
+      ;;
+    c)
+      store="-summary-store $OPTARG"
+      ;;
+    g)
+      graph="-graph $OPTARG"
+      ;;
+    w)
+      shortest="-shortest-paths $OPTARG"
+      ;;
+    r)
+      pathThreads="-path-threads $OPTARG"
+      ;;
+    j)
+      paths="-paths $OPTARG"
+      ;;
+    n)
+      count="-count-paths"
+      ;;
+    u)
+      prune="-prune-paths"
+      ;;
+    l)
+      summarize="-summarize-libraries $OPTARG"
+      ;;
+    L)
+      summaries="-library-summaries $OPTARG"
+      ;;
+    q)
+      serve="-serve $OPTARG"
+      ;;
+    P)
+      port="-port $OPTARG"
       ;;
 		*)
 			echo "Usage: run.sh -a x (x is any or a combination of the following options separated by ',')"
@@ -29,6 +93,11 @@ while getopts ":a::i::s" opt; do
 	esac
 done
 
-rm tmp.txt
 export MAVEN_OPTS=-Xmx6g
-mvn exec:java -Dexec.mainClass="Main" -Dexec.args="-o tmp.txt -a ${target} ${intra} ${spark}" -e
+if [ -n "${serve}" ]; then
+  mvn -q exec:java -Dexec.mainClass="Main" -Dexec.args="${serve} ${port}" -e
+  exit
+fi
+
+rm tmp.txt
+mvn exec:java -Dexec.mainClass="Main" -Dexec.args="-o tmp.txt -a ${target} ${intra} ${spark} ${threads} ${multi} ${bitset} ${demand} ${prescan} ${store} ${graph} ${shortest} ${pathThreads} ${paths} ${count} ${prune} ${summarize} ${summaries}" -e
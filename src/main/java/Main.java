@@ -1,22 +1,24 @@
 import configInterface.ConfigInterface;
 import org.apache.commons.cli.*;
 import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.flowSet.FlowSetType;
+import taintAnalysis.graph.TaintGraphService;
 import taintAnalysis.sourceSinkManager.ISourceSinkManager;
 import taintAnalysis.sourceSinkManager.SourceSinkManager;
 import taintAnalysis.taintWrapper.ITaintWrapper;
+import taintAnalysis.taintWrapper.SummaryTaintWrapper;
 import taintAnalysis.taintWrapper.TaintWrapper;
 import utility.Config;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.PrintStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class Main {
 
     public static void main(String[] args) throws IOException {
         Option optionApp = Option.builder("a")
-                .required(true)
+                .required(false)
                 .desc("Support applications are: test, hdfs, mapreduce, yarn, hadoop_common, hadoop_tools, hbase, alluxio, zookeeper, spark")
                 .longOpt("app")
                 .hasArg()
@@ -43,20 +45,189 @@ public class Main {
                 .hasArg(false)
                 .build();
 
+        Option optionThreads = Option.builder("t")
+                .required(false)
+                .desc("Number of threads for the inter-procedural analysis (default: 1)")
+                .longOpt("threads")
+                .hasArg()
+                .build();
+
+        Option optionMultiEntry = Option.builder(null)
+                .required(false)
+                .desc("Analyze all pending entry taints of a method in one traversal of its body")
+                .longOpt("multi-entry")
+                .hasArg(false)
+                .build();
+
+        Option optionBitset = Option.builder(null)
+                .required(false)
+                .desc("Use sparse bitsets of taint ids as flow sets of the inter-procedural analysis")
+                .longOpt("bitset")
+                .hasArg(false)
+                .build();
+
+        Option optionDemand = Option.builder(null)
+                .required(false)
+                .desc("Only analyze the methods reached by taints from the sources (demand-driven)")
+                .longOpt("demand")
+                .hasArg(false)
+                .build();
+
+        Option optionPrescan = Option.builder(null)
+                .required(false)
+                .desc("Only load the classes calling configuration getters and the classes they transitively call")
+                .longOpt("prescan")
+                .hasArg(false)
+                .build();
+
+        Option optionSummaryStore = Option.builder(null)
+                .required(false)
+                .desc("Replay the summaries of unchanged methods from a summary store file, and update it")
+                .longOpt("summary-store")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionGraph = Option.builder(null)
+                .required(false)
+                .desc("Write the taint propagation graph to a binary file for later queries")
+                .longOpt("graph")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionShortestPaths = Option.builder(null)
+                .required(false)
+                .desc("Reconstruct the k shortest paths to each sink instead of searching paths exhaustively")
+                .longOpt("shortest-paths")
+                .hasArg(true)
+                .argName("k")
+                .build();
+
+        Option optionPathThreads = Option.builder(null)
+                .required(false)
+                .desc("Number of threads for path reconstruction (default: number of available processors)")
+                .longOpt("path-threads")
+                .hasArg(true)
+                .argName("threads")
+                .build();
+
+        Option optionPaths = Option.builder(null)
+                .required(false)
+                .desc("Stream the paths to a JSON lines file (gzipped if it ends with .gz) instead of printing them")
+                .longOpt("paths")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionCountPaths = Option.builder(null)
+                .required(false)
+                .desc("Count the paths from each option to each sink instead of reconstructing them")
+                .longOpt("count-paths")
+                .hasArg(false)
+                .build();
+
+        Option optionPrunePaths = Option.builder(null)
+                .required(false)
+                .desc("Skip the taints from which no sink not reported yet is reachable in the path search")
+                .longOpt("prune-paths")
+                .hasArg(false)
+                .build();
+
+        Option optionSummarizeLibraries = Option.builder(null)
+                .required(false)
+                .desc("Write the summaries of the public methods of the libraries of the applications to a file instead of analyzing the applications")
+                .longOpt("summarize-libraries")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionLibrarySummaries = Option.builder(null)
+                .required(false)
+                .desc("Model the library methods by the summaries of a file written with --summarize-libraries")
+                .longOpt("library-summaries")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionServe = Option.builder(null)
+                .required(false)
+                .desc("Answer queries over a taint propagation graph file on stdin instead of running an analysis")
+                .longOpt("serve")
+                .hasArg(true)
+                .argName("file")
+                .build();
+
+        Option optionPort = Option.builder(null)
+                .required(false)
+                .desc("Answer the queries of --serve on a local port instead of stdin")
+                .longOpt("port")
+                .hasArg(true)
+                .argName("port")
+                .build();
+
         Options options = new Options();
         options.addOption(optionApp);
         options.addOption(optionOutput);
         options.addOption(optionSpark);
         options.addOption(optionIntra);
+        options.addOption(optionThreads);
+        options.addOption(optionMultiEntry);
+        options.addOption(optionBitset);
+        options.addOption(optionDemand);
+        options.addOption(optionPrescan);
+        options.addOption(optionSummaryStore);
+        options.addOption(optionGraph);
+        options.addOption(optionShortestPaths);
+        options.addOption(optionPathThreads);
+        options.addOption(optionPaths);
+        options.addOption(optionCountPaths);
+        options.addOption(optionPrunePaths);
+        options.addOption(optionSummarizeLibraries);
+        options.addOption(optionLibrarySummaries);
+        options.addOption(optionServe);
+        options.addOption(optionPort);
 
         CommandLineParser parser = new DefaultParser();
         try {
             CommandLine commandLine = parser.parse(options, args);
             boolean use_spark = false;
             boolean run_intra = false;
+            int num_threads = 1;
+            boolean multi_entry = false;
+            FlowSetType flow_set = FlowSetType.HASH;
+            boolean demand = false;
+            boolean prescan = false;
+            String summary_store = null;
+            String graph = null;
+            int shortest_paths = 0;
+            int path_threads = 0;
+            String paths = null;
+            boolean count_paths = false;
+            boolean prune_paths = false;
+            String summarize_libraries = null;
+            String library_summaries = null;
+
+            if (commandLine.hasOption("serve")) {
+                /* getting option serve */
+                int port = -1;
+                if (commandLine.hasOption("port")) {
+                    /* getting option port */
+                    try {
+                        port = Integer.parseInt(commandLine.getOptionValue("port"));
+                    } catch (NumberFormatException e) {
+                        throw new ParseException("invalid port: " + commandLine.getOptionValue("port"));
+                    }
+                }
+                serve(commandLine.getOptionValue("serve"), port);
+                return;
+            }
 
             /* getting required parameters */
             /* getting option a */
+            if (!commandLine.hasOption('a')) {
+                throw new ParseException("Missing required option: a");
+            }
             String apps = commandLine.getOptionValue('a');
             String[] result = apps.split(",");
             String[][] considered = new String[result.length][];
@@ -83,15 +254,124 @@ public class Main {
                 /* getting option intra */
                 run_intra = true;
             }
+            if (commandLine.hasOption('t')) {
+                /* getting option t */
+                try {
+                    num_threads = Integer.parseInt(commandLine.getOptionValue('t'));
+                } catch (NumberFormatException e) {
+                    throw new ParseException("invalid number of threads: " + commandLine.getOptionValue('t'));
+                }
+                if (num_threads < 1) {
+                    throw new ParseException("number of threads must be positive");
+                }
+            }
+
+            if (commandLine.hasOption("multi-entry")) {
+                /* getting option multi-entry */
+                multi_entry = true;
+            }
+
+            if (commandLine.hasOption("bitset")) {
+                /* getting option bitset */
+                flow_set = FlowSetType.BITSET;
+            }
+
+            if (commandLine.hasOption("demand")) {
+                /* getting option demand */
+                demand = true;
+            }
+
+            if (commandLine.hasOption("prescan")) {
+                /* getting option prescan */
+                prescan = true;
+            }
 
-            run(considered, use_spark, run_intra);
+            if (commandLine.hasOption("summary-store")) {
+                /* getting option summary-store */
+                summary_store = commandLine.getOptionValue("summary-store");
+            }
+
+            if (commandLine.hasOption("graph")) {
+                /* getting option graph */
+                graph = commandLine.getOptionValue("graph");
+            }
+
+            if (commandLine.hasOption("shortest-paths")) {
+                /* getting option shortest-paths */
+                try {
+                    shortest_paths = Integer.parseInt(commandLine.getOptionValue("shortest-paths"));
+                } catch (NumberFormatException e) {
+                    throw new ParseException("invalid number of shortest paths: " +
+                            commandLine.getOptionValue("shortest-paths"));
+                }
+                if (shortest_paths < 1) {
+                    throw new ParseException("number of shortest paths must be positive");
+                }
+            }
+
+            if (commandLine.hasOption("path-threads")) {
+                /* getting option path-threads */
+                try {
+                    path_threads = Integer.parseInt(commandLine.getOptionValue("path-threads"));
+                } catch (NumberFormatException e) {
+                    throw new ParseException("invalid number of path threads: " +
+                            commandLine.getOptionValue("path-threads"));
+                }
+                if (path_threads < 1) {
+                    throw new ParseException("number of path threads must be positive");
+                }
+            }
+
+            if (commandLine.hasOption("paths")) {
+                /* getting option paths */
+                paths = commandLine.getOptionValue("paths");
+            }
+
+            if (commandLine.hasOption("count-paths")) {
+                /* getting option count-paths */
+                count_paths = true;
+            }
+
+            if (commandLine.hasOption("prune-paths")) {
+                /* getting option prune-paths */
+                prune_paths = true;
+            }
+
+            if (commandLine.hasOption("summarize-libraries")) {
+                /* getting option summarize-libraries */
+                summarize_libraries = commandLine.getOptionValue("summarize-libraries");
+            }
+
+            if (commandLine.hasOption("library-summaries")) {
+                /* getting option library-summaries */
+                library_summaries = commandLine.getOptionValue("library-summaries");
+            }
+
+            run(considered, use_spark, run_intra, num_threads, multi_entry, flow_set, demand, prescan,
+                    summary_store, graph, shortest_paths, path_threads, paths, count_paths, prune_paths,
+                    summarize_libraries, library_summaries);
         } catch (ParseException ex) {
             System.out.println(ex.getMessage());
             new HelpFormatter().printHelp("ccc", options);
         }
     }
 
-    private static void run(String[][] considered, boolean use_spark, boolean run_intra) throws IOException {
+    private static void serve(String graph, int port) throws IOException {
+        TaintGraphService service = TaintGraphService.load(graph);
+        if (port != -1) {
+            service.serve(port);
+        } else {
+            service.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                    new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static void run(String[][] considered, boolean use_spark, boolean run_intra, int num_threads,
+                            boolean multi_entry, FlowSetType flow_set, boolean demand, boolean prescan,
+                            String summary_store, String graph, int shortest_paths,
+                            int path_threads, String paths, boolean count_paths,
+                            boolean prune_paths, String summarize_libraries,
+                            String library_summaries) throws IOException {
         List<String> srcPaths = new LinkedList<>();
         List<String> classPaths = new LinkedList<>();
         ConfigInterface configInterface = null;
@@ -105,7 +385,30 @@ public class Main {
         // Run taint analysis
         ISourceSinkManager sourceSinkManager = new SourceSinkManager(configInterface);
         ITaintWrapper taintWrapper = TaintWrapper.getDefault();
+        if (library_summaries != null) {
+            taintWrapper = new SummaryTaintWrapper(library_summaries, TaintWrapper.getDefault());
+        }
         TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager, taintWrapper);
+        driver.setNumOfThreads(num_threads);
+        driver.setMultiEntry(multi_entry);
+        driver.setFlowSetType(flow_set);
+        driver.setDemandDriven(demand);
+        if (prescan) {
+            driver.setPrescanInterface(configInterface);
+        }
+        driver.setSummaryStorePath(summary_store);
+        driver.setTaintGraphPath(graph);
+        driver.setNumOfShortestPaths(shortest_paths);
+        driver.setNumOfPathThreads(path_threads);
+        driver.setPathOutputPath(paths);
+        driver.setCountPaths(count_paths);
+        driver.setPrunePaths(prune_paths);
+        if (summarize_libraries != null) {
+            List<String> libPaths = new LinkedList<>(classPaths);
+            libPaths.removeAll(srcPaths);
+            driver.runLibrarySummaryGeneration(libPaths, classPaths, summarize_libraries);
+            return;
+        }
         if (run_intra) {
             driver.runIntraTaintAnalysis(srcPaths, classPaths);
         } else {
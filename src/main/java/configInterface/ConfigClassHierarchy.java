@@ -0,0 +1,94 @@
+package configInterface;
+
+import soot.FastHierarchy;
+import soot.Scene;
+import soot.SootClass;
+
+import java.util.*;
+
+/**
+ * Answers whether a class is a configuration class, i.e. the configuration class itself or one of its
+ * transitive subclasses (or implementers, if it is an interface), by an identity lookup in the set of
+ * configuration classes. The set is computed once per scene from Soot's {@link FastHierarchy}, when the
+ * first class is looked up after the scene has been loaded.
+ */
+public class ConfigClassHierarchy {
+
+    private final String configClassName;
+
+    private volatile Snapshot snapshot = null;
+
+    /**
+     * @param configClassName   the name of the configuration class
+     */
+    public ConfigClassHierarchy(String configClassName) {
+        this.configClassName = configClassName;
+    }
+
+    /**
+     * Checks whether a class is the configuration class or one of its subtypes.
+     *
+     * @param cls   a class of the current scene
+     * @return True if the class is a configuration class
+     */
+    public boolean isConfigClass(SootClass cls) {
+        Scene scene = Scene.v();
+        Snapshot s = snapshot;
+        if (s == null || s.scene != scene) {
+            s = computeSnapshot(scene);
+        }
+        if (s.classes.contains(cls)) {
+            return true;
+        }
+        // The configuration class may only have been created (as a phantom class) after the snapshot
+        return s.configClass == null && cls.getName().equals(configClassName);
+    }
+
+    private synchronized Snapshot computeSnapshot(Scene scene) {
+        Snapshot s = snapshot;
+        if (s != null && s.scene == scene) {
+            return s;
+        }
+        Set<SootClass> classes = Collections.newSetFromMap(new IdentityHashMap<>());
+        SootClass configClass = scene.getSootClassUnsafe(configClassName, false);
+        if (configClass != null) {
+            FastHierarchy hierarchy = scene.getOrMakeFastHierarchy();
+            Deque<SootClass> worklist = new ArrayDeque<>();
+            classes.add(configClass);
+            worklist.add(configClass);
+            while (!worklist.isEmpty()) {
+                SootClass curr = worklist.poll();
+                Collection<SootClass> subtypes = curr.isInterface() ?
+                        hierarchy.getAllImplementersOfInterface(curr) : hierarchy.getSubclassesOf(curr);
+                for (SootClass sub : subtypes) {
+                    if (classes.add(sub)) {
+                        worklist.add(sub);
+                    }
+                }
+            }
+        }
+        s = new Snapshot(scene, configClass, classes);
+        snapshot = s;
+        return s;
+    }
+
+    public String getConfigClassName() {
+        return configClassName;
+    }
+
+    /**
+     * The configuration classes of a scene
+     */
+    private static class Snapshot {
+        private final Scene scene;
+        private final SootClass configClass;
+        private final Set<SootClass> classes;
+
+        private Snapshot(Scene scene, SootClass configClass, Set<SootClass> classes) {
+            this.scene = scene;
+            this.configClass = configClass;
+            this.classes = classes;
+        }
+    }
+
+}
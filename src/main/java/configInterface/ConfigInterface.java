@@ -13,4 +13,17 @@ public interface ConfigInterface {
 
     Value getDefaultValue(InvokeExpr iexpr);
 
+    /**
+     * Checks, by the names of its class and itself only, whether a method may be a getter.
+     * This is used to find the classes calling getters before Soot loads any class,
+     * so it must hold for every method for which {@link #isGetter(InvokeExpr)} may hold.
+     *
+     * @param className     the name of the class the method is looked up in
+     * @param methodName    the name of the method
+     * @return True if the method may be a getter
+     */
+    default boolean mayBeGetter(String className, String methodName) {
+        return true;
+    }
+
 }
@@ -12,6 +12,8 @@ import soot.jimple.StringConstant;
 public class HadoopInterface implements ConfigInterface {
     private static final String superConfigClass = "org.apache.hadoop.conf.Configuration";
 
+    private final ConfigClassHierarchy configClasses = new ConfigClassHierarchy(superConfigClass);
+
     @Override
     public boolean isGetter(InvokeExpr iexpr) {
         SootMethod callee = iexpr.getMethod();
@@ -61,14 +63,13 @@ public class HadoopInterface implements ConfigInterface {
         return null;
     }
 
+    @Override
+    public boolean mayBeGetter(String className, String methodName) {
+        return className.contains(superConfigClass) && methodName.startsWith("get");
+    }
+
     private boolean isSubClass(SootClass cls) {
-        if (cls.toString().contains(superConfigClass)) {
-            return true;
-        }
-        if (cls.hasSuperclass() && cls.getSuperclass().toString().contains(superConfigClass)) {
-            return true;
-        }
-        return false;
+        return configClasses.isConfigClass(cls);
     }
 
 }
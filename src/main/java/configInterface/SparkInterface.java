@@ -11,10 +11,12 @@ import java.util.List;
 public class SparkInterface implements ConfigInterface {
     private static final String configClass = "org.apache.spark.SparkConf";
 
+    private final ConfigClassHierarchy configClasses = new ConfigClassHierarchy(configClass);
+
     @Override
     public boolean isGetter(InvokeExpr iexpr) {
         SootMethod callee = iexpr.getMethod();
-        if (callee.getDeclaringClass().toString().contains(configClass) &&
+        if (configClasses.isConfigClass(callee.getDeclaringClass()) &&
                 callee.getName().startsWith("get")) {
             List<Value> args = iexpr.getArgs();
             if (args.size() > 0 && args.get(0) instanceof StringConstant) {
@@ -27,7 +29,7 @@ public class SparkInterface implements ConfigInterface {
     @Override
     public boolean isSetter(InvokeExpr iexpr) {
         SootMethod callee = iexpr.getMethod();
-        if (callee.getDeclaringClass().toString().contains(configClass) &&
+        if (configClasses.isConfigClass(callee.getDeclaringClass()) &&
                 callee.getName().startsWith("set")) {
             List<Value> args = iexpr.getArgs();
             if (args.size() == 2 && args.get(0) instanceof StringConstant) {
@@ -59,4 +61,9 @@ public class SparkInterface implements ConfigInterface {
         return null;
     }
 
+    @Override
+    public boolean mayBeGetter(String className, String methodName) {
+        return className.contains(configClass) && methodName.startsWith("get");
+    }
+
 }
@@ -30,4 +30,9 @@ public class TestInterface implements ConfigInterface {
         return null;
     }
 
+    @Override
+    public boolean mayBeGetter(String className, String methodName) {
+        return methodName.contains("source");
+    }
+
 }
@@ -0,0 +1,168 @@
+package taintAnalysis;
+
+import soot.Body;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.*;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches, for each method body, the unit graph and the classification of its statements used by
+ * {@link TaintFlowAnalysis}, so that a body analyzed for many entry taints and in many iterations
+ * only has its graph built and its statements classified once.
+ *
+ * The unit graph is only built once it is requested by an analysis, so that bodies which are only
+ * classified (e.g. to find the call sites of a method) do not pay for it. The cached information is
+ * softly referenced and is rebuilt on demand once the garbage collector has reclaimed it when memory is tight.
+ */
+public class BodyInfoCache {
+
+    private final ISourceSinkManager sourceSinkManager;
+    private final Map<Body, SoftReference<BodyInfo>> cache;
+
+    public BodyInfoCache(ISourceSinkManager sourceSinkManager) {
+        this.sourceSinkManager = sourceSinkManager;
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the cached information of a body, building it if it is not cached (anymore).
+     *
+     * @param body  the body
+     * @return The information of the body
+     */
+    public BodyInfo getBodyInfo(Body body) {
+        SoftReference<BodyInfo> ref = cache.get(body);
+        BodyInfo info = ref == null ? null : ref.get();
+        if (info == null) {
+            info = new BodyInfo(body, sourceSinkManager);
+            cache.put(body, new SoftReference<>(info));
+        }
+        return info;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * The unit graph of a body and the classification of its statements, indexed by unit.
+     */
+    public static class BodyInfo {
+
+        public static final int ASSIGN = 1;
+        public static final int INVOKE = 1 << 1;
+        public static final int RETURN = 1 << 2;
+        public static final int SOURCE = 1 << 3;
+        public static final int SINK = 1 << 4;
+
+        private final Body body;
+        private volatile ExceptionalUnitGraph graph;
+        private final Map<Unit, Integer> indexMap;
+        private final int[] kinds;
+        private final List<SootMethod>[] callees;
+        private boolean hasSource = false;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private BodyInfo(Body body, ISourceSinkManager sourceSinkManager) {
+            this.body = body;
+            int n = body.getUnits().size();
+            this.indexMap = new HashMap<>(n * 2);
+            this.kinds = new int[n];
+            this.callees = new List[n];
+
+            int idx = 0;
+            for (Unit u : body.getUnits()) {
+                Stmt stmt = (Stmt) u;
+                int kind = 0;
+                if (stmt instanceof AssignStmt) {
+                    kind |= ASSIGN;
+                }
+                if (stmt instanceof InvokeStmt) {
+                    kind |= INVOKE;
+                }
+                if (stmt instanceof ReturnStmt || stmt instanceof ReturnVoidStmt) {
+                    kind |= RETURN;
+                }
+                if (stmt.containsInvokeExpr() && sourceSinkManager.isSource(stmt)) {
+                    kind |= SOURCE;
+                }
+                if (sourceSinkManager.isSink(stmt)) {
+                    kind |= SINK;
+                }
+                if (stmt.containsInvokeExpr()) {
+                    callees[idx] = TaintFlowAnalysis.getCallees(stmt, stmt.getInvokeExpr().getMethod());
+                } else {
+                    callees[idx] = Collections.emptyList();
+                }
+                kinds[idx] = kind;
+                hasSource |= (kind & SOURCE) != 0;
+                indexMap.put(u, idx++);
+            }
+        }
+
+        public ExceptionalUnitGraph getGraph() {
+            ExceptionalUnitGraph g = graph;
+            if (g == null) {
+                synchronized (this) {
+                    g = graph;
+                    if (g == null) {
+                        g = new ExceptionalUnitGraph(body);
+                        graph = g;
+                    }
+                }
+            }
+            return g;
+        }
+
+        /**
+         * Checks whether the body contains any source statement.
+         *
+         * @return True if the body contains a source
+         */
+        public boolean hasSource() {
+            return hasSource;
+        }
+
+        /**
+         * Gets the index of a unit of the body, which is used to look up its classification.
+         *
+         * @param u the unit
+         * @return The index of the unit
+         */
+        public int indexOf(Unit u) {
+            return indexMap.get(u);
+        }
+
+        /**
+         * Gets the kind of a statement as a combination of the flags {@link #ASSIGN}, {@link #INVOKE},
+         * {@link #RETURN}, {@link #SOURCE} and {@link #SINK}.
+         *
+         * @param idx   the index of the statement
+         * @return The kind flags of the statement
+         */
+        public int getKind(int idx) {
+            return kinds[idx];
+        }
+
+        /**
+         * Gets the possible callees of the invocation in a statement.
+         *
+         * @param idx   the index of the statement
+         * @return The list of callees, which is empty if the statement contains no invocation
+         */
+        public List<SootMethod> getCallees(int idx) {
+            return callees[idx];
+        }
+
+    }
+
+}
@@ -0,0 +1,247 @@
+package taintAnalysis;
+
+import soot.Body;
+import soot.SootMethod;
+import soot.toolkits.scalar.Pair;
+import taintAnalysis.utility.StronglyConnectedComponents;
+
+import java.util.*;
+
+/**
+ * Schedules (method, entry taint) contexts for the inter-procedural summary fixpoint.
+ *
+ * The strongly connected components (SCCs) of the call graph among the analyzed methods are computed
+ * and leveled in reverse topological order: an SCC without callees has level 0, any other SCC is one level
+ * above its highest callee SCC. Callees are thus always summarized before their callers, and SCCs of the
+ * same level never call each other, so that their contexts can be analyzed independently. Pending contexts
+ * are polled from the lowest level first, which makes a recursive cluster iterate locally until it is
+ * stable before any of its callers is analyzed. Each pass sweeps the levels bottom-up once; contexts
+ * scheduled below the level being analyzed (e.g. a callee receiving a new entry taint) are deferred to
+ * the next pass.
+ */
+public class CallGraphScheduler {
+
+    private final Map<SootMethod, Integer> levelMap;
+    private final Map<SootMethod, Integer> sccMap;
+    private final Map<SootMethod, List<SootMethod>> callerMap;
+    private int numOfSCCs;
+    private int numOfRecursiveSCCs;
+    private int numOfLevels;
+
+    private TreeMap<Integer, Deque<Pair<SootMethod, Taint>>> worklist;
+    private TreeMap<Integer, Deque<Pair<SootMethod, Taint>>> nextWorklist;
+    private final Set<Pair<SootMethod, Taint>> pending;
+    private int currLevel = -1;
+    private int pass = 0;
+
+    public CallGraphScheduler(List<SootMethod> methodList, BodyInfoCache bodyInfoCache) {
+        this.levelMap = new HashMap<>();
+        this.sccMap = new HashMap<>();
+        this.callerMap = new HashMap<>();
+        this.worklist = new TreeMap<>();
+        this.nextWorklist = new TreeMap<>();
+        this.pending = new HashSet<>();
+
+        Map<SootMethod, Integer> indexMap = new HashMap<>();
+        for (SootMethod sm : methodList) {
+            indexMap.put(sm, indexMap.size());
+        }
+        int[][] callees = new int[methodList.size()][];
+        for (int i = 0; i < methodList.size(); i++) {
+            callees[i] = getCalleeIndices(methodList.get(i), indexMap, bodyInfoCache);
+            for (int callee : callees[i]) {
+                callerMap.computeIfAbsent(methodList.get(callee), k -> new ArrayList<>()).add(methodList.get(i));
+            }
+        }
+        computeSCCs(methodList, callees);
+    }
+
+    private int[] getCalleeIndices(SootMethod sm, Map<SootMethod, Integer> indexMap, BodyInfoCache bodyInfoCache) {
+        Set<Integer> indices = new LinkedHashSet<>();
+        if (sm.hasActiveBody()) {
+            Body b = sm.getActiveBody();
+            BodyInfoCache.BodyInfo info = bodyInfoCache.getBodyInfo(b);
+            for (int i = 0; i < b.getUnits().size(); i++) {
+                for (SootMethod callee : info.getCallees(i)) {
+                    Integer idx = indexMap.get(callee);
+                    if (idx != null) {
+                        indices.add(idx);
+                    }
+                }
+            }
+        }
+        int[] arr = new int[indices.size()];
+        int i = 0;
+        for (int idx : indices) {
+            arr[i++] = idx;
+        }
+        return arr;
+    }
+
+    /**
+     * Computes the SCCs, which are numbered in reverse topological order, and levels the methods accordingly.
+     */
+    private void computeSCCs(List<SootMethod> methodList, int[][] callees) {
+        int[] sccOf = StronglyConnectedComponents.compute(callees);
+        int[][] members = StronglyConnectedComponents.getMembers(sccOf);
+        int[] sccLevels = new int[members.length];
+        for (int scc = 0; scc < members.length; scc++) {
+            // All callee SCCs are numbered before the current one
+            int level = 0;
+            boolean recursive = members[scc].length > 1;
+            for (int member : members[scc]) {
+                for (int callee : callees[member]) {
+                    if (sccOf[callee] == scc) {
+                        recursive = true;
+                    } else {
+                        level = Math.max(level, sccLevels[sccOf[callee]] + 1);
+                    }
+                }
+            }
+            sccLevels[scc] = level;
+            for (int member : members[scc]) {
+                levelMap.put(methodList.get(member), level);
+                sccMap.put(methodList.get(member), scc);
+            }
+            if (recursive) {
+                numOfRecursiveSCCs++;
+            }
+            numOfLevels = Math.max(numOfLevels, level + 1);
+        }
+        numOfSCCs = members.length;
+    }
+
+    /**
+     * Schedules a context for analysis, unless it is already pending.
+     *
+     * @param context   the (method, entry taint) context to schedule
+     * @return True if the context has been newly scheduled
+     */
+    public boolean add(Pair<SootMethod, Taint> context) {
+        if (!pending.add(context)) {
+            return false;
+        }
+        int level = getLevel(context.getO1());
+        TreeMap<Integer, Deque<Pair<SootMethod, Taint>>> target = level < currLevel ? nextWorklist : worklist;
+        target.computeIfAbsent(level, k -> new ArrayDeque<>()).add(context);
+        return true;
+    }
+
+    /**
+     * Removes and returns the next context to analyze, i.e. the first pending context of the lowest level.
+     *
+     * @return The next context to analyze, or null if there is none
+     */
+    public Pair<SootMethod, Taint> poll() {
+        Deque<Pair<SootMethod, Taint>> contexts = nextLevel();
+        if (contexts == null) {
+            return null;
+        }
+        Pair<SootMethod, Taint> context = contexts.poll();
+        if (contexts.isEmpty()) {
+            worklist.remove(currLevel);
+        }
+        pending.remove(context);
+        return context;
+    }
+
+    /**
+     * Removes and returns all pending contexts of the lowest level. These contexts do not depend
+     * on each other except for contexts of the same recursive SCC, and can be analyzed in parallel.
+     *
+     * @return The list of contexts to analyze, which is empty if there is none
+     */
+    public List<Pair<SootMethod, Taint>> pollBatch() {
+        Deque<Pair<SootMethod, Taint>> contexts = nextLevel();
+        if (contexts == null) {
+            return Collections.emptyList();
+        }
+        worklist.remove(currLevel);
+        List<Pair<SootMethod, Taint>> batch = new ArrayList<>(contexts);
+        pending.removeAll(batch);
+        return batch;
+    }
+
+    private Deque<Pair<SootMethod, Taint>> nextLevel() {
+        if (worklist.isEmpty()) {
+            if (nextWorklist.isEmpty()) {
+                return null;
+            }
+            // Start a new pass from the bottom of the call graph
+            TreeMap<Integer, Deque<Pair<SootMethod, Taint>>> tmp = worklist;
+            worklist = nextWorklist;
+            nextWorklist = tmp;
+            currLevel = -1;
+        }
+        if (currLevel == -1) {
+            pass++;
+        }
+
+        Map.Entry<Integer, Deque<Pair<SootMethod, Taint>>> entry = worklist.firstEntry();
+        currLevel = entry.getKey();
+        return entry.getValue();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the current bottom-up pass over the SCCs.
+     *
+     * @return The 1-based index of the current pass, or 0 if nothing has been polled yet
+     */
+    public int getPass() {
+        return pass;
+    }
+
+    /**
+     * Gets the level of the SCC of a method, SCCs of callees have lower levels than SCCs of their callers.
+     *
+     * @param sm    the method
+     * @return The level of the SCC containing the method
+     */
+    public int getLevel(SootMethod sm) {
+        Integer level = levelMap.get(sm);
+        return level == null ? numOfLevels : level;
+    }
+
+    /**
+     * Gets the index of the SCC of a method. SCCs are indexed in reverse topological order,
+     * i.e. the SCCs of the callees of a method have lower indices than its own SCC (unless it is recursive).
+     *
+     * @param sm    the method
+     * @return The index of the SCC containing the method, or -1 if the method is not analyzed
+     */
+    public int getSCC(SootMethod sm) {
+        Integer scc = sccMap.get(sm);
+        return scc == null ? -1 : scc;
+    }
+
+    /**
+     * Gets the analyzed methods which may call a given method.
+     *
+     * @param sm    the method
+     * @return The list of callers
+     */
+    public List<SootMethod> getCallers(SootMethod sm) {
+        return callerMap.getOrDefault(sm, Collections.emptyList());
+    }
+
+    public int getNumOfSCCs() {
+        return numOfSCCs;
+    }
+
+    public int getNumOfRecursiveSCCs() {
+        return numOfRecursiveSCCs;
+    }
+
+    public int getNumOfLevels() {
+        return numOfLevels;
+    }
+
+}
@@ -0,0 +1,116 @@
+package taintAnalysis;
+
+import soot.SootMethod;
+import soot.jimple.Stmt;
+import soot.toolkits.scalar.Pair;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches, for each call site and callee context, the caller taints generated from the callee summary
+ * together with the version of each summary set they have been generated from. A call site then only
+ * transfers the taints added to the callee summary since it has last read it (semi-naive evaluation),
+ * instead of re-transferring the whole summary every time it is visited.
+ *
+ * The generated caller taints only depend on the call site and the callee context, so the cache is
+ * shared by all the contexts the caller method is analyzed in. The (callee taint, caller taint) edges along
+ * which the caller taints have been generated are only kept by the entries of analyses recording them for
+ * the summary store.
+ */
+public class CallSiteSummaryCache {
+
+    private final Map<Stmt, Map<Pair<SootMethod, Taint>, Entry>> cache;
+
+    public CallSiteSummaryCache() {
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the cache entry of a callee context at a call site.
+     *
+     * @param stmt          the call site
+     * @param callee        the callee method
+     * @param calleeTaint   the entry taint of the callee context
+     * @param size          the size of the callee summary list
+     * @param recordEdges   whether the entry keeps the edges along which the caller taints are generated
+     * @return The cache entry, which must be synchronized on while in use
+     */
+    public Entry getEntry(Stmt stmt, SootMethod callee, Taint calleeTaint, int size, boolean recordEdges) {
+        Map<Pair<SootMethod, Taint>, Entry> entries = cache.computeIfAbsent(stmt, k -> new ConcurrentHashMap<>());
+        return entries.computeIfAbsent(new Pair<>(callee, calleeTaint), k -> new Entry(size, recordEdges));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public static class Entry {
+        private final int[] versions;
+        private final List<Set<Taint>> callerTaints;
+        private final List<List<Taint>> edges;
+
+        private Entry(int size, boolean recordEdges) {
+            this.versions = new int[size];
+            this.callerTaints = new ArrayList<>(size);
+            this.edges = recordEdges ? new ArrayList<>(size) : null;
+            for (int i = 0; i < size; i++) {
+                callerTaints.add(new HashSet<>());
+                if (recordEdges) {
+                    edges.add(new ArrayList<>());
+                }
+            }
+        }
+
+        /**
+         * Gets the version of the callee summary set at a given index consumed so far.
+         */
+        public int getVersion(int idx) {
+            return versions[idx];
+        }
+
+        public void setVersion(int idx, int version) {
+            versions[idx] = version;
+        }
+
+        /**
+         * Gets the caller taints generated so far from the callee summary set at a given index.
+         */
+        public Set<Taint> getCallerTaints(int idx) {
+            return callerTaints.get(idx);
+        }
+
+        /**
+         * Adds a caller taint generated from a taint of the callee summary set at a given index.
+         *
+         * @param idx           the index of the callee summary set
+         * @param calleeTaint   the taint of the callee summary
+         * @param callerTaint   the caller taint generated from it
+         */
+        public void addCallerTaint(int idx, Taint calleeTaint, Taint callerTaint) {
+            callerTaints.get(idx).add(callerTaint);
+            if (edges != null) {
+                List<Taint> lst = edges.get(idx);
+                lst.add(calleeTaint);
+                lst.add(callerTaint);
+            }
+        }
+
+        public boolean isRecordingEdges() {
+            return edges != null;
+        }
+
+        /**
+         * Gets the (callee taint, caller taint) edges along which the caller taints of the callee summary set
+         * at a given index have been generated, as a flat list of pairs, if the entry records them.
+         */
+        public List<Taint> getEdges(int idx) {
+            return edges.get(idx);
+        }
+    }
+
+}
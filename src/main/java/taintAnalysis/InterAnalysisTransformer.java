@@ -1,27 +1,51 @@
 package taintAnalysis;
 
+import assertion.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import soot.SceneTransformer;
 import soot.SootMethod;
+import taintAnalysis.flowSet.FlowSetType;
+import taintAnalysis.graph.TaintGraphWriter;
+import taintAnalysis.pathSink.GzipJsonLinesPathSink;
+import taintAnalysis.pathSink.IPathSink;
+import taintAnalysis.pathSink.JsonLinesPathSink;
+import taintAnalysis.pathSink.PathTrie;
 import taintAnalysis.sourceSinkManager.ISourceSinkManager;
 import taintAnalysis.taintWrapper.ITaintWrapper;
 import taintAnalysis.utility.PhantomIdentityStmt;
 import taintAnalysis.utility.PhantomRetStmt;
+import taintAnalysis.utility.ReachableTaintGraph;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class InterAnalysisTransformer extends SceneTransformer {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final ISourceSinkManager sourceSinkManager;
     private final InterTaintAnalysis analysis;
     private boolean printResults = true;
+    private String taintGraphPath = null;
+    private int numOfShortestPaths = 0;
+    private int numOfPathThreads = 0;
+    private String pathOutputPath = null;
+    private boolean countPaths = false;
+    private boolean prunePaths = false;
+    private Map<String, Map<Taint, Long>> pathCounts = new TreeMap<>();
     private Map<Taint, List<List<Taint>>> pathsMap = new HashMap<>();
+    private List<Taint> sortedSources = null;
+    private SinkSourceIndex sinkSourceIndex = null;
 
     public InterAnalysisTransformer(ISourceSinkManager sourceSinkManager, ITaintWrapper taintWrapper) {
+        this.sourceSinkManager = sourceSinkManager;
         this.analysis = new InterTaintAnalysis(sourceSinkManager, taintWrapper);
     }
 
@@ -29,12 +53,122 @@ public class InterAnalysisTransformer extends SceneTransformer {
         return analysis.getSources();
     }
 
+    public int getNumOfThreads() {
+        return analysis.getNumOfThreads();
+    }
+
+    public void setNumOfThreads(int numOfThreads) {
+        analysis.setNumOfThreads(numOfThreads);
+    }
+
+    public boolean isMultiEntry() {
+        return analysis.isMultiEntry();
+    }
+
+    public void setMultiEntry(boolean multiEntry) {
+        analysis.setMultiEntry(multiEntry);
+    }
+
+    public FlowSetType getFlowSetType() {
+        return analysis.getFlowSetType();
+    }
+
+    public void setFlowSetType(FlowSetType flowSetType) {
+        analysis.setFlowSetType(flowSetType);
+    }
+
+    public boolean isDemandDriven() {
+        return analysis.isDemandDriven();
+    }
+
+    public void setDemandDriven(boolean demandDriven) {
+        analysis.setDemandDriven(demandDriven);
+    }
+
+    public String getSummaryStorePath() {
+        return analysis.getSummaryStorePath();
+    }
+
+    public void setSummaryStorePath(String summaryStorePath) {
+        analysis.setSummaryStorePath(summaryStorePath);
+    }
+
+    public String getTaintGraphPath() {
+        return taintGraphPath;
+    }
+
+    /**
+     * Sets the file to write the taint propagation graph to after the analysis (null to not write it).
+     */
+    public void setTaintGraphPath(String taintGraphPath) {
+        this.taintGraphPath = taintGraphPath;
+    }
+
+    public int getNumOfShortestPaths() {
+        return numOfShortestPaths;
+    }
+
+    /**
+     * Sets the number of shortest paths reconstructed for each sink (0 for the exhaustive path search).
+     */
+    public void setNumOfShortestPaths(int numOfShortestPaths) {
+        this.numOfShortestPaths = numOfShortestPaths;
+    }
+
+    public int getNumOfPathThreads() {
+        return numOfPathThreads;
+    }
+
+    /**
+     * Sets the number of threads of path reconstruction (0 for the number of available processors).
+     */
+    public void setNumOfPathThreads(int numOfPathThreads) {
+        this.numOfPathThreads = numOfPathThreads;
+    }
+
+    public String getPathOutputPath() {
+        return pathOutputPath;
+    }
+
+    /**
+     * Sets the file to stream the reconstructed paths to as JSON lines, gzipped if the file name ends with
+     * ".gz" (null to keep the paths in the paths map and print them).
+     */
+    public void setPathOutputPath(String pathOutputPath) {
+        this.pathOutputPath = pathOutputPath;
+    }
+
+    public boolean isCountPaths() {
+        return countPaths;
+    }
+
+    /**
+     * Sets whether the paths from each option to each sink are counted instead of reconstructed.
+     */
+    public void setCountPaths(boolean countPaths) {
+        this.countPaths = countPaths;
+    }
+
+    public boolean isPrunePaths() {
+        return prunePaths;
+    }
+
+    /**
+     * Sets whether the exhaustive path search skips the taints from which no sink not reported yet is reachable.
+     */
+    public void setPrunePaths(boolean prunePaths) {
+        this.prunePaths = prunePaths;
+    }
+
     public Map<SootMethod, Map<Taint, List<Set<Taint>>>> getMethodSummary() {
         return analysis.getMethodSummary();
     }
 
-    public Map<SootMethod, Map<Taint, Taint>> getMethodTaintCache() {
-        return analysis.getMethodTaintCache();
+    /**
+     * Gets the methods analyzed by the last run with a summary store, i.e. not replayed from the store.
+     */
+    public Set<SootMethod> getAnalyzedMethods() {
+        return analysis.getAnalyzedMethods();
     }
 
     @Override
@@ -44,6 +178,17 @@ public class InterAnalysisTransformer extends SceneTransformer {
         Set<Taint> sinks = new HashSet<>();
         ArrayList<Taint> sources = new ArrayList<>(analysis.getSources());
         sources.sort(Comparator.comparing(Taint::toString));
+        sortedSources = sources;
+        sinkSourceIndex = null;
+
+        if (taintGraphPath != null) {
+            logger.info("Writing taint propagation graph to {}...", taintGraphPath);
+            try {
+                TaintGraphWriter.write(sources, sourceSinkManager, taintGraphPath);
+            } catch (IOException e) {
+                logger.warn("Cannot write taint propagation graph {}: {}", taintGraphPath, e.getMessage());
+            }
+        }
 
         // // For validation only
         // PathVisitor pv = new PathVisitor();
@@ -51,27 +196,106 @@ public class InterAnalysisTransformer extends SceneTransformer {
         //     pv.visit(source);
         // }
 
-       int numOfThread = 5;
+       int numOfThread = numOfPathThreads > 0 ? numOfPathThreads : Runtime.getRuntime().availableProcessors();
        logger.info("Reconstructing path using {} threads...", numOfThread);
-       ExecutorService es = Executors.newFixedThreadPool(numOfThread);
-       List<SourceSinkConnectionVisitor> todo = new ArrayList<>(sources.size());
-       for (Taint source : sources) {
-           todo.add(new SourceSinkConnectionVisitor(source));
-       }
+       ForkJoinPool pool = new ForkJoinPool(numOfThread);
+       // Stream the paths to the output file, or keep them in prefix trees
+       JsonLinesPathSink pathSink = null;
+       PathTrie pathTrie = null;
        try {
-           es.invokeAll(todo);
-       } catch (InterruptedException e) {
-           e.printStackTrace();
-       }
-       for (SourceSinkConnectionVisitor pv : todo) {
-           pathsMap.put(pv.getSource(), pv.getPaths());
-           sinks.addAll(pv.getSinks());
+           if (countPaths) {
+               logger.info("Counting paths...");
+           } else if (pathOutputPath != null) {
+               logger.info("Streaming paths to {}...", pathOutputPath);
+               pathSink = pathOutputPath.endsWith(".gz") ?
+                       new GzipJsonLinesPathSink(pathOutputPath) : new JsonLinesPathSink(pathOutputPath);
+           } else {
+               pathTrie = new PathTrie();
+           }
+           IPathSink sink = pathSink != null ? pathSink : pathTrie;
+
+           // Start the sources reaching the most taints first, so that they do not finish last
+           ReachableTaintGraph reachable = new ReachableTaintGraph(sources);
+           long[] reachableSizes = reachable.estimateReachableSizes();
+           List<Taint> schedule = new ArrayList<>(sources);
+           schedule.sort(Comparator.comparingLong(
+                   (Taint source) -> reachableSizes[reachable.getComponent(reachable.indexOf(source))]).reversed());
+
+           if (countPaths) {
+               Map<Taint, PathCounter> todo = new HashMap<>();
+               for (Taint source : schedule) {
+                   todo.put(source, new PathCounter(source));
+               }
+               invokeAll(pool, getTasks(schedule, todo));
+               for (Taint source : sources) {
+                   PathCounter pc = todo.get(source);
+                   String option = sourceSinkManager.getConfigName(source.getStmt());
+                   Map<Taint, Long> counts = pathCounts.computeIfAbsent(option != null ? option : source.toString(),
+                           k -> new TreeMap<>(Comparator.comparing(Taint::toString)));
+                   for (Map.Entry<Taint, Long> e : pc.getCounts().entrySet()) {
+                       counts.merge(e.getKey(), e.getValue(), PathCounter::add);
+                   }
+                   sinks.addAll(pc.getSinks());
+               }
+           } else if (numOfShortestPaths > 0) {
+               Map<Taint, ShortestPathVisitor> todo = new HashMap<>();
+               for (Taint source : schedule) {
+                   todo.put(source, new ShortestPathVisitor(source, numOfShortestPaths, sink));
+               }
+               invokeAll(pool, getTasks(schedule, todo));
+               for (Taint source : sources) {
+                   ShortestPathVisitor pv = todo.get(source);
+                   pathsMap.put(pv.getSource(), pathTrie != null ? pathTrie.getPaths(source) : pv.getPaths());
+                   sinks.addAll(pv.getSinks());
+               }
+           } else {
+               SinkReachability reachability = null;
+               if (prunePaths) {
+                   reachability = new SinkReachability(sources);
+                   logger.info("Number of sinks reachable from the sources: {}", reachability.getSinks().size());
+               }
+               Map<Taint, SourceSinkConnectionVisitor> todo = new HashMap<>();
+               for (Taint source : schedule) {
+                   todo.put(source, new SourceSinkConnectionVisitor(source, 20000, sink, reachability));
+               }
+               invokeAll(pool, getTasks(schedule, todo));
+               for (Taint source : sources) {
+                   SourceSinkConnectionVisitor pv = todo.get(source);
+                   pathsMap.put(pv.getSource(), pathTrie != null ? pathTrie.getPaths(source) : pv.getPaths());
+                   sinks.addAll(pv.getSinks());
+               }
+           }
+           if (pathTrie != null) {
+               logger.info("Number of path prefix tree nodes: {}", pathTrie.getNumOfNodes());
+           }
+           if (pathSink != null) {
+               pathSink.close();
+               logger.info("Number of paths written to {}: {}", pathOutputPath, pathSink.getNumOfPaths());
+           }
+       } catch (IOException e) {
+           if (pathSink != null) {
+               try {
+                   pathSink.close();
+               } catch (IOException suppressed) {
+                   e.addSuppressed(suppressed);
+               }
+           }
+           throw new UncheckedIOException("Cannot write paths to " + pathOutputPath, e);
+       } finally {
+           pool.shutdown();
        }
-       es.shutdown();
 
        logger.info("Number of sinks reached by path reconstruction: {}", sinks.size());
 
-       if (printResults) {
+       if (printResults && countPaths) {
+           logger.info("Printing results...");
+           System.out.println("Number of paths (option, sink, count):");
+           for (Map.Entry<String, Map<Taint, Long>> e : pathCounts.entrySet()) {
+               for (Map.Entry<Taint, Long> e2 : e.getValue().entrySet()) {
+                   System.out.println(e.getKey() + "\t" + e2.getKey() + "\t" + e2.getValue());
+               }
+           }
+       } else if (printResults && pathOutputPath == null) {
            logger.info("Printing results...");
            for (Taint source : sources) {
                System.out.println("Source: " + source + " reaches:\n");
@@ -91,6 +315,61 @@ public class InterAnalysisTransformer extends SceneTransformer {
        }
     }
 
+    private static List<Callable<Object>> getTasks(List<Taint> schedule,
+                                                   Map<Taint, ? extends Callable<Object>> visitors) {
+        List<Callable<Object>> tasks = new ArrayList<>(schedule.size());
+        for (Taint source : schedule) {
+            tasks.add(visitors.get(source));
+        }
+        return tasks;
+    }
+
+    /**
+     * Runs tasks on a pool and waits for all of them, rethrowing the first failure in the order of the tasks.
+     * A failure to write a path is rethrown as the {@link IOException} it wraps.
+     */
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Object>> tasks) throws IOException {
+        for (Future<Object> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reconstructing paths");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of paths from each option to each sink it reaches, in counting mode. Options are
+     * named after the configuration name of their sources, or after the source if it has none.
+     */
+    public Map<String, Map<Taint, Long>> getPathCounts() {
+        return pathCounts;
+    }
+
+    /**
+     * Gets the index of the sources and options reaching each sink, built on first use after the analysis.
+     */
+    public synchronized SinkSourceIndex getSinkSourceIndex() {
+        Assert.assertNotNull(sortedSources);
+        if (sinkSourceIndex == null) {
+            logger.info("Indexing the sources reaching each sink...");
+            sinkSourceIndex = new SinkSourceIndex(sortedSources, sourceSinkManager);
+            logger.info("Number of sinks indexed: {}", sinkSourceIndex.getSinks().size());
+        }
+        return sinkSourceIndex;
+    }
+
     public Map<Taint, List<List<Taint>>> getPathsMap() {
         return pathsMap;
     }
@@ -3,10 +3,21 @@ package taintAnalysis;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import soot.*;
+import soot.jimple.Stmt;
+import soot.toolkits.scalar.Pair;
+import taintAnalysis.flowSet.FlowSetType;
 import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.summaryStore.ContextRecord;
+import taintAnalysis.summaryStore.MethodFingerprints;
+import taintAnalysis.summaryStore.SummaryStore;
 import taintAnalysis.taintWrapper.ITaintWrapper;
+import taintAnalysis.utility.PhantomIdentityStmt;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class InterTaintAnalysis {
 
@@ -17,22 +28,43 @@ public class InterTaintAnalysis {
     private final Set<Taint> sources;
     private final Set<Taint> sinks;
     private final Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary;
-    private final Map<SootMethod, Map<Taint, Taint>> methodTaintCache;
+    private final Map<Pair<SootMethod, Taint>, Set<Pair<SootMethod, Taint>>> dependents;
+    private final CallSiteSummaryCache callSiteSummaryCache;
+    private final BodyInfoCache bodyInfoCache;
+    private int numOfThreads = 1;
+    private boolean multiEntry = false;
+    private FlowSetType flowSetType = FlowSetType.HASH;
+    private boolean demandDriven = false;
+    private String summaryStorePath = null;
+    private boolean summarizeParameters = false;
+    private SummaryStore summaryStore;
+    private MethodFingerprints fingerprints;
+    private final Map<SootMethod, Map<Taint, ContextRecord>> records;
+    private final Set<Pair<SootMethod, Taint>> replayedContexts;
+    private final Map<Pair<SootMethod, Taint>, ContextRecord> tentativeContexts;
+    private final Set<SootMethod> distrustedMethods;
+    private final Set<SootMethod> analyzedMethods;
 
     public InterTaintAnalysis(ISourceSinkManager sourceSinkManager, ITaintWrapper taintWrapper) {
         this.sourceSinkManager = sourceSinkManager;
         this.taintWrapper = taintWrapper;
-        this.sources = new HashSet<>();
-        this.sinks = new HashSet<>();
-        this.methodSummary = new HashMap<>();
-        this.methodTaintCache = new HashMap<>();
+        this.sources = ConcurrentHashMap.newKeySet();
+        this.sinks = ConcurrentHashMap.newKeySet();
+        this.methodSummary = new ConcurrentHashMap<>();
+        this.dependents = new ConcurrentHashMap<>();
+        this.callSiteSummaryCache = new CallSiteSummaryCache();
+        this.bodyInfoCache = new BodyInfoCache(sourceSinkManager);
+        this.records = new ConcurrentHashMap<>();
+        this.replayedContexts = ConcurrentHashMap.newKeySet();
+        this.tentativeContexts = new ConcurrentHashMap<>();
+        this.distrustedMethods = new HashSet<>();
+        this.analyzedMethods = ConcurrentHashMap.newKeySet();
     }
 
     public void doAnalysis() {
-        this.sources.clear();
-        this.sinks.clear();
-        this.methodSummary.clear();
-        this.methodTaintCache.clear();
+        clear();
+        this.bodyInfoCache.clear();
+        this.distrustedMethods.clear();
 
         List<SootMethod> methodList = new ArrayList<>();
         for (SootClass sc : Scene.v().getApplicationClasses()) {
@@ -46,44 +78,484 @@ public class InterTaintAnalysis {
 
         logger.info("Num of methods: {}", methodList.size());
 
-        // Bootstrap
-        int iter = 1;
-        logger.info("iter {}", iter);
-        List<Body> bodyList = new ArrayList<>();
+        // Bootstrap: retrieve the bodies of all methods before analyzing any of them
         for (SootMethod sm : methodList) {
-            Body b = sm.retrieveActiveBody();
-            bodyList.add(b);
+            sm.retrieveActiveBody();
+        }
+
+        // Solve the summaries with a worklist of (method, entry taint) contexts. A context is re-analyzed
+        // only when the summary of one of the callee contexts it has consumed grows, or when it is created.
+        // Contexts are scheduled by the SCCs of the call graph in reverse topological order (callees first).
+        CallGraphScheduler worklist = new CallGraphScheduler(methodList, bodyInfoCache);
+        logger.info("Num of SCCs: {} ({} recursive) in {} levels",
+                worklist.getNumOfSCCs(), worklist.getNumOfRecursiveSCCs(), worklist.getNumOfLevels());
+        Set<SootMethod> methodSet = new HashSet<>(methodList);
+
+        // With a summary store, the recorded contexts of the unchanged methods are replayed instead of analyzed.
+        // The store may have been written for another version of the application, in which case the changed
+        // methods are analyzed and the methods calling them are replayed as long as the callee summaries they
+        // consume turn out to be the same (see validateTentativeContexts).
+        if (summaryStorePath != null) {
+            fingerprints = new MethodFingerprints(methodList, worklist, bodyInfoCache);
+            summaryStore = new SummaryStore(summaryStorePath, MethodFingerprints.fingerprint(
+                    "summary-store", sourceSinkManager.getClass().getName(),
+                    taintWrapper == null ? "" : taintWrapper.getClass().getName(),
+                    taintWrapper == null ? "" : Long.toHexString(taintWrapper.fingerprint()),
+                    String.valueOf(Scene.v().hasCallGraph())));
+            int numOfUnchanged = 0;
+            int numOfChangedCallees = 0;
+            for (SootMethod sm : methodList) {
+                if (summaryStore.isUnchanged(sm, fingerprints)) {
+                    numOfUnchanged++;
+                } else if (summaryStore.isLocallyUnchanged(sm, fingerprints)) {
+                    numOfChangedCallees++;
+                }
+            }
+            logger.info("Summary store: {} of {} methods unchanged, {} with changed callees",
+                    numOfUnchanged, methodList.size(), numOfChangedCallees);
         }
-        for (Body b : bodyList) {
-            TaintFlowAnalysis analysis = new TaintFlowAnalysis(b, sourceSinkManager, Taint.getEmptyTaint(),
-                    methodSummary, methodTaintCache, taintWrapper);
-            analysis.doAnalysis();
-            sources.addAll(analysis.getSources());
+
+        while (true) {
+            solve(methodList, methodSet, worklist);
+            if (summaryStore == null) break;
+            Set<SootMethod> invalid = validateTentativeContexts();
+            if (invalid.isEmpty()) break;
+            // The tentative replays have been wrong, solve again from scratch with these methods analyzed
+            logger.info("Summary store: {} replayed methods have changed callee summaries, solving again",
+                    invalid.size());
+            distrustedMethods.addAll(invalid);
+            clear();
+            Taint.reset();
+            summaryStore.clearDecoded();
         }
-        iter++;
+        logger.info("Found {} sinks reached from {} sources", sinks.size(), sources.size());
 
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            logger.info("iter {}", iter);
+        if (summaryStore != null) {
+            logger.info("Summary store: replayed {} method contexts", replayedContexts.size());
+            try {
+                summaryStore.save(methodList, fingerprints, records, methodSummary, analyzedMethods);
+            } catch (IOException e) {
+                logger.warn("Cannot write summary store {}: {}", summaryStorePath, e.getMessage());
+            } finally {
+                summaryStore.close();
+                summaryStore = null;
+                fingerprints = null;
+            }
+        }
+    }
 
+    private void clear() {
+        this.sources.clear();
+        this.sinks.clear();
+        this.methodSummary.clear();
+        this.dependents.clear();
+        this.callSiteSummaryCache.clear();
+        this.records.clear();
+        this.replayedContexts.clear();
+        this.tentativeContexts.clear();
+        this.analyzedMethods.clear();
+    }
+
+    /**
+     * Solves the summaries with a worklist of (method, entry taint) contexts.
+     *
+     * @param methodList    the methods to analyze
+     * @param methodSet     the set of the methods to analyze
+     * @param worklist      the empty worklist
+     */
+    private void solve(List<SootMethod> methodList, Set<SootMethod> methodSet, CallGraphScheduler worklist) {
+        // In demand-driven mode, only the methods containing sources are analyzed with the empty taint at first,
+        // the empty taint context of a caller is only scheduled once the empty taint summary of a callee grows
+        Set<SootMethod> demanded = new HashSet<>();
+        for (SootMethod sm : methodList) {
+            if (!demandDriven || bodyInfoCache.getBodyInfo(sm.getActiveBody()).hasSource()) {
+                demanded.add(sm);
+                worklist.add(new Pair<>(sm, Taint.getEmptyTaint()));
+            }
+        }
+        if (demandDriven) {
+            logger.info("Demand-driven analysis starting from {} methods containing sources", demanded.size());
+        }
+        if (summarizeParameters) {
+            // Also analyze the public methods with the entry taint of their base object and of each parameter
+            int numOfContexts = 0;
             for (SootMethod sm : methodList) {
-                Body b = sm.retrieveActiveBody();
-                Set<Taint> entryTaints = new HashSet<>();
-                entryTaints.addAll(methodSummary.get(sm).keySet());
-                for (Taint entryTaint : entryTaints) {
-                    TaintFlowAnalysis analysis = new TaintFlowAnalysis(b, sourceSinkManager, entryTaint,
-                            methodSummary, methodTaintCache, taintWrapper);
-                    analysis.doAnalysis();
-                    sinks.addAll(analysis.getSinks());
-                    changed |= analysis.isChanged();
+                if (!sm.isPublic()) continue;
+                for (List<Taint> slotTaints : getParameterEntryTaints(sm)) {
+                    for (Taint entryTaint : slotTaints) {
+                        worklist.add(new Pair<>(sm, entryTaint));
+                        numOfContexts++;
+                    }
                 }
             }
+            logger.info("Summarizing {} parameter contexts of public methods", numOfContexts);
+        }
 
-            iter++;
+        // In parallel mode, all pending contexts of the lowest SCC level are analyzed as one batch
+        ForkJoinPool pool = null;
+        if (numOfThreads > 1) {
+            logger.info("Analyzing method contexts using {} threads...", numOfThreads);
+            pool = new ForkJoinPool(numOfThreads);
         }
 
-        logger.info("Found {} sinks reached from {} sources", sinks.size(), sources.size());
+        int iter = 0;
+        long numOfAnalyses = 0;
+        long numOfTraversals = 0;
+        try {
+            while (!worklist.isEmpty()) {
+                int numOfPending = worklist.size();
+                List<Pair<SootMethod, Taint>> batch;
+                if (pool != null || multiEntry) {
+                    batch = worklist.pollBatch();
+                } else {
+                    batch = Collections.singletonList(worklist.poll());
+                }
+                if (worklist.getPass() != iter) {
+                    iter = worklist.getPass();
+                    logger.info("iter {}: {} method contexts to analyze", iter, numOfPending);
+                }
+
+                // In multi-entry mode, the contexts of the same method are analyzed together in one traversal
+                Collection<List<Pair<SootMethod, Taint>>> groups;
+                if (multiEntry) {
+                    Map<SootMethod, List<Pair<SootMethod, Taint>>> groupMap = new LinkedHashMap<>();
+                    for (Pair<SootMethod, Taint> context : batch) {
+                        groupMap.computeIfAbsent(context.getO1(), k -> new ArrayList<>()).add(context);
+                    }
+                    groups = groupMap.values();
+                } else {
+                    groups = new ArrayList<>(batch.size());
+                    for (Pair<SootMethod, Taint> context : batch) {
+                        groups.add(Collections.singletonList(context));
+                    }
+                }
+
+                List<ContextResult> results = new ArrayList<>(groups.size());
+                if (pool != null && groups.size() > 1) {
+                    List<ForkJoinTask<ContextResult>> tasks = new ArrayList<>(groups.size());
+                    for (List<Pair<SootMethod, Taint>> contexts : groups) {
+                        tasks.add(pool.submit(() -> analyzeContexts(contexts)));
+                    }
+                    for (ForkJoinTask<ContextResult> task : tasks) {
+                        results.add(task.join());
+                    }
+                } else {
+                    for (List<Pair<SootMethod, Taint>> contexts : groups) {
+                        results.add(analyzeContexts(contexts));
+                    }
+                }
+                numOfAnalyses += batch.size();
+                numOfTraversals += groups.size();
+
+                // All dependencies of the batch have been registered, propagate the changes in batch order
+                for (ContextResult result : results) {
+                    for (int i = 0; i < result.contexts.size(); i++) {
+                        if (result.summaryChanged[i]) {
+                            Pair<SootMethod, Taint> context = result.contexts.get(i);
+                            for (Pair<SootMethod, Taint> caller :
+                                    dependents.getOrDefault(context, Collections.emptySet())) {
+                                worklist.add(caller);
+                            }
+                            if (demandDriven && context.getO2().isEmpty()) {
+                                // Taints flow out of the callee, demand the empty taint context of its callers
+                                for (SootMethod caller : worklist.getCallers(context.getO1())) {
+                                    if (demanded.add(caller)) {
+                                        worklist.add(new Pair<>(caller, Taint.getEmptyTaint()));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    for (Pair<SootMethod, Taint> callee : result.createdSummaries) {
+                        if (!methodSet.contains(callee.getO1())) continue;
+                        if (demandDriven && callee.getO2().isEmpty()) continue;
+                        worklist.add(callee);
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        logger.info("Analyzed {} method contexts with {} body traversals in {} iterations",
+                numOfAnalyses, numOfTraversals, iter);
+        if (demandDriven) {
+            logger.info("Analyzed {} of {} methods with the empty taint", demanded.size(), methodList.size());
+        }
+    }
+
+    /**
+     * Validates the contexts which have been replayed from the records of methods with changed callees.
+     * Such a context has the recorded result if the summaries of the callee contexts it consumes are the
+     * same as when the record has been written, which is checked by comparing their digests.
+     *
+     * @return The methods of the contexts whose consumed callee summaries have changed
+     */
+    private Set<SootMethod> validateTentativeContexts() {
+        Set<SootMethod> invalid = new HashSet<>();
+        for (Map.Entry<Pair<SootMethod, Taint>, ContextRecord> e : tentativeContexts.entrySet()) {
+            for (Map.Entry<Pair<SootMethod, Taint>, Long> digest : e.getValue().getSummaryDigests().entrySet()) {
+                SootMethod callee = digest.getKey().getO1();
+                List<Set<Taint>> summary =
+                        methodSummary.getOrDefault(callee, Collections.emptyMap()).get(digest.getKey().getO2());
+                boolean same;
+                try {
+                    same = summary != null && summaryStore.digest(summary, callee) == digest.getValue();
+                } catch (IllegalStateException ex) {
+                    same = false;
+                }
+                if (!same) {
+                    invalid.add(e.getKey().getO1());
+                    break;
+                }
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Analyzes (method, entry taint) contexts of the same method in one traversal of the method body, and
+     * registers each context as a dependent of the callee contexts it has consumed. Contexts of different
+     * methods can be analyzed concurrently.
+     *
+     * With a summary store, the contexts recorded in the store for a (locally) unchanged method are replayed
+     * instead. The replayed summary of a context is final, so a replayed context is skipped when it is
+     * scheduled again.
+     *
+     * @param contexts  the contexts to analyze, which all share the same method
+     * @return The changes to the summaries made by the analysis
+     */
+    private ContextResult analyzeContexts(List<Pair<SootMethod, Taint>> contexts) {
+        SootMethod sm = contexts.get(0).getO1();
+        boolean[] summaryChanged = new boolean[contexts.size()];
+        Set<Pair<SootMethod, Taint>> createdSummaries = new HashSet<>();
+
+        List<Integer> indices = new ArrayList<>(contexts.size());
+        if (summaryStore != null) {
+            Map<Taint, ContextRecord> stored =
+                    distrustedMethods.contains(sm) ? null : summaryStore.getRecords(sm, fingerprints);
+            boolean tentative = stored != null && !summaryStore.isUnchanged(sm, fingerprints);
+            for (int i = 0; i < contexts.size(); i++) {
+                Pair<SootMethod, Taint> context = contexts.get(i);
+                if (replayedContexts.contains(context)) continue;
+                ContextRecord record = stored == null ? null : stored.get(context.getO2());
+                if (record != null) {
+                    summaryChanged[i] = replayContext(context, record, createdSummaries);
+                    replayedContexts.add(context);
+                    if (tentative) {
+                        tentativeContexts.put(context, record);
+                    }
+                } else {
+                    indices.add(i);
+                }
+            }
+            if (indices.isEmpty()) {
+                return new ContextResult(contexts, summaryChanged, createdSummaries);
+            }
+            analyzedMethods.add(sm);
+        } else {
+            for (int i = 0; i < contexts.size(); i++) {
+                indices.add(i);
+            }
+        }
+
+        List<Taint> entryTaints = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            entryTaints.add(contexts.get(i).getO2());
+        }
+        TaintFlowAnalysis analysis = new TaintFlowAnalysis(sm.getActiveBody(), sourceSinkManager, entryTaints,
+                methodSummary, taintWrapper, callSiteSummaryCache, flowSetType,
+                bodyInfoCache);
+        if (summaryStore != null) {
+            analysis.enableRecording();
+        }
+        analysis.doAnalysis();
+        sources.addAll(analysis.getSources());
+        sinks.addAll(analysis.getSinks());
+
+        for (int k = 0; k < indices.size(); k++) {
+            int i = indices.get(k);
+            Pair<SootMethod, Taint> context = contexts.get(i);
+            for (Pair<SootMethod, Taint> callee : analysis.getConsumedSummaries(k)) {
+                dependents.computeIfAbsent(callee, c -> ConcurrentHashMap.newKeySet()).add(context);
+            }
+            summaryChanged[i] = analysis.isSummaryChanged(k);
+            if (summaryStore != null) {
+                ContextRecord record = analysis.getRecord(k);
+                records.computeIfAbsent(sm, m -> new ConcurrentHashMap<>())
+                        .merge(context.getO2(), record, (r1, r2) -> {
+                            r1.merge(r2);
+                            return r1;
+                        });
+            }
+        }
+        createdSummaries.addAll(analysis.getCreatedSummaries());
+        return new ContextResult(contexts, summaryChanged, createdSummaries);
+    }
+
+    /**
+     * Replays the record of a context, which has the same effect as analyzing the context: its summary,
+     * sources, sinks and taint propagation edges are added, and it is registered as a dependent of the
+     * callee contexts it consumes, whose summaries are created if they do not exist yet.
+     *
+     * @param context           the context
+     * @param record            the record of the context read from the summary store
+     * @param createdSummaries  the set to add the created callee contexts to
+     * @return True if the summary of the context has grown
+     */
+    private boolean replayContext(Pair<SootMethod, Taint> context, ContextRecord record,
+                                  Set<Pair<SootMethod, Taint>> createdSummaries) {
+        SootMethod sm = context.getO1();
+        Map<Taint, List<Set<Taint>>> summaries = methodSummary.computeIfAbsent(sm, k -> new ConcurrentHashMap<>());
+        TaintFlowAnalysis.initSummary(summaries, context.getO2(), sm);
+        List<Set<Taint>> summary = summaries.get(context.getO2());
+        boolean summaryChanged = false;
+        for (int i = 0; i < Math.min(summary.size(), record.getSummary().size()); i++) {
+            if (summary.get(i).addAll(record.getSummary().get(i))) {
+                summaryChanged = true;
+            }
+        }
+
+        sources.addAll(record.getSources());
+        for (Taint sink : record.getSinks()) {
+            sink.setSink();
+            sinks.add(sink);
+        }
+        for (Pair<Taint, Taint> edge : record.getEdges()) {
+            edge.getO1().addSuccessor(edge.getO2());
+        }
+        for (Pair<SootMethod, Taint> callee : record.getConsumedSummaries()) {
+            dependents.computeIfAbsent(callee, k -> ConcurrentHashMap.newKeySet()).add(context);
+            Map<Taint, List<Set<Taint>>> calleeSummaries =
+                    methodSummary.computeIfAbsent(callee.getO1(), k -> new ConcurrentHashMap<>());
+            if (TaintFlowAnalysis.initSummary(calleeSummaries, callee.getO2(), callee.getO1())) {
+                createdSummaries.add(callee);
+            }
+        }
+
+        records.computeIfAbsent(sm, k -> new ConcurrentHashMap<>()).put(context.getO2(), record);
+        return summaryChanged;
+    }
+
+    /**
+     * Gets the entry taints of the base object and of the parameters of a method, as indexed in its
+     * summary list (idx 0: base, 1: retVal, 2+: parameters). The entry taints of a slot are the taint of
+     * the whole value and, if the value is an object, the taints of each instance field of its class and
+     * superclasses, since a taint of the whole value does not taint its fields. The return value, and the
+     * base object of a static method, have no entry taints.
+     *
+     * @param sm    the method, which must have an active body
+     * @return The list of the entry taints of each slot
+     */
+    public static List<List<Taint>> getParameterEntryTaints(SootMethod sm) {
+        Body body = sm.getActiveBody();
+        Stmt stmt = PhantomIdentityStmt.getInstance(sm);
+        List<List<Taint>> entryTaints = new ArrayList<>(sm.getParameterCount() + 2);
+        entryTaints.add(sm.isStatic() ?
+                Collections.emptyList() : getEntryTaints(body.getThisLocal(), stmt, sm));
+        entryTaints.add(Collections.emptyList());
+        for (int i = 0; i < sm.getParameterCount(); i++) {
+            entryTaints.add(getEntryTaints(body.getParameterLocal(i), stmt, sm));
+        }
+        return entryTaints;
+    }
+
+    private static List<Taint> getEntryTaints(Local local, Stmt stmt, SootMethod sm) {
+        List<Taint> entryTaints = new ArrayList<>();
+        entryTaints.add(Taint.getTaintFor(null, local, stmt, sm));
+        if (local.getType() instanceof RefType) {
+            SootClass sc = ((RefType) local.getType()).getSootClass();
+            while (sc != null && !sc.isPhantom()) {
+                for (SootField field : sc.getFields()) {
+                    if (!field.isStatic()) {
+                        entryTaints.add(Taint.getTaint(local, field, stmt, sm, Taint.TransferType.None));
+                    }
+                }
+                sc = sc.hasSuperclass() ? sc.getSuperclass() : null;
+            }
+        }
+        return entryTaints;
+    }
+
+    private static class ContextResult {
+        private final List<Pair<SootMethod, Taint>> contexts;
+        private final boolean[] summaryChanged;
+        private final Set<Pair<SootMethod, Taint>> createdSummaries;
+
+        private ContextResult(List<Pair<SootMethod, Taint>> contexts, boolean[] summaryChanged,
+                              Set<Pair<SootMethod, Taint>> createdSummaries) {
+            this.contexts = contexts;
+            this.summaryChanged = summaryChanged;
+            this.createdSummaries = createdSummaries;
+        }
+    }
+
+    public int getNumOfThreads() {
+        return numOfThreads;
+    }
+
+    public void setNumOfThreads(int numOfThreads) {
+        this.numOfThreads = numOfThreads;
+    }
+
+    public boolean isMultiEntry() {
+        return multiEntry;
+    }
+
+    /**
+     * Sets whether the pending contexts of the same method are analyzed together in one traversal of
+     * the method body, with one label per entry taint, instead of one traversal per context.
+     */
+    public void setMultiEntry(boolean multiEntry) {
+        this.multiEntry = multiEntry;
+    }
+
+    public FlowSetType getFlowSetType() {
+        return flowSetType;
+    }
+
+    public void setFlowSetType(FlowSetType flowSetType) {
+        this.flowSetType = flowSetType;
+    }
+
+    public boolean isDemandDriven() {
+        return demandDriven;
+    }
+
+    /**
+     * Sets whether the analysis is demand-driven, i.e. only analyzes the methods containing sources and
+     * the methods which taints flow into (through call edges) or out of (through return edges),
+     * instead of analyzing every method at least once.
+     */
+    public void setDemandDriven(boolean demandDriven) {
+        this.demandDriven = demandDriven;
+    }
+
+    public String getSummaryStorePath() {
+        return summaryStorePath;
+    }
+
+    /**
+     * Sets the file of the summary store, from which the recorded contexts of the unchanged methods are
+     * replayed, and to which the contexts of the run are recorded (null to disable the store).
+     */
+    public void setSummaryStorePath(String summaryStorePath) {
+        this.summaryStorePath = summaryStorePath;
+    }
+
+    public boolean isSummarizeParameters() {
+        return summarizeParameters;
+    }
+
+    /**
+     * Sets whether the public methods are also analyzed with the entry taints of their base object and of
+     * each parameter (see {@link #getParameterEntryTaints(SootMethod)}), to summarize how taints flow
+     * through them when they are called from outside of the analyzed classes.
+     */
+    public void setSummarizeParameters(boolean summarizeParameters) {
+        this.summarizeParameters = summarizeParameters;
     }
 
     public List<Taint> getSources() {
@@ -102,8 +574,12 @@ public class InterTaintAnalysis {
         return methodSummary;
     }
 
-    public Map<SootMethod, Map<Taint, Taint>> getMethodTaintCache() {
-        return methodTaintCache;
+    /**
+     * Gets the methods analyzed by the last run with a summary store, i.e. whose contexts have not all been
+     * replayed from the store.
+     */
+    public Set<SootMethod> getAnalyzedMethods() {
+        return Collections.unmodifiableSet(analyzedMethods);
     }
 
 }
@@ -9,6 +9,7 @@ import taintAnalysis.sourceSinkManager.ISourceSinkManager;
 import taintAnalysis.taintWrapper.ITaintWrapper;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IntraAnalysisTransformer extends BodyTransformer {
 
@@ -18,14 +19,12 @@ public class IntraAnalysisTransformer extends BodyTransformer {
     private final ITaintWrapper taintWrapper;
     private final List<List<Taint>> sourceLists;
     private final Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary;
-    private final Map<SootMethod, Map<Taint, Taint>> methodTaintCache;
 
     public IntraAnalysisTransformer(ISourceSinkManager sourceSinkManager, ITaintWrapper taintWrapper) {
         this.sourceSinkManager = sourceSinkManager;
         this.taintWrapper = taintWrapper;
         this.sourceLists = Collections.synchronizedList(new ArrayList<>());
-        this.methodSummary = new HashMap<>();
-        this.methodTaintCache = new HashMap<>();
+        this.methodSummary = new ConcurrentHashMap<>();
     }
 
     public List<List<Taint>> getSourceLists() {
@@ -36,15 +35,11 @@ public class IntraAnalysisTransformer extends BodyTransformer {
         return methodSummary;
     }
 
-    public Map<SootMethod, Map<Taint, Taint>> getMethodTaintCache() {
-        return methodTaintCache;
-    }
-
     @Override
     protected void internalTransform(Body b, String phaseName, Map<String, String> options) {
         TaintFlowAnalysis analysis =
                 new TaintFlowAnalysis(b, sourceSinkManager, Taint.getEmptyTaint(),
-                        methodSummary, methodTaintCache, taintWrapper);
+                        methodSummary, taintWrapper);
         analysis.doAnalysis();
 
         List<Taint> lst = new ArrayList<>();
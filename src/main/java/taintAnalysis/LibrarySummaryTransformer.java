@@ -0,0 +1,91 @@
+package taintAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import soot.SceneTransformer;
+import soot.SootMethod;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.taintWrapper.ITaintWrapper;
+import taintAnalysis.taintWrapper.SummaryTaintWrapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Generates the summaries of the public methods of library classes, loaded as application classes, by
+ * analyzing each public method with the entry taints of its base object and of each parameter (and of their
+ * fields). The slots (base object, return value and parameters) tainted at the exit of the method by the
+ * entry taints of each slot are written to a summary file, which is loaded by a {@link SummaryTaintWrapper}
+ * when analyzing applications using the libraries.
+ */
+public class LibrarySummaryTransformer extends SceneTransformer {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final InterTaintAnalysis analysis;
+    private final String summaryPath;
+    private final Map<String, long[]> summaries = new HashMap<>();
+
+    /**
+     * @param sourceSinkManager the source sink manager
+     * @param taintWrapper      the wrapper of the library calls outside of the summarized libraries
+     * @param summaryPath       the file to write the summaries to
+     */
+    public LibrarySummaryTransformer(ISourceSinkManager sourceSinkManager, ITaintWrapper taintWrapper,
+                                     String summaryPath) {
+        this.analysis = new InterTaintAnalysis(sourceSinkManager, taintWrapper);
+        this.analysis.setSummarizeParameters(true);
+        this.summaryPath = summaryPath;
+    }
+
+    public void setNumOfThreads(int numOfThreads) {
+        analysis.setNumOfThreads(numOfThreads);
+    }
+
+    public void setMultiEntry(boolean multiEntry) {
+        analysis.setMultiEntry(multiEntry);
+    }
+
+    @Override
+    protected void internalTransform(String phaseName, Map<String, String> options) {
+        analysis.doAnalysis();
+
+        for (Map.Entry<SootMethod, Map<Taint, List<Set<Taint>>>> e : analysis.getMethodSummary().entrySet()) {
+            SootMethod sm = e.getKey();
+            if (!sm.isPublic() || !sm.getDeclaringClass().isPublic() || !sm.hasActiveBody()) continue;
+            List<List<Taint>> entryTaints = InterTaintAnalysis.getParameterEntryTaints(sm);
+            int numOfSlots = Math.min(entryTaints.size(), SummaryTaintWrapper.getMaxSlots());
+            long[] flows = new long[numOfSlots];
+            for (int in = 0; in < numOfSlots; in++) {
+                for (Taint entryTaint : entryTaints.get(in)) {
+                    List<Set<Taint>> summary = e.getValue().get(entryTaint);
+                    if (summary == null) continue;
+                    for (int out = 0; out < Math.min(summary.size(), numOfSlots); out++) {
+                        // A slot tainting itself is already modeled by keeping its taints
+                        if (out != in && !summary.get(out).isEmpty()) {
+                            flows[in] |= 1L << out;
+                        }
+                    }
+                }
+            }
+            summaries.put(sm.getSignature(), flows);
+        }
+        logger.info("Generated summaries for {} public methods", summaries.size());
+
+        logger.info("Writing library summaries to {}...", summaryPath);
+        try {
+            SummaryTaintWrapper.write(summaries, summaryPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write library summaries to " + summaryPath, e);
+        }
+    }
+
+    /**
+     * Gets the flows of each summarized method by signature, as bitmasks of the slots tainted by each slot.
+     */
+    public Map<String, long[]> getSummaries() {
+        return summaries;
+    }
+
+}
@@ -0,0 +1,154 @@
+package taintAnalysis;
+
+import taintAnalysis.pathGraph.CallContextGraph;
+import taintAnalysis.pathGraph.CallContextGraph.Arc;
+import taintAnalysis.pathGraph.CallContextGraph.Context;
+import taintAnalysis.pathGraph.TaintPathGraph;
+import taintAnalysis.utility.StronglyConnectedComponents;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Counts the valid paths from a source to each sink it reaches by dynamic programming, without enumerating
+ * them like {@link SourceSinkConnectionVisitor}.
+ *
+ * Paths are matched at calls and returns like in {@link ShortestPathVisitor}: the states of the paths are
+ * explored into the contexts of a {@link CallContextGraph}, and a path returning from a callee to its call
+ * site is counted by the number of balanced paths from the entry taint to the exit taint of the callee. The
+ * contexts are counted callees first, concurrently for independent callees when running in a fork-join
+ * pool, and in each context the paths are counted over the strongly connected components of its states, so
+ * that a cycle is counted as a single path (recursive calls within a cycle of contexts likewise). Counts
+ * saturate at {@link Long#MAX_VALUE}. The cost is linear in the number of states and arcs of the contexts.
+ */
+public class PathCounter implements Callable<Object> {
+
+    private final Taint source;
+    private final Map<Taint, Long> counts;
+
+    public PathCounter(Taint source) {
+        this.source = source;
+        this.counts = new LinkedHashMap<>();
+    }
+
+    @Override
+    public Object call() throws Exception {
+        count(source);
+        return null;
+    }
+
+    public void count(Taint t) {
+        // Explore the states of the source context and of every callee context reachable from it
+        CallContextGraph<Taint> contexts = new CallContextGraph<>(new TaintPathGraph(), t);
+
+        // Count the contexts callees first, a context returning from a callee of its component counts each of
+        // the balanced paths of the callee as a single path
+        long[][] contextCounts = new long[contexts.getContexts().size()][];
+        contexts.solve(comp -> {
+            for (Context<Taint> ctx : comp) {
+                contextCounts[ctx.getId()] = count(ctx, contextCounts);
+            }
+        });
+
+        Context<Taint> top = contexts.getTopContext();
+        long[] topCounts = contextCounts[top.getId()];
+        Map<Taint, Long> sinkCounts = new HashMap<>();
+        for (int i = 0; i < top.getNumOfStates(); i++) {
+            Taint s = top.getNode(i);
+            if (s.isSink()) {
+                sinkCounts.merge(s, topCounts[i], PathCounter::add);
+            }
+        }
+        List<Taint> sinks = new ArrayList<>(sinkCounts.keySet());
+        sinks.sort(Comparator.comparing(Taint::toString));
+        for (Taint sink : sinks) {
+            counts.put(sink, sinkCounts.get(sink));
+        }
+    }
+
+    /**
+     * Counts the paths from the first state of a context to each state, over the strongly connected components
+     * of the states, after the callees the context returns from have been counted.
+     *
+     * @param ctx           the context
+     * @param contextCounts the counts of the contexts counted so far
+     * @return The number of paths to each state
+     */
+    private static long[] count(Context<Taint> ctx, long[][] contextCounts) {
+        int n = ctx.getNumOfStates();
+        List<List<long[]>> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<long[]> lst = new ArrayList<>();
+            for (Arc<Taint> arc : ctx.getArcs(i)) {
+                Context<Taint> callee = arc.getCallee();
+                long m = callee == null || callee.getComponent() == ctx.getComponent() ?
+                        1 : contextCounts[callee.getId()][arc.getExit()];
+                if (m != 0) {
+                    lst.add(new long[]{arc.getTo(), m});
+                }
+            }
+            out.add(lst);
+        }
+
+        int[][] succ = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<long[]> lst = out.get(i);
+            succ[i] = new int[lst.size()];
+            for (int j = 0; j < succ[i].length; j++) {
+                succ[i][j] = (int) lst.get(j)[0];
+            }
+        }
+        int[] comps = StronglyConnectedComponents.compute(succ);
+        int[][] members = StronglyConnectedComponents.getMembers(comps);
+
+        // Components are numbered in reverse topological order
+        long[] compCounts = new long[members.length];
+        compCounts[comps[0]] = 1;
+        for (int c = members.length - 1; c >= 0; c--) {
+            if (compCounts[c] == 0) {
+                continue;
+            }
+            for (int v : members[c]) {
+                for (long[] e : out.get(v)) {
+                    int d = comps[(int) e[0]];
+                    if (d != c) {
+                        compCounts[d] = add(compCounts[d], multiply(compCounts[c], e[1]));
+                    }
+                }
+            }
+        }
+        long[] counts = new long[n];
+        for (int i = 0; i < n; i++) {
+            counts[i] = compCounts[comps[i]];
+        }
+        return counts;
+    }
+
+    static long add(long a, long b) {
+        long r = a + b;
+        return r < 0 ? Long.MAX_VALUE : r;
+    }
+
+    static long multiply(long a, long b) {
+        if (a != 0 && b > Long.MAX_VALUE / a) {
+            return Long.MAX_VALUE;
+        }
+        return a * b;
+    }
+
+    public Taint getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the number of paths to each reached sink, ordered by sink.
+     */
+    public Map<Taint, Long> getCounts() {
+        return counts;
+    }
+
+    public Set<Taint> getSinks() {
+        return counts.keySet();
+    }
+
+}
@@ -0,0 +1,98 @@
+package taintAnalysis;
+
+import assertion.Assert;
+import taintAnalysis.pathGraph.ShortestPathSearch;
+import taintAnalysis.pathGraph.TaintPathGraph;
+import taintAnalysis.pathSink.IPathSink;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Reconstructs the shortest valid path from a source to each sink it reaches, as an alternative to the
+ * exhaustive search of {@link SourceSinkConnectionVisitor}, by a {@link ShortestPathSearch} over the taints.
+ * The cost is polynomial in the number of taints, without the threshold of the exhaustive search.
+ *
+ * In the k-shortest mode, up to k shortest paths without repeated states are reconstructed for each sink.
+ */
+public class ShortestPathVisitor implements Callable<Object> {
+
+    private final Taint source;
+    private final int numOfPaths;
+    private final Set<Taint> sinks;
+    private final List<List<Taint>> paths;
+    private final IPathSink pathSink;
+
+    public ShortestPathVisitor(Taint source) {
+        this(source, 1);
+    }
+
+    public ShortestPathVisitor(Taint source, int numOfPaths) {
+        this(source, numOfPaths, null);
+    }
+
+    /**
+     * @param source        the source taint
+     * @param numOfPaths    the number of shortest paths to reconstruct for each sink
+     * @param pathSink      the sink to push the paths to instead of keeping them (null to keep them)
+     */
+    public ShortestPathVisitor(Taint source, int numOfPaths, IPathSink pathSink) {
+        Assert.assertTrue(numOfPaths > 0);
+        this.source = source;
+        this.numOfPaths = numOfPaths;
+        this.sinks = new LinkedHashSet<>();
+        this.paths = new ArrayList<>();
+        this.pathSink = pathSink;
+    }
+
+    @Override
+    public Object call() throws Exception {
+        visit(source);
+        if (pathSink != null) {
+            pathSink.finish(source);
+        }
+        return null;
+    }
+
+    public void visit(Taint t) {
+        ShortestPathSearch<Taint> search = new ShortestPathSearch<>(new TaintPathGraph(), numOfPaths);
+        search.search(t);
+        sinks.addAll(search.getSinks());
+        for (Taint sink : search.getSinks()) {
+            for (List<Taint> path : search.getPaths(sink)) {
+                addPath(path);
+            }
+        }
+    }
+
+    private void addPath(List<Taint> path) {
+        if (pathSink != null) {
+            pathSink.accept(source, path);
+        } else {
+            paths.add(path);
+        }
+    }
+
+    public int getNumOfPaths() {
+        return numOfPaths;
+    }
+
+    /**
+     * Gets the reached sinks, ordered by the length of their shortest path.
+     */
+    public Set<Taint> getSinks() {
+        return sinks;
+    }
+
+    public Taint getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the shortest paths of each reached sink, from the source to the sink.
+     */
+    public List<List<Taint>> getPaths() {
+        return paths;
+    }
+
+}
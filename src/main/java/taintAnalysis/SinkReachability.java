@@ -0,0 +1,145 @@
+package taintAnalysis;
+
+import taintAnalysis.utility.ReachableTaintGraph;
+
+import java.util.*;
+
+/**
+ * Precomputes the sinks reachable from each taint reachable from the sources, so that path searches can skip
+ * the successors from which no sink, or no sink not reported yet, is reachable.
+ *
+ * The taints are collapsed into their strongly connected components, and the bitmaps of the indices of the
+ * sinks are propagated backwards along the successors of the taints once, in reverse topological order.
+ * Equal bitmaps are shared between components. The propagation ignores the matching of calls and returns, so
+ * the sinks of a taint are a superset of those its valid paths reach, and skipping a taint is always safe.
+ *
+ * The bitmaps are indexed by taint ids, which are only valid until the next {@link Taint#reset()}.
+ */
+public class SinkReachability {
+
+    private final List<Taint> sinks;
+    private final Map<Taint, Integer> sinkIndices;
+    private final BitSet[] sinksById;
+
+    /**
+     * @param sources   the sources whose reachable taints are indexed
+     */
+    public SinkReachability(Collection<Taint> sources) {
+        this.sinks = new ArrayList<>();
+        this.sinkIndices = new HashMap<>();
+        this.sinksById = new BitSet[Taint.getNumOfIds()];
+        build(sources);
+    }
+
+    private void build(Collection<Taint> sources) {
+        ReachableTaintGraph graph = new ReachableTaintGraph(sources);
+        int n = graph.size();
+        for (int i = 0; i < n; i++) {
+            Taint t = graph.getTaint(i);
+            if (t.isSink()) {
+                sinkIndices.put(t, sinks.size());
+                sinks.add(t);
+            }
+        }
+
+        // Components are numbered in reverse topological order, so the successors of a component come first
+        int numOfComps = graph.getNumOfComponents();
+        BitSet empty = new BitSet();
+        Map<BitSet, BitSet> interned = new HashMap<>();
+        interned.put(empty, empty);
+        BitSet[] bits = new BitSet[numOfComps];
+        for (int c = 0; c < numOfComps; c++) {
+            BitSet b = null;
+            boolean shared = true;
+            for (int v : graph.getMembers(c)) {
+                Integer sink = sinkIndices.get(graph.getTaint(v));
+                if (sink != null) {
+                    b = copyOnWrite(b, shared);
+                    shared = false;
+                    b.set(sink);
+                }
+                for (int w : graph.getSuccessors(v)) {
+                    BitSet s = bits[graph.getComponent(w)];
+                    if (graph.getComponent(w) == c || s == b || s.isEmpty()) {
+                        continue;
+                    }
+                    if (b == null) {
+                        b = s;
+                    } else {
+                        b = copyOnWrite(b, shared);
+                        shared = false;
+                        b.or(s);
+                    }
+                }
+            }
+            if (b == null) {
+                bits[c] = empty;
+            } else {
+                bits[c] = interned.computeIfAbsent(b, k -> k);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int id = graph.getTaint(i).getId();
+            if (id >= 0 && id < sinksById.length) {
+                sinksById[id] = bits[graph.getComponent(i)];
+            }
+        }
+    }
+
+    private static BitSet copyOnWrite(BitSet b, boolean shared) {
+        if (b == null) {
+            return new BitSet();
+        }
+        return shared ? (BitSet) b.clone() : b;
+    }
+
+    /**
+     * Gets the index of a sink in the bitmaps, or -1 if it is not reachable from the sources.
+     */
+    public int getSinkIndex(Taint sink) {
+        return sinkIndices.getOrDefault(sink, -1);
+    }
+
+    /**
+     * Gets the sinks reachable from the sources, in the order of their indices in the bitmaps.
+     */
+    public List<Taint> getSinks() {
+        return sinks;
+    }
+
+    /**
+     * Checks whether a sink may be reachable from a taint.
+     */
+    public boolean canReachSink(Taint t) {
+        BitSet b = getBits(t);
+        return b == null || !b.isEmpty();
+    }
+
+    /**
+     * Checks whether a sink not reported yet may be reachable from a taint.
+     *
+     * @param t         the taint
+     * @param reported  the indices of the sinks reported so far
+     */
+    public boolean canReachUnreported(Taint t, BitSet reported) {
+        BitSet b = getBits(t);
+        if (b == null) {
+            return true;
+        }
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+            if (!reported.get(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BitSet getBits(Taint t) {
+        int id = t.getId();
+        if (id < 0 || id >= sinksById.length) {
+            return null;
+        }
+        return sinksById[id];
+    }
+
+}
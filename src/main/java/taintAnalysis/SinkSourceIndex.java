@@ -0,0 +1,169 @@
+package taintAnalysis;
+
+import soot.jimple.Stmt;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.utility.ReachableTaintGraph;
+import taintAnalysis.utility.StronglyConnectedComponents;
+
+import java.util.*;
+
+/**
+ * Indexes the sources reaching each sink, to look up the options reaching a sink without searching the paths
+ * from every source.
+ *
+ * The taints reachable from the sources are collapsed into their strongly connected components, and bitmaps
+ * of the indices of the sources are propagated along the successors of the taints once, in topological
+ * order. The bitmap of a component is dropped once it has been propagated, unless it contains a sink. The
+ * propagation ignores the matching of calls and returns, so the sources of a sink are a superset of those
+ * whose valid paths reach the sink.
+ */
+public class SinkSourceIndex {
+
+    private final List<Taint> sources;
+    private final List<String> options;
+    private final Map<Taint, BitSet> sourcesBySink;
+    private final Map<String, BitSet> sourcesBySinkMethod;
+    private final Map<Taint, Set<String>> optionsBySink;
+    private final Map<String, Set<String>> optionsBySinkMethod;
+
+    /**
+     * @param sources           the sources, indexed by their position in the list
+     * @param sourceSinkManager the manager naming the options of the sources
+     */
+    public SinkSourceIndex(List<Taint> sources, ISourceSinkManager sourceSinkManager) {
+        this.sources = new ArrayList<>(sources);
+        this.options = new ArrayList<>(sources.size());
+        for (Taint source : sources) {
+            String option = sourceSinkManager.getConfigName(source.getStmt());
+            options.add(option != null ? option : source.toString());
+        }
+        this.sourcesBySink = new LinkedHashMap<>();
+        this.sourcesBySinkMethod = new TreeMap<>();
+        this.optionsBySink = new HashMap<>();
+        this.optionsBySinkMethod = new HashMap<>();
+        build();
+    }
+
+    private void build() {
+        ReachableTaintGraph graph = new ReachableTaintGraph(sources);
+        int n = graph.size();
+        int numOfComps = graph.getNumOfComponents();
+        boolean[] hasSink = new boolean[numOfComps];
+        for (int i = 0; i < n; i++) {
+            if (graph.getTaint(i).isSink()) {
+                hasSink[graph.getComponent(i)] = true;
+            }
+        }
+
+        BitSet[] bits = new BitSet[numOfComps];
+        for (int i = 0; i < sources.size(); i++) {
+            int c = graph.getComponent(graph.indexOf(sources.get(i)));
+            if (bits[c] == null) {
+                bits[c] = new BitSet(sources.size());
+            }
+            bits[c].set(i);
+        }
+        StronglyConnectedComponents.propagate(graph.getSuccessors(), graph.getComponents(), graph.getMembers(),
+                bits, hasSink);
+
+        List<Taint> sinks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (graph.getTaint(i).isSink()) {
+                sinks.add(graph.getTaint(i));
+            }
+        }
+        sinks.sort(Comparator.comparing(Taint::toString));
+        for (Taint sink : sinks) {
+            BitSet b = bits[graph.getComponent(graph.indexOf(sink))];
+            sourcesBySink.put(sink, b);
+            optionsBySink.put(sink, getOptions(b));
+            sourcesBySinkMethod.computeIfAbsent(getSinkMethod(sink), k -> new BitSet(sources.size())).or(b);
+        }
+        for (Map.Entry<String, BitSet> e : sourcesBySinkMethod.entrySet()) {
+            optionsBySinkMethod.put(e.getKey(), getOptions(e.getValue()));
+        }
+    }
+
+    private Set<String> getOptions(BitSet b) {
+        Set<String> names = new TreeSet<>();
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+            names.add(options.get(i));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Gets the signature of the method invoked by the statement of a sink, or of the method of the sink if
+     * its statement does not invoke any.
+     */
+    public static String getSinkMethod(Taint sink) {
+        Stmt stmt = sink.getStmt();
+        if (stmt != null && stmt.containsInvokeExpr()) {
+            return stmt.getInvokeExpr().getMethod().getSignature();
+        }
+        return sink.getMethod().getSignature();
+    }
+
+    /**
+     * Gets the sources, in the order of their indices in the bitmaps.
+     */
+    public List<Taint> getSources() {
+        return sources;
+    }
+
+    /**
+     * Gets the sinks reached from the sources, ordered by sink.
+     */
+    public Set<Taint> getSinks() {
+        return sourcesBySink.keySet();
+    }
+
+    /**
+     * Gets the signatures of the methods invoked by the sinks, in order.
+     */
+    public Set<String> getSinkMethods() {
+        return sourcesBySinkMethod.keySet();
+    }
+
+    /**
+     * Gets the bitmap of the indices of the sources reaching a sink.
+     *
+     * @return A copy of the bitmap, empty if the sink is not reached
+     */
+    public BitSet getSourceBits(Taint sink) {
+        BitSet b = sourcesBySink.get(sink);
+        return b == null ? new BitSet() : (BitSet) b.clone();
+    }
+
+    /**
+     * Gets the sources reaching a sink, in order.
+     */
+    public List<Taint> getSources(Taint sink) {
+        BitSet b = sourcesBySink.get(sink);
+        if (b == null) {
+            return Collections.emptyList();
+        }
+        List<Taint> reaching = new ArrayList<>(b.cardinality());
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+            reaching.add(sources.get(i));
+        }
+        return reaching;
+    }
+
+    /**
+     * Gets the options reaching a sink, named after the configuration name of their sources, or after the
+     * source if it has none.
+     */
+    public Set<String> getOptions(Taint sink) {
+        return optionsBySink.getOrDefault(sink, Collections.emptySet());
+    }
+
+    /**
+     * Gets the options reaching any sink invoking a method, e.g.
+     * "&lt;java.net.Socket: void connect(java.net.SocketAddress)&gt;".
+     */
+    public Set<String> getOptions(String sinkMethod) {
+        return optionsBySinkMethod.getOrDefault(sinkMethod, Collections.emptySet());
+    }
+
+}
@@ -2,6 +2,7 @@ package taintAnalysis;
 
 import soot.SootMethod;
 import soot.jimple.Stmt;
+import taintAnalysis.pathSink.IPathSink;
 import taintAnalysis.utility.PhantomRetStmt;
 
 import java.util.*;
@@ -13,6 +14,9 @@ public class SourceSinkConnectionVisitor implements Callable<Object> {
     private final long threshold;
     private final Set<Taint> sinks;
     private final List<List<Taint>> paths;
+    private final IPathSink pathSink;
+    private final SinkReachability reachability;
+    private final BitSet reportedSinks;
 
     private long cnt;
 
@@ -21,15 +25,43 @@ public class SourceSinkConnectionVisitor implements Callable<Object> {
     }
 
     public SourceSinkConnectionVisitor(Taint source, long threshold) {
+        this(source, threshold, null);
+    }
+
+    /**
+     * @param source    the source taint
+     * @param threshold the number of end points after which the search stops
+     * @param pathSink  the sink to push the paths to as they are found instead of keeping them (null to keep them)
+     */
+    public SourceSinkConnectionVisitor(Taint source, long threshold, IPathSink pathSink) {
+        this(source, threshold, pathSink, null);
+    }
+
+    /**
+     * @param source        the source taint
+     * @param threshold     the number of end points after which the search stops
+     * @param pathSink      the sink to push the paths to as they are found instead of keeping them (null to keep them)
+     * @param reachability  the sinks reachable from each taint, to skip the taints from which no sink not
+     *                      reported yet is reachable, whose end points then do not count towards the threshold
+     *                      (null to visit every taint)
+     */
+    public SourceSinkConnectionVisitor(Taint source, long threshold, IPathSink pathSink,
+                                       SinkReachability reachability) {
         this.source = source;
         this.threshold = threshold;
         this.sinks = new HashSet<>();
         this.paths = new ArrayList<>();
+        this.pathSink = pathSink;
+        this.reachability = reachability;
+        this.reportedSinks = new BitSet();
     }
 
     @Override
     public Object call() throws Exception {
         visit(source);
+        if (pathSink != null) {
+            pathSink.finish(source);
+        }
         return null;
     }
 
@@ -50,6 +82,9 @@ public class SourceSinkConnectionVisitor implements Callable<Object> {
         if (cnt > threshold) {
             return;
         }
+        if (reachability != null && !reachability.canReachUnreported(t, reportedSinks)) {
+            return;
+        }
         Set<Taint> visited = visitedStack.peek();
         if (visited.contains(t)) {
             return;
@@ -60,7 +95,14 @@ public class SourceSinkConnectionVisitor implements Callable<Object> {
         if (t.isSink()) {
             if (!sinks.contains(t)) {
                 sinks.add(t);
-                paths.add(new ArrayList(intermediatePath));
+                if (reachability != null && reachability.getSinkIndex(t) >= 0) {
+                    reportedSinks.set(reachability.getSinkIndex(t));
+                }
+                if (pathSink != null) {
+                    pathSink.accept(source, Collections.unmodifiableList(intermediatePath));
+                } else {
+                    paths.add(new ArrayList(intermediatePath));
+                }
             }
         }
 
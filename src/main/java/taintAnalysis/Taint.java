@@ -3,10 +3,12 @@ package taintAnalysis;
 import soot.*;
 import soot.jimple.*;
 
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class Taint {
 
@@ -16,15 +18,19 @@ public class Taint {
         Return
     }
 
-    private static final Taint emptyTaint = new Taint(null, null, null);
+    private static final Taint emptyTaint = new Taint(null, null, null, null, TransferType.None, -1);
+
+    private static volatile Interner interner = new Interner();
 
     private final Value plainValue;
     private final SootField field;
     private final Stmt stmt;
     private final SootMethod method;
-    private final Set<Taint> successors;
     private final TransferType transferType;
-    private boolean isSink = false;
+    private final int hash;
+    private final int id;
+    private volatile Set<Taint> successors;
+    private volatile boolean isSink = false;
 
     public static Taint getEmptyTaint() {
         return emptyTaint;
@@ -38,18 +44,10 @@ public class Taint {
      * @param v             the value which the taint is on
      * @param stmt          the statement context of the taint
      * @param method        the method context of the taint
-     * @param taintCache    the taint cache of the method into which the taint is transferred,
-     *                      used to ensure global uniqueness
      * @return The corresponding globally unique taint object
      */
-    public static Taint getTaintFor(Taint t, Value v, Stmt stmt, SootMethod method,
-                                    Map<Taint, Taint> taintCache) {
-        Taint newTaint = new Taint(v, stmt, method);
-        if (taintCache.containsKey(newTaint)) {
-            newTaint = taintCache.get(newTaint);
-        } else {
-            taintCache.put(newTaint, newTaint);
-        }
+    public static Taint getTaintFor(Taint t, Value v, Stmt stmt, SootMethod method) {
+        Taint newTaint = intern(null, v, stmt, method, TransferType.None);
         if (t != null) {
             t.addSuccessor(newTaint);
         }
@@ -64,13 +62,10 @@ public class Taint {
      * @param v             the value which the taint is on
      * @param stmt          the statement context of the taint
      * @param method        the method context of the taint
-     * @param taintCache    the taint cache of the method into which the taint is transferred,
-     *                      used to ensure global uniqueness
      * @return The corresponding globally unique taint object after transfer
      */
-    public static Taint getTransferredTaintFor(Taint t, Value v, Stmt stmt, SootMethod method,
-                                               Map<Taint, Taint> taintCache) {
-        return getTransferredTaintFor(t, v, stmt, method, taintCache, TransferType.None);
+    public static Taint getTransferredTaintFor(Taint t, Value v, Stmt stmt, SootMethod method) {
+        return getTransferredTaintFor(t, v, stmt, method, TransferType.None);
     }
 
     /**
@@ -81,23 +76,266 @@ public class Taint {
      * @param v             the value which the taint is on
      * @param stmt          the statement context of the taint
      * @param method        the method context of the taint
-     * @param taintCache    the taint cache of the method into which the taint is transferred,
-     *                      used to ensure global uniqueness
      * @param transferType  the type of method context transfer
      * @return The corresponding globally unique taint object after transfer
      */
     public static Taint getTransferredTaintFor(Taint t, Value v, Stmt stmt, SootMethod method,
-                                               Map<Taint, Taint> taintCache, TransferType transferType) {
-        Taint newTaint = new Taint(t, v, stmt, method, transferType);
-        if (taintCache.containsKey(newTaint)) {
-            newTaint = taintCache.get(newTaint);
-        } else {
-            taintCache.put(newTaint, newTaint);
-        }
+                                               TransferType transferType) {
+        Taint newTaint = intern(t, v, stmt, method, transferType);
         t.addSuccessor(newTaint);
         return newTaint;
     }
 
+    /**
+     * Gets the globally unique taint object with the given components, without transferring
+     * from any other taint, e.g. to restore a taint which has been saved by its components.
+     *
+     * @param plainValue    the plain value of the taint
+     * @param field         the field of the plain value which is tainted (null for the whole value)
+     * @param stmt          the statement context of the taint
+     * @param method        the method context of the taint
+     * @param transferType  the type of method context transfer
+     * @return The corresponding globally unique taint object
+     */
+    public static Taint getTaint(Value plainValue, SootField field, Stmt stmt, SootMethod method,
+                                 TransferType transferType) {
+        return interner.intern(plainValue, field, stmt, method, transferType);
+    }
+
+    /**
+     * Gets the globally unique taint object of a value, creating it if it does not exist yet.
+     * The plain value and the field of the taint are derived from the value (and the taint from which
+     * to transfer) before looking up the interner, so that no object is allocated if the taint exists.
+     */
+    private static Taint intern(Taint transferFrom, Value value, Stmt stmt, SootMethod method,
+                                TransferType transferType) {
+        Value plainValue;
+        SootField field;
+        if (value instanceof Ref) {
+            // if value is of ref type, ignore the taint from which to transfer
+            if (value instanceof InstanceFieldRef) {
+                InstanceFieldRef fieldRef = (InstanceFieldRef) value;
+                plainValue = fieldRef.getBase();
+                field = fieldRef.getField();
+            } else {
+                // array ref and static field ref is not currently supported,
+                // just taint the entire value
+                plainValue = value;
+                field = null;
+            }
+        } else if (transferFrom != null) {
+            // for a non-ref object-typed value, transfer taint from t
+            plainValue = value;
+            field = transferFrom.getField();
+        } else {
+            plainValue = value;
+            field = null;
+        }
+        return interner.intern(plainValue, field, stmt, method, transferType);
+    }
+
+    /**
+     * Discards all interned taints and their ids, to be called before analyzing a new Soot scene.
+     * Taint objects obtained before keep their identity but are never returned by the factories again.
+     */
+    public static void reset() {
+        interner = new Interner();
+    }
+
+    /**
+     * Gets the dense integer id of this taint, which is assigned when the taint is interned.
+     * Different ids denote different taints. The empty taint has no id.
+     *
+     * @return The id of the taint
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the taint object of a given id.
+     *
+     * @param id    an id previously returned by {@link #getId()}
+     * @return The taint object of the id
+     */
+    public static Taint getTaintById(int id) {
+        return interner.ids.get(id);
+    }
+
+    /**
+     * Gets the number of ids assigned so far, ids range from 0 to the number of ids - 1.
+     * A taint being interned concurrently may have an id but not be returned by {@link #getTaintById(int)} yet.
+     *
+     * @return The number of ids
+     */
+    public static int getNumOfIds() {
+        return interner.ids.size();
+    }
+
+    private static int hash(Value plainValue, SootField field, Stmt stmt, SootMethod method,
+                            TransferType transferType) {
+        // Same as Objects.hash(plainValue, field, stmt, method, transferType), without the varargs array
+        int h = 1;
+        h = 31 * h + Objects.hashCode(plainValue);
+        h = 31 * h + Objects.hashCode(field);
+        h = 31 * h + Objects.hashCode(stmt);
+        h = 31 * h + Objects.hashCode(method);
+        h = 31 * h + Objects.hashCode(transferType);
+        return h;
+    }
+
+    private boolean matches(Value plainValue, SootField field, Stmt stmt, SootMethod method,
+                            TransferType transferType) {
+        return Objects.equals(this.plainValue, plainValue) &&
+                Objects.equals(this.field, field) &&
+                Objects.equals(this.stmt, stmt) &&
+                Objects.equals(this.method, method) &&
+                this.transferType == transferType;
+    }
+
+    /**
+     * A concurrent hash-consing table of taints. The table is split into segments, each an open-addressing
+     * hash table with linear probing. Lookups are lock-free and allocate nothing, a segment is only locked
+     * to insert a taint that has not been found, and the id of the new taint is assigned under that lock
+     * only.
+     */
+    private static final class Interner {
+
+        private static final int SEGMENT_BITS = 6;
+
+        private final Segment[] segments;
+        private final IdTable ids;
+
+        private Interner() {
+            this.segments = new Segment[1 << SEGMENT_BITS];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment();
+            }
+            this.ids = new IdTable();
+        }
+
+        private Taint intern(Value plainValue, SootField field, Stmt stmt, SootMethod method,
+                             TransferType transferType) {
+            int hash = hash(plainValue, field, stmt, method, transferType);
+            int spread = hash * 0x9E3779B9;
+            Segment segment = segments[spread >>> (32 - SEGMENT_BITS)];
+            Taint taint = segment.find(spread, hash, plainValue, field, stmt, method, transferType);
+            if (taint != null) {
+                return taint;
+            }
+            synchronized (segment) {
+                taint = segment.find(spread, hash, plainValue, field, stmt, method, transferType);
+                if (taint == null) {
+                    int id = ids.next();
+                    taint = new Taint(plainValue, field, stmt, method, transferType, hash, id);
+                    ids.set(id, taint);
+                    segment.insert(spread, taint);
+                }
+                return taint;
+            }
+        }
+
+    }
+
+    private static final class Segment {
+
+        private volatile AtomicReferenceArray<Taint> table = new AtomicReferenceArray<>(16);
+        private int count = 0;
+
+        private Taint find(int spread, int hash, Value plainValue, SootField field, Stmt stmt,
+                           SootMethod method, TransferType transferType) {
+            AtomicReferenceArray<Taint> tab = table;
+            int mask = tab.length() - 1;
+            int i = spread & mask;
+            Taint t;
+            while ((t = tab.get(i)) != null) {
+                if (t.hash == hash && t.matches(plainValue, field, stmt, method, transferType)) {
+                    return t;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Inserts a taint known to be absent, must be called while holding the lock of the segment.
+         */
+        private void insert(int spread, Taint taint) {
+            AtomicReferenceArray<Taint> tab = table;
+            if (2 * (count + 1) > tab.length()) {
+                // Rehash into a table twice as large, which is published once filled
+                AtomicReferenceArray<Taint> newTab = new AtomicReferenceArray<>(tab.length() * 2);
+                for (int j = 0; j < tab.length(); j++) {
+                    Taint t = tab.get(j);
+                    if (t != null) {
+                        put(newTab, t.hash * 0x9E3779B9, t);
+                    }
+                }
+                table = newTab;
+                tab = newTab;
+            }
+            put(tab, spread, taint);
+            count++;
+        }
+
+        private static void put(AtomicReferenceArray<Taint> tab, int spread, Taint taint) {
+            int mask = tab.length() - 1;
+            int i = spread & mask;
+            while (tab.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            tab.set(i, taint);
+        }
+
+    }
+
+    /**
+     * The taints by id. Ids are assigned by an atomic counter, and the taints are stored in chunks doubling in
+     * size, which are allocated on demand and never copied, so that the table grows without a global lock.
+     * Chunk k holds the ids from FIRST_CHUNK_SIZE * (2^k - 1) on.
+     */
+    private static final class IdTable {
+
+        private static final int FIRST_CHUNK_BITS = 10;
+        private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_BITS;
+
+        private final AtomicInteger numOfIds = new AtomicInteger();
+        private final AtomicReferenceArray<AtomicReferenceArray<Taint>> chunks =
+                new AtomicReferenceArray<>(32 - FIRST_CHUNK_BITS);
+
+        private int next() {
+            return numOfIds.getAndIncrement();
+        }
+
+        private int size() {
+            return numOfIds.get();
+        }
+
+        private void set(int id, Taint taint) {
+            int k = getChunk(id);
+            AtomicReferenceArray<Taint> chunk = chunks.get(k);
+            if (chunk == null) {
+                chunks.compareAndSet(k, null, new AtomicReferenceArray<>(FIRST_CHUNK_SIZE << k));
+                chunk = chunks.get(k);
+            }
+            chunk.set(getOffset(id, k), taint);
+        }
+
+        private Taint get(int id) {
+            int k = getChunk(id);
+            return chunks.get(k).get(getOffset(id, k));
+        }
+
+        private static int getChunk(int id) {
+            return 31 - Integer.numberOfLeadingZeros(id + FIRST_CHUNK_SIZE) - FIRST_CHUNK_BITS;
+        }
+
+        private static int getOffset(int id, int chunk) {
+            return id + FIRST_CHUNK_SIZE - (FIRST_CHUNK_SIZE << chunk);
+        }
+
+    }
+
     public boolean taints(Value v) {
         // Empty taint doesn't taint anything
         if (isEmpty()) return false;
@@ -150,36 +388,20 @@ public class Taint {
         return false;
     }
 
-    private Taint(Value value, Stmt stmt, SootMethod method) {
-        this(null, value, stmt, method, TransferType.None);
+    private Taint(Value plainValue, SootField field, Stmt stmt, SootMethod method, TransferType transferType,
+                  int id) {
+        this(plainValue, field, stmt, method, transferType, hash(plainValue, field, stmt, method, transferType), id);
     }
 
-    private Taint(Taint transferFrom, Value value, Stmt stmt, SootMethod method, TransferType transferType) {
+    private Taint(Value plainValue, SootField field, Stmt stmt, SootMethod method, TransferType transferType,
+                  int hash, int id) {
+        this.plainValue = plainValue;
+        this.field = field;
         this.stmt = stmt;
         this.method = method;
-        this.successors = new HashSet<>();
         this.transferType = transferType;
-
-        if (value instanceof Ref) {
-            // if value is of ref type, ignore the taint from which to transfer
-            if (value instanceof InstanceFieldRef) {
-                InstanceFieldRef fieldRef = (InstanceFieldRef) value;
-                this.plainValue = fieldRef.getBase();
-                this.field = fieldRef.getField();
-            } else {
-                // array ref and static field ref is not currently supported,
-                // just taint the entire value
-                this.plainValue = value;
-                this.field = null;
-            }
-        } else if (transferFrom != null) {
-            // for a non-ref object-typed value, transfer taint from t
-            this.plainValue = value;
-            this.field = transferFrom.getField();
-        } else {
-            this.plainValue = value;
-            this.field = null;
-        }
+        this.hash = hash;
+        this.id = id;
     }
 
     public boolean isEmpty() {
@@ -203,11 +425,22 @@ public class Taint {
     }
 
     public Set<Taint> getSuccessors() {
-        return successors;
+        Set<Taint> s = successors;
+        return s == null ? Collections.emptySet() : s;
     }
 
     public void addSuccessor(Taint successor) {
-        this.successors.add(successor);
+        Set<Taint> s = successors;
+        if (s == null) {
+            synchronized (this) {
+                s = successors;
+                if (s == null) {
+                    s = ConcurrentHashMap.newKeySet();
+                    successors = s;
+                }
+            }
+        }
+        s.add(successor);
     }
 
     public TransferType getTransferType() {
@@ -250,7 +483,7 @@ public class Taint {
 
     @Override
     public int hashCode() {
-        return Objects.hash(plainValue, field, stmt, method, transferType);
+        return hash;
     }
 
 }
@@ -1,17 +1,39 @@
 package taintAnalysis;
 
+import configInterface.ConfigInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import soot.G;
 import soot.PackManager;
 import soot.Transform;
+import taintAnalysis.flowSet.FlowSetType;
+import taintAnalysis.prescan.SourceClassPrescan;
 import taintAnalysis.sourceSinkManager.ISourceSinkManager;
 import taintAnalysis.taintWrapper.ITaintWrapper;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class TaintAnalysisDriver {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     private ISourceSinkManager sourceSinkManager;
     private ITaintWrapper taintWrapper;
+    private int numOfThreads = 1;
+    private boolean multiEntry = false;
+    private FlowSetType flowSetType = FlowSetType.HASH;
+    private boolean demandDriven = false;
+    private ConfigInterface prescanInterface = null;
+    private String summaryStorePath = null;
+    private String taintGraphPath = null;
+    private int numOfShortestPaths = 0;
+    private int numOfPathThreads = 0;
+    private String pathOutputPath = null;
+    private boolean countPaths = false;
+    private boolean prunePaths = false;
 
     public TaintAnalysisDriver(ISourceSinkManager sourceSinkManager) {
         this(sourceSinkManager, null);
@@ -24,8 +46,10 @@ public class TaintAnalysisDriver {
 
     public IntraAnalysisTransformer runIntraTaintAnalysis(List<String> srcPaths, List<String> classPaths) {
         G.reset();
+        Taint.reset();
 
-        String classPath = String.join(":", classPaths);
+        Set<String> appClasses = prescan(srcPaths);
+        String classPath = getClassPath(srcPaths, classPaths, appClasses != null);
         String[] initArgs = {
                 // Input Options
                 "-cp", classPath,
@@ -37,14 +61,7 @@ public class TaintAnalysisDriver {
                 "-f", "J",
         };
 
-        String[] sootArgs = new String[initArgs.length + 2 * srcPaths.size()];
-        for (int i = 0; i < initArgs.length; i++) {
-            sootArgs[i] = initArgs[i];
-        }
-        for (int i = 0; i < srcPaths.size(); i++) {
-            sootArgs[initArgs.length + 2*i] = "-process-dir";
-            sootArgs[initArgs.length + 2*i + 1] = srcPaths.get(i);
-        }
+        String[] sootArgs = getSootArgs(initArgs, srcPaths, appClasses);
 
         PackManager.v().getPack("jtp").add(
                 new Transform("jtp.taintanalysis", new IntraAnalysisTransformer(sourceSinkManager, taintWrapper)));
@@ -58,8 +75,10 @@ public class TaintAnalysisDriver {
 
     public InterAnalysisTransformer runInterTaintAnalysis(List<String> srcPaths, List<String> classPaths, boolean use_spark) {
         G.reset();
+        Taint.reset();
 
-        String classPath = String.join(":", classPaths);
+        Set<String> appClasses = prescan(srcPaths);
+        String classPath = getClassPath(srcPaths, classPaths, appClasses != null);
         String[] initArgs;
         if (use_spark) {
             initArgs = new String[]{
@@ -99,17 +118,21 @@ public class TaintAnalysisDriver {
             };
         }
 
-        String[] sootArgs = new String[initArgs.length + 2 * srcPaths.size()];
-        for (int i = 0; i < initArgs.length; i++) {
-            sootArgs[i] = initArgs[i];
-        }
-        for (int i = 0; i < srcPaths.size(); i++) {
-            sootArgs[initArgs.length + 2*i] = "-process-dir";
-            sootArgs[initArgs.length + 2*i + 1] = srcPaths.get(i);
-        }
+        String[] sootArgs = getSootArgs(initArgs, srcPaths, appClasses);
 
-        PackManager.v().getPack("wjtp").add(
-                new Transform("wjtp.taintanalysis", new InterAnalysisTransformer(sourceSinkManager, taintWrapper)));
+        InterAnalysisTransformer interTransformer = new InterAnalysisTransformer(sourceSinkManager, taintWrapper);
+        interTransformer.setNumOfThreads(numOfThreads);
+        interTransformer.setMultiEntry(multiEntry);
+        interTransformer.setFlowSetType(flowSetType);
+        interTransformer.setDemandDriven(demandDriven);
+        interTransformer.setSummaryStorePath(summaryStorePath);
+        interTransformer.setTaintGraphPath(taintGraphPath);
+        interTransformer.setNumOfShortestPaths(numOfShortestPaths);
+        interTransformer.setNumOfPathThreads(numOfPathThreads);
+        interTransformer.setPathOutputPath(pathOutputPath);
+        interTransformer.setCountPaths(countPaths);
+        interTransformer.setPrunePaths(prunePaths);
+        PackManager.v().getPack("wjtp").add(new Transform("wjtp.taintanalysis", interTransformer));
 
         soot.Main.main(sootArgs);
 
@@ -118,6 +141,104 @@ public class TaintAnalysisDriver {
         return transformer;
     }
 
+    /**
+     * Generates the summaries of the public methods of libraries once, to be loaded by a
+     * {@link taintAnalysis.taintWrapper.SummaryTaintWrapper} in later runs instead of analyzing the libraries.
+     * The classes of the library paths are analyzed as application classes without a call graph, with the
+     * taint wrapper of the driver modeling the calls outside of the libraries.
+     *
+     * @param libPaths      the paths of the libraries to summarize
+     * @param classPaths    the class paths
+     * @param summaryPath   the file to write the summaries to
+     * @return The transformer which has generated the summaries
+     * @throws java.io.UncheckedIOException if the summaries cannot be written
+     */
+    public LibrarySummaryTransformer runLibrarySummaryGeneration(List<String> libPaths, List<String> classPaths,
+                                                                 String summaryPath) {
+        G.reset();
+        Taint.reset();
+
+        String classPath = getClassPath(libPaths, classPaths, false);
+        String[] initArgs = {
+                // General Options
+                "-w",
+
+                // Input Options
+                "-cp", classPath,
+                "-pp",
+                "-allow-phantom-refs",
+                "-no-bodies-for-excluded",
+
+                // Output Options
+                "-f", "J",
+
+                // Phase Options
+                "-p", "cg", "off"
+        };
+
+        String[] sootArgs = getSootArgs(initArgs, libPaths, null);
+
+        LibrarySummaryTransformer summaryTransformer =
+                new LibrarySummaryTransformer(sourceSinkManager, taintWrapper, summaryPath);
+        summaryTransformer.setNumOfThreads(numOfThreads);
+        summaryTransformer.setMultiEntry(multiEntry);
+        PackManager.v().getPack("wjtp").add(new Transform("wjtp.librarysummary", summaryTransformer));
+
+        soot.Main.main(sootArgs);
+
+        return (LibrarySummaryTransformer)
+                PackManager.v().getPack("wjtp").get("wjtp.librarysummary").getTransformer();
+    }
+
+    /**
+     * Finds the classes to load as application classes with a bytecode prescan of the source paths,
+     * if the prescan is enabled.
+     *
+     * @param srcPaths  the source paths
+     * @return The names of the classes to load, or null to load all classes of the source paths
+     */
+    private Set<String> prescan(List<String> srcPaths) {
+        if (prescanInterface == null) {
+            return null;
+        }
+        try {
+            return new SourceClassPrescan(prescanInterface).scan(srcPaths);
+        } catch (IOException e) {
+            logger.warn("Prescan failed, loading all classes of the source paths: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String getClassPath(List<String> srcPaths, List<String> classPaths, boolean withSrcPaths) {
+        List<String> paths = new ArrayList<>(classPaths);
+        if (withSrcPaths) {
+            // The prescanned classes are loaded from the class path instead of processed source paths
+            for (String path : srcPaths) {
+                if (!paths.contains(path)) {
+                    paths.add(path);
+                }
+            }
+        }
+        return String.join(":", paths);
+    }
+
+    private static String[] getSootArgs(String[] initArgs, List<String> srcPaths, Set<String> appClasses) {
+        List<String> sootArgs = new ArrayList<>();
+        for (String arg : initArgs) {
+            sootArgs.add(arg);
+        }
+        if (appClasses == null) {
+            for (String path : srcPaths) {
+                sootArgs.add("-process-dir");
+                sootArgs.add(path);
+            }
+        } else {
+            // Classes given as arguments are loaded as application classes
+            sootArgs.addAll(appClasses);
+        }
+        return sootArgs.toArray(new String[0]);
+    }
+
     public ISourceSinkManager getSourceSinkManager() {
         return sourceSinkManager;
     }
@@ -134,4 +255,183 @@ public class TaintAnalysisDriver {
         this.taintWrapper = taintWrapper;
     }
 
+    public int getNumOfThreads() {
+        return numOfThreads;
+    }
+
+    /**
+     * Sets the number of threads used by the inter-procedural analysis (1 for sequential analysis).
+     *
+     * @param numOfThreads  the number of threads
+     */
+    public void setNumOfThreads(int numOfThreads) {
+        this.numOfThreads = numOfThreads;
+    }
+
+    public boolean isMultiEntry() {
+        return multiEntry;
+    }
+
+    /**
+     * Sets whether the inter-procedural analysis analyzes all pending entry taints of a method
+     * in one traversal of its body, instead of one traversal per entry taint.
+     *
+     * @param multiEntry    true to enable multi-entry analysis
+     */
+    public void setMultiEntry(boolean multiEntry) {
+        this.multiEntry = multiEntry;
+    }
+
+    public FlowSetType getFlowSetType() {
+        return flowSetType;
+    }
+
+    /**
+     * Sets the kind of flow sets used as the lattice of the inter-procedural analysis,
+     * either hash sets of taints (default) or sparse bitsets of taint ids.
+     *
+     * @param flowSetType   the kind of flow sets
+     */
+    public void setFlowSetType(FlowSetType flowSetType) {
+        this.flowSetType = flowSetType;
+    }
+
+    public boolean isDemandDriven() {
+        return demandDriven;
+    }
+
+    /**
+     * Sets whether the inter-procedural analysis is demand-driven, starting from the methods containing
+     * sources and only expanding to the methods which taints flow into or out of.
+     * Methods never reached by a taint have no summary in demand-driven mode.
+     *
+     * @param demandDriven  true to enable demand-driven analysis
+     */
+    public void setDemandDriven(boolean demandDriven) {
+        this.demandDriven = demandDriven;
+    }
+
+    public ConfigInterface getPrescanInterface() {
+        return prescanInterface;
+    }
+
+    /**
+     * Sets the config interface of a bytecode prescan of the source paths, which runs before Soot loads
+     * any class and restricts the application classes to the classes calling getters of the config interface
+     * and the classes they transitively call (see {@link SourceClassPrescan}). The prescan is disabled by
+     * default, in which case all classes of the source paths are application classes.
+     *
+     * @param prescanInterface  the config interface, or null to disable the prescan
+     */
+    public void setPrescanInterface(ConfigInterface prescanInterface) {
+        this.prescanInterface = prescanInterface;
+    }
+
+    public String getSummaryStorePath() {
+        return summaryStorePath;
+    }
+
+    /**
+     * Sets the file of a persistent summary store for the inter-procedural analysis. The contexts of the
+     * methods whose body and callee bodies are unchanged since the store has been written are replayed
+     * from the store instead of analyzed, and the store is rewritten with the contexts of the run.
+     * The store is disabled by default.
+     *
+     * @param summaryStorePath  the path of the store file, or null to disable the store
+     */
+    public void setSummaryStorePath(String summaryStorePath) {
+        this.summaryStorePath = summaryStorePath;
+    }
+
+    public String getTaintGraphPath() {
+        return taintGraphPath;
+    }
+
+    /**
+     * Sets the file to write the taint propagation graph reachable from the sources to after the
+     * inter-procedural analysis, in a binary format which can be memory-mapped by
+     * {@link taintAnalysis.graph.TaintGraph} to query the results later. The graph is not written by default.
+     *
+     * @param taintGraphPath    the path of the graph file, or null to not write the graph
+     */
+    public void setTaintGraphPath(String taintGraphPath) {
+        this.taintGraphPath = taintGraphPath;
+    }
+
+    public int getNumOfShortestPaths() {
+        return numOfShortestPaths;
+    }
+
+    /**
+     * Sets the number of shortest paths reconstructed for each reached sink of a source (see
+     * {@link ShortestPathVisitor}), instead of the one path per sink of the exhaustive path search
+     * which is used by default.
+     *
+     * @param numOfShortestPaths    the number of shortest paths, or 0 for the exhaustive path search
+     */
+    public void setNumOfShortestPaths(int numOfShortestPaths) {
+        this.numOfShortestPaths = numOfShortestPaths;
+    }
+
+    public int getNumOfPathThreads() {
+        return numOfPathThreads;
+    }
+
+    /**
+     * Sets the number of threads reconstructing the paths of the sources in parallel after the
+     * inter-procedural analysis. The paths are the same for any number of threads.
+     *
+     * @param numOfPathThreads  the number of threads, or 0 for the number of available processors
+     */
+    public void setNumOfPathThreads(int numOfPathThreads) {
+        this.numOfPathThreads = numOfPathThreads;
+    }
+
+    public String getPathOutputPath() {
+        return pathOutputPath;
+    }
+
+    /**
+     * Sets the file to stream the reconstructed paths to, one line of JSON per path (see
+     * {@link taintAnalysis.pathSink.JsonLinesPathSink}), gzipped if the file name ends with ".gz".
+     * The paths are written as soon as they are found and are neither kept in memory nor printed.
+     * By default, the paths are kept in memory and printed after path reconstruction.
+     *
+     * @param pathOutputPath    the path of the file, or null to keep and print the paths
+     */
+    public void setPathOutputPath(String pathOutputPath) {
+        this.pathOutputPath = pathOutputPath;
+    }
+
+    public boolean isCountPaths() {
+        return countPaths;
+    }
+
+    /**
+     * Sets whether the paths from each option to each sink are counted (see {@link PathCounter}) instead of
+     * reconstructed. The counts are printed as an option-sink matrix and available from
+     * {@link InterAnalysisTransformer#getPathCounts()}.
+     *
+     * @param countPaths    true to count the paths
+     */
+    public void setCountPaths(boolean countPaths) {
+        this.countPaths = countPaths;
+    }
+
+    public boolean isPrunePaths() {
+        return prunePaths;
+    }
+
+    /**
+     * Sets whether the exhaustive path search skips the taints from which no sink, or no sink not reported
+     * yet for the source, is reachable (see {@link SinkReachability}). The paths found are the same as
+     * without pruning, unless the search of a source stops at its threshold of end points, which then only
+     * counts the end points of the taints visited and thus stops later.
+     *
+     * @param prunePaths    true to prune the path search
+     */
+    public void setPrunePaths(boolean prunePaths) {
+        this.prunePaths = prunePaths;
+    }
+
 }
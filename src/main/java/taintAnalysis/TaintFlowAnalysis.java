@@ -6,18 +6,33 @@ import soot.*;
 import soot.jimple.*;
 import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
-import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.scalar.ForwardFlowAnalysis;
+import soot.toolkits.scalar.Pair;
+import taintAnalysis.BodyInfoCache.BodyInfo;
+import taintAnalysis.flowSet.FlowSetType;
+import taintAnalysis.flowSet.TaintFlowSet;
 import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.summaryStore.ContextRecord;
 import taintAnalysis.taintWrapper.ITaintWrapper;
 import taintAnalysis.utility.PhantomIdentityStmt;
 import taintAnalysis.utility.PhantomRetStmt;
+import taintAnalysis.utility.VersionedTaintSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static assertion.Assert.assertFalse;
 import static assertion.Assert.assertNotNull;
+import static assertion.Assert.assertTrue;
 
-public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
+/**
+ * Intra-procedural taint analysis of a method body for one or more entry taints.
+ *
+ * Each entry taint labels a separate taint set in the flow value, so that a method analyzed for several
+ * entry taints is traversed once, while the taints of each entry taint are still propagated independently
+ * and summarized into the summary of their own (method, entry taint) context.
+ */
+public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, List<TaintFlowSet>> {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     
@@ -25,73 +40,237 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
 
     private boolean changed = false;
     private final Body body;
+    private final BodyInfo bodyInfo;
     private final SootMethod method;
     private final ISourceSinkManager sourceSinkManager;
     private final ITaintWrapper taintWrapper;
-    private final Taint entryTaint;
+    private final List<Taint> entryTaints;
+    private final FlowSetType flowSetType;
+    private final List<List<Set<Taint>>> entrySummaries;
+    private final boolean[] summaryChanged;
+    private int currEntry;
     private final Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary;
     private final Map<Taint, List<Set<Taint>>> currMethodSummary;
-    private final Map<SootMethod, Map<Taint, Taint>> methodTaintCache;
-    private final Map<Taint, Taint> currTaintCache;
+    private final CallSiteSummaryCache callSiteSummaryCache;
     private final PhantomRetStmt phantomRetStmt;
     private final Set<Taint> sources;
     private final Set<Taint> sinks;
+    private final List<Set<Pair<SootMethod, Taint>>> consumedSummaries;
+    private final Set<Pair<SootMethod, Taint>> createdSummaries;
+    private List<ContextRecord> records = null;
 
     public TaintFlowAnalysis(Body body, ISourceSinkManager sourceSinkManager) {
-        this(body, sourceSinkManager, Taint.getEmptyTaint(), new HashMap<>(), new HashMap<>(), null);
+        this(body, sourceSinkManager, Taint.getEmptyTaint(), new HashMap<>(), null);
     }
 
     public TaintFlowAnalysis(Body body,
                              ISourceSinkManager sourceSinkManager,
                              Taint entryTaint,
                              Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary,
-                             Map<SootMethod, Map<Taint, Taint>> methodTaintCache,
                              ITaintWrapper taintWrapper) {
-        super(new ExceptionalUnitGraph(body));
+        this(body, sourceSinkManager, entryTaint, methodSummary, taintWrapper, new CallSiteSummaryCache());
+    }
+
+    public TaintFlowAnalysis(Body body,
+                             ISourceSinkManager sourceSinkManager,
+                             Taint entryTaint,
+                             Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary,
+                             ITaintWrapper taintWrapper,
+                             CallSiteSummaryCache callSiteSummaryCache) {
+        this(body, sourceSinkManager, Collections.singletonList(entryTaint), methodSummary,
+                taintWrapper, callSiteSummaryCache, FlowSetType.HASH, new BodyInfoCache(sourceSinkManager));
+    }
+
+    public TaintFlowAnalysis(Body body,
+                             ISourceSinkManager sourceSinkManager,
+                             List<Taint> entryTaints,
+                             Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary,
+                             ITaintWrapper taintWrapper,
+                             CallSiteSummaryCache callSiteSummaryCache,
+                             FlowSetType flowSetType,
+                             BodyInfoCache bodyInfoCache) {
+        this(body, sourceSinkManager, entryTaints, methodSummary, taintWrapper,
+                callSiteSummaryCache, flowSetType, bodyInfoCache.getBodyInfo(body));
+    }
+
+    private TaintFlowAnalysis(Body body,
+                              ISourceSinkManager sourceSinkManager,
+                              List<Taint> entryTaints,
+                              Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary,
+                              ITaintWrapper taintWrapper,
+                              CallSiteSummaryCache callSiteSummaryCache,
+                              FlowSetType flowSetType,
+                              BodyInfo bodyInfo) {
+        super(bodyInfo.getGraph());
         this.body = body;
+        this.bodyInfo = bodyInfo;
         this.method = body.getMethod();
         this.sourceSinkManager = sourceSinkManager;
-        this.entryTaint = entryTaint;
+        this.entryTaints = entryTaints;
+        this.flowSetType = flowSetType;
         this.methodSummary = methodSummary;
-        this.methodTaintCache = methodTaintCache;
         this.sources = new HashSet<>();
         this.sinks = new HashSet<>();
+        this.consumedSummaries = new ArrayList<>();
+        this.createdSummaries = new HashSet<>();
         this.taintWrapper = taintWrapper;
+        this.callSiteSummaryCache = callSiteSummaryCache;
         this.phantomRetStmt = PhantomRetStmt.getInstance(method);
 
         // Sanity check
         assertNotNull(body);
         assertNotNull(sourceSinkManager);
-        assertNotNull(entryTaint);
+        assertNotNull(entryTaints);
+        assertFalse(entryTaints.isEmpty());
+        assertNotNull(flowSetType);
         assertNotNull(methodSummary);
-        assertNotNull(methodTaintCache);
+        assertNotNull(callSiteSummaryCache);
 
-        // Initialize methodSummary and methodTaintCache for current method (if not done yet)
-        methodSummary.putIfAbsent(method, new HashMap<>());
-        this.currMethodSummary = methodSummary.get(method);
-        methodTaintCache.putIfAbsent(method, new HashMap<>());
-        this.currTaintCache = methodTaintCache.get(method);
+        // Initialize methodSummary for current method (if not done yet)
+        this.currMethodSummary = methodSummary.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
 
-        // Initialize the taint summary for current method with the input entry taint (if not done yet)
-        // Summary list format: idx 0: (set of taints on) base, 1: retVal, 2+: parameters
-        if (!this.currMethodSummary.containsKey(entryTaint)) {
-            changed = true;
-            List<Set<Taint>> summary = new ArrayList<>();
-            for (int i = 0; i < method.getParameterCount() + 2; i++) {
-                summary.add(new HashSet<>());
+        // Initialize the taint summary for current method with the input entry taints (if not done yet)
+        this.entrySummaries = new ArrayList<>();
+        this.summaryChanged = new boolean[entryTaints.size()];
+        for (Taint entryTaint : entryTaints) {
+            assertNotNull(entryTaint);
+            if (initSummary(currMethodSummary, entryTaint, method)) {
+                changed = true;
             }
-            this.currMethodSummary.put(entryTaint, summary);
+            entrySummaries.add(currMethodSummary.get(entryTaint));
+            consumedSummaries.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Atomically creates an empty summary for an entry taint of a method (if not done yet).
+     * Summary list format: idx 0: (set of taints on) base, 1: retVal, 2+: parameters
+     * The summary sets are versioned so that callers can consume them incrementally.
+     *
+     * @param summaries     the summaries of the method
+     * @param entryTaint    the entry taint
+     * @param method        the method
+     * @return True if the summary has been newly created
+     */
+    static boolean initSummary(Map<Taint, List<Set<Taint>>> summaries, Taint entryTaint, SootMethod method) {
+        if (summaries.containsKey(entryTaint)) {
+            return false;
+        }
+        List<Set<Taint>> summary = new ArrayList<>();
+        for (int i = 0; i < method.getParameterCount() + 2; i++) {
+            summary.add(new VersionedTaintSet());
         }
+        return summaries.putIfAbsent(entryTaint, summary) == null;
     }
 
     public boolean isChanged() {
         return changed;
     }
 
+    public List<Taint> getEntryTaints() {
+        return entryTaints;
+    }
+
+    /**
+     * Checks whether the summary of any analyzed (method, entry taint) context has grown during the analysis.
+     *
+     * @return True if new taints have been added to the summary of any entry taint
+     */
+    public boolean isSummaryChanged() {
+        for (boolean b : summaryChanged) {
+            if (b) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the summary of an analyzed (method, entry taint) context has grown during the analysis.
+     *
+     * @param idx   the index of the entry taint in the list of entry taints
+     * @return True if new taints have been added to the summary of the entry taint
+     */
+    public boolean isSummaryChanged(int idx) {
+        return summaryChanged[idx];
+    }
+
+    /**
+     * Gets the callee contexts whose summaries have been read at the call sites of the analyzed method.
+     * The analyzed contexts have to be re-analyzed whenever one of these summaries grows.
+     *
+     * @return The set of (callee, callee entry taint) pairs
+     */
+    public Set<Pair<SootMethod, Taint>> getConsumedSummaries() {
+        if (consumedSummaries.size() == 1) {
+            return consumedSummaries.get(0);
+        }
+        Set<Pair<SootMethod, Taint>> all = new HashSet<>();
+        for (Set<Pair<SootMethod, Taint>> s : consumedSummaries) {
+            all.addAll(s);
+        }
+        return all;
+    }
+
+    /**
+     * Gets the callee contexts whose summaries have been read when propagating the taints of an entry taint.
+     * The (method, entry taint) context has to be re-analyzed whenever one of these summaries grows.
+     *
+     * @param idx   the index of the entry taint in the list of entry taints
+     * @return The set of (callee, callee entry taint) pairs
+     */
+    public Set<Pair<SootMethod, Taint>> getConsumedSummaries(int idx) {
+        return consumedSummaries.get(idx);
+    }
+
+    /**
+     * Gets the callee contexts whose (empty) summary entries have been created by the analysis.
+     * These contexts have not been analyzed yet.
+     *
+     * @return The set of (callee, callee entry taint) pairs
+     */
+    public Set<Pair<SootMethod, Taint>> getCreatedSummaries() {
+        return createdSummaries;
+    }
+
     public Set<Taint> getSources() {
         return sources;
     }
 
+    /**
+     * Makes the analysis record, for each entry taint, the sources, sinks and taint propagation edges
+     * it produces (see {@link ContextRecord}). Must be called before {@link #doAnalysis()}.
+     */
+    public void enableRecording() {
+        records = new ArrayList<>(entryTaints.size());
+        for (Taint entryTaint : entryTaints) {
+            records.add(new ContextRecord(entryTaint));
+        }
+    }
+
+    /**
+     * Gets the record of the analysis of an entry taint, if recording has been enabled.
+     *
+     * @param idx   the index of the entry taint in the list of entry taints
+     * @return The record of the (method, entry taint) context
+     */
+    public ContextRecord getRecord(int idx) {
+        ContextRecord record = records.get(idx);
+        record.getConsumedSummaries().addAll(consumedSummaries.get(idx));
+        return record;
+    }
+
+    private void recordEdge(Taint from, Taint to) {
+        if (records != null) {
+            records.get(currEntry).addEdge(from, to);
+        }
+    }
+
+    private void recordSink(Taint from, Taint sinkTaint) {
+        if (records != null) {
+            records.get(currEntry).addEdge(from, sinkTaint);
+            records.get(currEntry).getSinks().add(sinkTaint);
+        }
+    }
+
     public Set<Taint> getSinks() {
         return sinks;
     }
@@ -102,70 +281,77 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
     }
 
     @Override
-    protected void flowThrough(Set<Taint> in, Unit unit, Set<Taint> out) {
-        out.clear();
-        out.addAll(in);
-
+    protected void flowThrough(List<TaintFlowSet> in, Unit unit, List<TaintFlowSet> out) {
         Stmt stmt = (Stmt) unit;
+        int idx = bodyInfo.indexOf(unit);
+        for (int i = 0; i < entryTaints.size(); i++) {
+            currEntry = i;
+            flowThrough(in.get(i), stmt, idx, out.get(i));
+        }
+    }
 
-        if (stmt instanceof AssignStmt) {
-            visitAssign(in, (AssignStmt) stmt, out);
+    private void flowThrough(TaintFlowSet in, Stmt stmt, int idx, TaintFlowSet out) {
+        in.copy(out);
+
+        int kind = bodyInfo.getKind(idx);
+        if ((kind & BodyInfo.ASSIGN) != 0) {
+            visitAssign(in, (AssignStmt) stmt, idx, out);
         }
 
-        if (stmt instanceof InvokeStmt) {
+        if ((kind & BodyInfo.INVOKE) != 0) {
             InvokeExpr invoke = stmt.getInvokeExpr();
-            if (!sourceSinkManager.isSource(stmt)) {
-                visitInvoke(in, stmt, invoke, out);
+            if ((kind & BodyInfo.SOURCE) == 0) {
+                visitInvoke(in, stmt, invoke, idx, out);
             }
         }
 
-        if (stmt instanceof ReturnStmt || stmt instanceof ReturnVoidStmt) {
+        if ((kind & BodyInfo.RETURN) != 0) {
             visitReturn(in, stmt);
         }
 
-        if (sourceSinkManager.isSink(stmt)) {
+        if ((kind & BodyInfo.SINK) != 0) {
             visitSink(in, stmt);
         }
     }
 
-    private void visitAssign(Set<Taint> in, AssignStmt stmt, Set<Taint> out) {
+    private void visitAssign(TaintFlowSet in, AssignStmt stmt, int idx, Set<Taint> out) {
         Value leftOp = stmt.getLeftOp();
         Value rightOp = stmt.getRightOp();
 
         // KILL
-        for (Taint t : in) {
-            if (t.taints(leftOp)) {
-                out.remove(t);
-            }
+        for (Taint t : in.getTaintsOn(leftOp)) {
+            out.remove(t);
         }
 
         // GEN
         if (stmt.containsInvokeExpr()) {
             InvokeExpr invoke = stmt.getInvokeExpr();
-            if (sourceSinkManager.isSource(stmt)) {
-                Taint newTaint = Taint.getTaintFor(null, leftOp, stmt, method, currTaintCache);
+            if ((bodyInfo.getKind(idx) & BodyInfo.SOURCE) != 0) {
+                Taint newTaint = Taint.getTaintFor(null, leftOp, stmt, method);
                 sources.add(newTaint);
+                if (records != null) {
+                    records.get(currEntry).getSources().add(newTaint);
+                }
                 out.add(newTaint);
             } else {
-                visitInvoke(in, stmt, invoke, out);
+                visitInvoke(in, stmt, invoke, idx, out);
             }
         } else {
-            for (Taint t : in) {
-                if (t.taints(rightOp)) {
-                    Taint newTaint;
-                    if (leftOp.getType() instanceof PrimType || rightOp instanceof InstanceFieldRef) {
-                        newTaint = Taint.getTaintFor(t, leftOp, stmt, method, currTaintCache);
-                    } else {
-                        newTaint = Taint.getTransferredTaintFor(
-                                t, leftOp, stmt, method, currTaintCache, Taint.TransferType.None);
-                    }
-                    out.add(newTaint);
+            for (Taint t : in.getTaintsOn(rightOp)) {
+                Taint newTaint;
+                if (leftOp.getType() instanceof PrimType || rightOp instanceof InstanceFieldRef) {
+                    newTaint = Taint.getTaintFor(t, leftOp, stmt, method);
+                } else {
+                    newTaint = Taint.getTransferredTaintFor(
+                            t, leftOp, stmt, method, Taint.TransferType.None);
                 }
+                recordEdge(t, newTaint);
+                out.add(newTaint);
             }
         }
     }
 
-    private void visitInvoke(Set<Taint> in, Stmt stmt, InvokeExpr invoke, Set<Taint> out) {
+    private void visitInvoke(TaintFlowSet in, Stmt stmt, InvokeExpr invoke, int idx, Set<Taint> out) {
         SootMethod calleeMethod = invoke.getMethod();
         assertNotNull(calleeMethod);
 
@@ -173,28 +359,28 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
         if (taintWrapper != null && taintWrapper.supportsCallee(calleeMethod)) {
             Set<Taint> killSet = new HashSet<>();
             Set<Taint> genSet = new HashSet<>();
-            taintWrapper.genTaintsForMethodInternal(in, stmt, method, killSet, genSet, currTaintCache);
+            taintWrapper.genTaintsForMethodInternal(in, stmt, method, killSet, genSet);
             for (Taint t : killSet) {
                 out.remove(t);
             }
             for (Taint t : genSet) {
                 out.add(t);
             }
+            if (records != null) {
+                // The wrapper generates taints from the taints on the base object and the arguments
+                for (Taint g : genSet) {
+                    for (Taint t : in) {
+                        if (t.getSuccessors().contains(g)) {
+                            recordEdge(t, g);
+                        }
+                    }
+                }
+            }
             return;
         }
 
         // Get all possible callees for this call site
-        List<SootMethod> methods = new ArrayList<>();
-        methods.add(calleeMethod);
-        if (cg != null) {
-            for (Iterator<Edge> it = cg.edgesOutOf(stmt); it.hasNext(); ) {
-                Edge edge = it.next();
-                SootMethod sm = edge.tgt();
-                if (calleeMethod.getName().equals(sm.getName())) {
-                    methods.add(sm);
-                }
-            }
-        }
+        List<SootMethod> methods = bodyInfo.getCallees(idx);
 
         // Get the base object of this invocation in caller (if applies)
         Value base = null;
@@ -208,6 +394,22 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
             retVal = ((AssignStmt) stmt).getLeftOp();
         }
 
+        // Get the caller values corresponding to the callee summary list
+        // Summary list format: idx 0: (set of taints on) base, 1: retVal, 2+: parameters
+        Value[] callerVals = new Value[invoke.getArgCount() + 2];
+        callerVals[0] = base;
+        callerVals[1] = retVal;
+        for (int i = 0; i < invoke.getArgCount(); i++) {
+            callerVals[2 + i] = invoke.getArg(i);
+        }
+
+        // Look up the taints on the base object and on the arguments once for all callees
+        List<Taint> baseTaints = base != null ? in.getTaintsOn(base) : Collections.emptyList();
+        List<List<Taint>> argTaints = new ArrayList<>(invoke.getArgCount());
+        for (int i = 0; i < invoke.getArgCount(); i++) {
+            argTaints.add(in.getTaintsOn(invoke.getArg(i)));
+        }
+
         // Compute KILL and GEN
         List<Set<Taint>> killSets = new ArrayList<>();
         List<Set<Taint>> genSets = new ArrayList<>();
@@ -229,71 +431,42 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
                 calleeThisLocal = calleeBody.getThisLocal();
             }
 
-            // Initialize methodSummary and methodTaintCache for callee (if not done yet)
-            methodSummary.putIfAbsent(callee, new HashMap<>());
-            Map<Taint, List<Set<Taint>>> calleeSummary = methodSummary.get(callee);
-            methodTaintCache.putIfAbsent(callee, new HashMap<>());
-            Map<Taint, Taint> calleeTaintCache = methodTaintCache.get(callee);
+            // Initialize methodSummary for callee (if not done yet)
+            Map<Taint, List<Set<Taint>>> calleeSummary =
+                    methodSummary.computeIfAbsent(callee, k -> new ConcurrentHashMap<>());
 
             // Initialize the empty taint summary for callee (if not done yet)
-            // Summary list format: idx 0: (set of taints on) base, 1: retVal, 2+: parameters
-            if (!calleeSummary.containsKey(Taint.getEmptyTaint())) {
+            Pair<SootMethod, Taint> emptyTaintContext = new Pair<>(callee, Taint.getEmptyTaint());
+            consumedSummaries.get(currEntry).add(emptyTaintContext);
+            if (initSummary(calleeSummary, Taint.getEmptyTaint(), callee)) {
                 changed = true;
-                List<Set<Taint>> emptyTaintSummary = new ArrayList<>();
-                for (int i = 0; i < callee.getParameterCount() + 2; i++) {
-                    emptyTaintSummary.add(new HashSet<>());
-                }
-                calleeSummary.put(Taint.getEmptyTaint(), emptyTaintSummary);
-            }
-
-            // Initialize the summary for this invocation by elements copied from the empty taint summary
-            List<Set<Taint>> summary = new ArrayList<>();
-            for (Set<Taint> taints : calleeSummary.get(Taint.getEmptyTaint())) {
-                Set<Taint> newTaints = new HashSet<>();
-                newTaints.addAll(taints);
-                summary.add(newTaints);
+                createdSummaries.add(emptyTaintContext);
             }
 
-            // Compute KILL and gather summary info for this invocation
-            for (Taint t : in) {
-                // Process base object
-                if (base != null && t.taints(base)) {
-                    killSet.add(t);
-                    genCalleeEntryTaints(t, calleeThisLocal, stmt, calleeSummary, calleeTaintCache, summary, callee);
-                }
-
-                // Process parameters
-                for (int i = 0; i < invoke.getArgCount(); i++) {
-                    Value arg = invoke.getArg(i);
-                    if (t.taints(arg)) {
-                        // Check if the param is basic type (we should pass on the taint in that case)
-                        if (!(arg.getType() instanceof PrimType)) {
-                            killSet.add(t);
-                        }
-                        Local calleeParam = calleeBody.getParameterLocal(i);
-                        genCalleeEntryTaints(t, calleeParam, stmt, calleeSummary, calleeTaintCache, summary, callee);
-                    }
-                }
-            }
+            // Compute GEN from the empty taint summary
+            genTaintsFromInvokeSummary(stmt, callee, Taint.getEmptyTaint(),
+                    calleeSummary.get(Taint.getEmptyTaint()), callerVals, genSet);
 
-            // Compute GEN from the gathered summary info
+            // Compute KILL and GEN from the summaries of the callee taints for this invocation
             // Process base object
-            if (base != null) {
-                Set<Taint> baseTaints = summary.get(0);
-                genSet.addAll(getTaintsFromInvokeSummary(baseTaints, base, stmt));
-            }
-
-            // Process return value
-            if (retVal != null) {
-                Set<Taint> retTaints = summary.get(1);
-                genSet.addAll(getTaintsFromInvokeSummary(retTaints, retVal, stmt));
+            for (Taint t : baseTaints) {
+                killSet.add(t);
+                genCalleeEntryTaints(t, calleeThisLocal, stmt, calleeSummary, callee,
+                        callerVals, genSet);
             }
 
             // Process parameters
             for (int i = 0; i < invoke.getArgCount(); i++) {
                 Value arg = invoke.getArg(i);
-                Set<Taint> argTaints = summary.get(2 + i);
-                genSet.addAll(getTaintsFromInvokeSummary(argTaints, arg, stmt));
+                for (Taint t : argTaints.get(i)) {
+                    // Check if the param is basic type (we should pass on the taint in that case)
+                    if (!(arg.getType() instanceof PrimType)) {
+                        killSet.add(t);
+                    }
+                    Local calleeParam = calleeBody.getParameterLocal(i);
+                    genCalleeEntryTaints(t, calleeParam, stmt, calleeSummary, callee,
+                            callerVals, genSet);
+                }
             }
         }
 
@@ -320,51 +493,98 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
         }
     }
 
+    /**
+     * Gets all possible callees of a call site, i.e. the statically resolved callee and,
+     * if a call graph is available, the targets of the call edges out of the call site.
+     *
+     * @param stmt          the call site
+     * @param calleeMethod  the statically resolved callee of the call site
+     * @return The list of possible callees
+     */
+    static List<SootMethod> getCallees(Stmt stmt, SootMethod calleeMethod) {
+        List<SootMethod> methods = new ArrayList<>();
+        methods.add(calleeMethod);
+        if (cg != null) {
+            for (Iterator<Edge> it = cg.edgesOutOf(stmt); it.hasNext(); ) {
+                Edge edge = it.next();
+                SootMethod sm = edge.tgt();
+                if (calleeMethod.getName().equals(sm.getName())) {
+                    methods.add(sm);
+                }
+            }
+        }
+        return methods;
+    }
+
     private void genCalleeEntryTaints(Taint t, Value calleeVal, Stmt stmt,
                                       Map<Taint, List<Set<Taint>>> calleeSummary,
-                                      Map<Taint, Taint> calleeTaintCache,
-                                      List<Set<Taint>> summary,
-                                      SootMethod callee) {
+                                      SootMethod callee,
+                                      Value[] callerVals,
+                                      Set<Taint> genSet) {
         // Generate caller taint at call site
         Taint callerTaint = Taint.getTransferredTaintFor(
-                t, t.getPlainValue(), stmt, method, currTaintCache, Taint.TransferType.Call);
+                t, t.getPlainValue(), stmt, method, Taint.TransferType.Call);
+        recordEdge(t, callerTaint);
 
         // Send caller taint to callee
         PhantomIdentityStmt phantomIdentityStmt = PhantomIdentityStmt.getInstance(callee);
         Taint calleeTaint = Taint.getTransferredTaintFor(
-                callerTaint, calleeVal, phantomIdentityStmt, callee, calleeTaintCache);
+                callerTaint, calleeVal, phantomIdentityStmt, callee);
+        recordEdge(callerTaint, calleeTaint);
 
         // Receive callee taint summary for the sent caller taint
-        if (calleeSummary.containsKey(calleeTaint)) {
-            List<Set<Taint>> lst = calleeSummary.get(calleeTaint);
-            for (int i = 0; i < lst.size(); i++) {
-                summary.get(i).addAll(lst.get(i));
-            }
-        } else {
-            // Generate new summary entry for the callee taint
+        Pair<SootMethod, Taint> calleeContext = new Pair<>(callee, calleeTaint);
+        consumedSummaries.get(currEntry).add(calleeContext);
+        List<Set<Taint>> lst = calleeSummary.get(calleeTaint);
+        if (lst != null) {
+            genTaintsFromInvokeSummary(stmt, callee, calleeTaint, lst, callerVals, genSet);
+        } else if (initSummary(calleeSummary, calleeTaint, callee)) {
+            // Generated new summary entry for the callee taint
             changed = true;
-            List<Set<Taint>> newSummary = new ArrayList<>();
-            for (int i = 0; i < callee.getParameterCount() + 2; i++) {
-                newSummary.add(new HashSet<>());
-            }
-            calleeSummary.put(calleeTaint, newSummary);
+            createdSummaries.add(calleeContext);
         }
     }
 
-    private Set<Taint> getTaintsFromInvokeSummary(Set<Taint> taints, Value callerVal, Stmt stmt) {
-        Set<Taint> out = new HashSet<>();
-        if (callerVal instanceof NullConstant) {
-            return out;
-        }
-        for (Taint t : taints) {
-            Taint callerTaint = Taint.getTransferredTaintFor(
-                    t, callerVal, stmt, method, currTaintCache, Taint.TransferType.Return);
-            out.add(callerTaint);
+    /**
+     * Generates the caller taints at a call site from the summary of a callee context. Only the taints
+     * added to the summary since the call site has last read it are transferred to the caller, the caller
+     * taints generated from the earlier taints are taken from the call site summary cache.
+     */
+    private void genTaintsFromInvokeSummary(Stmt stmt, SootMethod callee, Taint calleeTaint,
+                                            List<Set<Taint>> calleeSummary, Value[] callerVals,
+                                            Set<Taint> genSet) {
+        int size = Math.min(calleeSummary.size(), callerVals.length);
+        CallSiteSummaryCache.Entry entry = callSiteSummaryCache.getEntry(stmt, callee, calleeTaint, size,
+                records != null);
+        // The analyses sharing a cache either all record their edges or none of them does
+        assertTrue(records == null || entry.isRecordingEdges());
+        synchronized (entry) {
+            for (int i = 0; i < size; i++) {
+                Value callerVal = callerVals[i];
+                if (callerVal == null || callerVal instanceof NullConstant) {
+                    continue;
+                }
+                VersionedTaintSet taints = (VersionedTaintSet) calleeSummary.get(i);
+                Set<Taint> callerTaints = entry.getCallerTaints(i);
+                int version = taints.getVersion();
+                for (int j = entry.getVersion(i); j < version; j++) {
+                    Taint callerTaint = Taint.getTransferredTaintFor(
+                            taints.get(j), callerVal, stmt, method, Taint.TransferType.Return);
+                    entry.addCallerTaint(i, taints.get(j), callerTaint);
+                }
+                entry.setVersion(i, version);
+                genSet.addAll(callerTaints);
+                if (records != null) {
+                    List<Taint> edges = entry.getEdges(i);
+                    for (int j = 0; j < edges.size(); j += 2) {
+                        recordEdge(edges.get(j), edges.get(j + 1));
+                    }
+                }
+            }
         }
-        return out;
     }
 
-    private void visitReturn(Set<Taint> in, Stmt stmt) {
+    private void visitReturn(TaintFlowSet in, Stmt stmt) {
         // Get the local representing @this (if exists)
         Local thiz = null;
         if (!body.getMethod().isStatic()) {
@@ -380,36 +600,49 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
         // Get the list of Locals representing the parameters (on LHS of IdentityStmt)
         List<Local> paramLocals = body.getParameterLocals();
 
-        List<Set<Taint>> summary = currMethodSummary.get(entryTaint);
-        for (Taint t : in) {
-            // Check if t taints base object
-            if (thiz != null && t.taints(thiz)) {
+        List<Set<Taint>> summary = entrySummaries.get(currEntry);
+        // Check the taints on base object
+        if (thiz != null) {
+            for (Taint t : in.getTaintsOn(thiz)) {
                 Taint newTaint = Taint.getTransferredTaintFor(
-                        t, t.getPlainValue(), phantomRetStmt, method, currTaintCache);
-                changed |= summary.get(0).add(newTaint);
+                        t, t.getPlainValue(), phantomRetStmt, method);
+                recordEdge(t, newTaint);
+                addToSummary(summary, 0, newTaint);
             }
+        }
 
-            // Check if t taints return value
-            if (retVal != null && t.taints(retVal)) {
+        // Check the taints on return value
+        if (retVal != null) {
+            for (Taint t : in.getTaintsOn(retVal)) {
                 Taint newTaint = Taint.getTransferredTaintFor(
-                        t, t.getPlainValue(), phantomRetStmt, method, currTaintCache);
-                changed |= summary.get(1).add(newTaint);
+                        t, t.getPlainValue(), phantomRetStmt, method);
+                recordEdge(t, newTaint);
+                addToSummary(summary, 1, newTaint);
             }
+        }
 
-            // Check if t taints object-type parameters
-            for (int i = 0; i < paramLocals.size(); i++) {
-                Local paramLocal = paramLocals.get(i);
-                // Check if the param is basic type (we should not taint them in that case)
-                if (!(paramLocal.getType() instanceof PrimType) && t.taints(paramLocal)) {
-                    Taint newTaint = Taint.getTransferredTaintFor(
-                            t, t.getPlainValue(), phantomRetStmt, method, currTaintCache);
-                    changed |= summary.get(2 + i).add(newTaint);
-                }
+        // Check the taints on object-type parameters
+        for (int i = 0; i < paramLocals.size(); i++) {
+            Local paramLocal = paramLocals.get(i);
+            // Check if the param is basic type (we should not taint them in that case)
+            if (paramLocal.getType() instanceof PrimType) continue;
+            for (Taint t : in.getTaintsOn(paramLocal)) {
+                Taint newTaint = Taint.getTransferredTaintFor(
+                        t, t.getPlainValue(), phantomRetStmt, method);
+                recordEdge(t, newTaint);
+                addToSummary(summary, 2 + i, newTaint);
             }
         }
     }
 
-    private void visitSink(Set<Taint> in, Stmt stmt) {
+    private void addToSummary(List<Set<Taint>> summary, int idx, Taint t) {
+        if (summary.get(idx).add(t)) {
+            changed = true;
+            summaryChanged[currEntry] = true;
+        }
+    }
+
+    private void visitSink(TaintFlowSet in, Stmt stmt) {
         if (!stmt.containsInvokeExpr()) return;
         InvokeExpr invoke = stmt.getInvokeExpr();
 
@@ -418,53 +651,62 @@ public class TaintFlowAnalysis extends ForwardFlowAnalysis<Unit, Set<Taint>> {
             base = ((InstanceInvokeExpr) invoke).getBase();
         }
 
-        for (Taint t : in) {
-            // Process base object
-            if (base != null && t.taints(base)) {
+        // Process base object
+        if (base != null) {
+            for (Taint t : in.getTaintsOn(base)) {
                 Taint sinkTaint = Taint.getTransferredTaintFor(
-                        t, t.getPlainValue(), stmt, method, currTaintCache);
+                        t, t.getPlainValue(), stmt, method);
                 sinkTaint.setSink();
                 sinks.add(sinkTaint);
+                recordSink(t, sinkTaint);
             }
+        }
 
-            // Process parameters
-            for (int i = 0; i < invoke.getArgCount(); i++) {
-                Value arg = invoke.getArg(i);
-                if (t.taints(arg)) {
-                    Taint sinkTaint = Taint.getTransferredTaintFor(
-                            t, t.getPlainValue(), stmt, method, currTaintCache);
-                    sinkTaint.setSink();
-                    sinks.add(sinkTaint);
-                }
+        // Process parameters
+        for (int i = 0; i < invoke.getArgCount(); i++) {
+            for (Taint t : in.getTaintsOn(invoke.getArg(i))) {
+                Taint sinkTaint = Taint.getTransferredTaintFor(
+                        t, t.getPlainValue(), stmt, method);
+                sinkTaint.setSink();
+                sinks.add(sinkTaint);
+                recordSink(t, sinkTaint);
             }
         }
     }
 
     @Override
-    protected Set<Taint> newInitialFlow() {
-        return new HashSet<>();
+    protected List<TaintFlowSet> newInitialFlow() {
+        List<TaintFlowSet> flow = new ArrayList<>(entryTaints.size());
+        for (int i = 0; i < entryTaints.size(); i++) {
+            flow.add(flowSetType.newFlowSet());
+        }
+        return flow;
     }
 
     @Override
-    protected Set<Taint> entryInitialFlow() {
-        Set<Taint> entryTaints = new HashSet<>();
-        if (!entryTaint.isEmpty()) {
-            entryTaints.add(entryTaint);
+    protected List<TaintFlowSet> entryInitialFlow() {
+        List<TaintFlowSet> flow = newInitialFlow();
+        for (int i = 0; i < entryTaints.size(); i++) {
+            Taint entryTaint = entryTaints.get(i);
+            if (!entryTaint.isEmpty()) {
+                flow.get(i).add(entryTaint);
+            }
         }
-        return entryTaints;
+        return flow;
     }
 
     @Override
-    protected void merge(Set<Taint> in1, Set<Taint> in2, Set<Taint> out) {
-        out.clear();
-        out.addAll(in1);
-        out.addAll(in2);
+    protected void merge(List<TaintFlowSet> in1, List<TaintFlowSet> in2, List<TaintFlowSet> out) {
+        for (int i = 0; i < entryTaints.size(); i++) {
+            in1.get(i).union(in2.get(i), out.get(i));
+        }
     }
 
     @Override
-    protected void copy(Set<Taint> source, Set<Taint> dest) {
-        dest.clear();
-        dest.addAll(source);
+    protected void copy(List<TaintFlowSet> source, List<TaintFlowSet> dest) {
+        for (int i = 0; i < entryTaints.size(); i++) {
+            source.get(i).copy(dest.get(i));
+        }
     }
 
 }
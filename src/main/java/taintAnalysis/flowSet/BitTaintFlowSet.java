@@ -0,0 +1,335 @@
+package taintAnalysis.flowSet;
+
+import soot.Value;
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+/**
+ * A flow set backed by a sparse bitset over the dense ids of taints (see {@link Taint#getId()}).
+ *
+ * Only the non-zero 64-bit words of the bitset are stored, as a sorted array of word indices
+ * and a parallel array of words, so that a flow set holding a few taints of a large id space stays small.
+ * Copy, union and equality of two bitset flow sets are word-parallel merges of the two arrays,
+ * and reuse the arrays of the destination whenever they are large enough.
+ *
+ * The taints on a value are looked up in an index of the taints of the flow set by key (see
+ * {@link TaintFlowSet#getKey(Value)}), which is built on the first lookup and dropped when the flow set is
+ * modified, since a flow set is usually looked up several times between two modifications.
+ */
+public class BitTaintFlowSet extends TaintFlowSet {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] keys;
+    private long[] words;
+    private int numOfWords;
+    private int size;
+
+    /**
+     * The taints of this flow set by key, built on the first lookup after a modification
+     */
+    private Map<Object, List<Taint>> keyIndex;
+
+    public BitTaintFlowSet() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.words = new long[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public TaintFlowSet emptySet() {
+        return new BitTaintFlowSet();
+    }
+
+    /**
+     * Indexes the taints of this flow set by key, in the order of their ids.
+     */
+    private Map<Object, List<Taint>> getKeyIndex() {
+        if (keyIndex == null) {
+            keyIndex = new HashMap<>();
+            for (Taint t : this) {
+                keyIndex.computeIfAbsent(getKey(t.getPlainValue()), k -> new ArrayList<>(2)).add(t);
+            }
+        }
+        return keyIndex;
+    }
+
+    @Override
+    public List<Taint> getTaintsOn(Value v) {
+        Map<Object, List<Taint>> index = getKeyIndex();
+        List<Object> valueKeys = new ArrayList<>(2);
+        collectKeys(v, valueKeys);
+        List<Taint> taints = new ArrayList<>();
+        for (Object key : valueKeys) {
+            List<Taint> keyTaints = index.get(key);
+            if (keyTaints == null) continue;
+            for (Taint t : keyTaints) {
+                if (t.taints(v)) {
+                    taints.add(t);
+                }
+            }
+        }
+        return taints;
+    }
+
+    private int indexOf(int key) {
+        int lo = 0;
+        int hi = numOfWords - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys[mid];
+            if (k < key) {
+                lo = mid + 1;
+            } else if (k > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (keys.length < capacity) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            int[] newKeys = new int[newCapacity];
+            long[] newWords = new long[newCapacity];
+            System.arraycopy(keys, 0, newKeys, 0, numOfWords);
+            System.arraycopy(words, 0, newWords, 0, numOfWords);
+            keys = newKeys;
+            words = newWords;
+        }
+    }
+
+    @Override
+    public boolean add(Taint taint) {
+        int id = taint.getId();
+        int key = id >>> 6;
+        long bit = 1L << id;
+        int pos = indexOf(key);
+        if (pos >= 0) {
+            if ((words[pos] & bit) != 0) {
+                return false;
+            }
+            words[pos] |= bit;
+        } else {
+            pos = -(pos + 1);
+            ensureCapacity(numOfWords + 1);
+            System.arraycopy(keys, pos, keys, pos + 1, numOfWords - pos);
+            System.arraycopy(words, pos, words, pos + 1, numOfWords - pos);
+            keys[pos] = key;
+            words[pos] = bit;
+            numOfWords++;
+        }
+        size++;
+        keyIndex = null;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Taint)) {
+            return false;
+        }
+        int id = ((Taint) o).getId();
+        int pos = indexOf(id >>> 6);
+        long bit = 1L << id;
+        if (pos < 0 || (words[pos] & bit) == 0) {
+            return false;
+        }
+        words[pos] &= ~bit;
+        if (words[pos] == 0) {
+            System.arraycopy(keys, pos + 1, keys, pos, numOfWords - pos - 1);
+            System.arraycopy(words, pos + 1, words, pos, numOfWords - pos - 1);
+            numOfWords--;
+        }
+        size--;
+        keyIndex = null;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Taint)) {
+            return false;
+        }
+        int id = ((Taint) o).getId();
+        int pos = indexOf(id >>> 6);
+        return pos >= 0 && (words[pos] & (1L << id)) != 0;
+    }
+
+    @Override
+    public void clear() {
+        numOfWords = 0;
+        size = 0;
+        keyIndex = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Taint> c) {
+        if (c instanceof BitTaintFlowSet) {
+            int oldSize = size;
+            union((BitTaintFlowSet) c, this);
+            return size != oldSize;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public void copy(TaintFlowSet dest) {
+        if (!(dest instanceof BitTaintFlowSet)) {
+            super.copy(dest);
+            return;
+        }
+        BitTaintFlowSet d = (BitTaintFlowSet) dest;
+        if (d == this) return;
+        d.numOfWords = 0;
+        d.ensureCapacity(numOfWords);
+        System.arraycopy(keys, 0, d.keys, 0, numOfWords);
+        System.arraycopy(words, 0, d.words, 0, numOfWords);
+        d.numOfWords = numOfWords;
+        d.size = size;
+        d.keyIndex = null;
+    }
+
+    @Override
+    public void union(TaintFlowSet other, TaintFlowSet dest) {
+        if (!(other instanceof BitTaintFlowSet) || !(dest instanceof BitTaintFlowSet)) {
+            super.union(other, dest);
+            return;
+        }
+        BitTaintFlowSet o = (BitTaintFlowSet) other;
+        BitTaintFlowSet d = (BitTaintFlowSet) dest;
+        if (o == this || o.numOfWords == 0) {
+            copy(d);
+            return;
+        }
+        if (numOfWords == 0) {
+            o.copy(d);
+            return;
+        }
+
+        // Merge into fresh arrays if the destination is an operand, into the destination arrays otherwise
+        int capacity = numOfWords + o.numOfWords;
+        int[] newKeys;
+        long[] newWords;
+        if (d == this || d == o) {
+            newKeys = new int[Math.max(capacity, d.keys.length)];
+            newWords = new long[newKeys.length];
+        } else {
+            d.numOfWords = 0;
+            d.ensureCapacity(capacity);
+            newKeys = d.keys;
+            newWords = d.words;
+        }
+
+        int i = 0, j = 0, n = 0, newSize = 0;
+        while (i < numOfWords || j < o.numOfWords) {
+            int k1 = i < numOfWords ? keys[i] : Integer.MAX_VALUE;
+            int k2 = j < o.numOfWords ? o.keys[j] : Integer.MAX_VALUE;
+            long w;
+            if (k1 < k2) {
+                newKeys[n] = k1;
+                w = words[i++];
+            } else if (k1 > k2) {
+                newKeys[n] = k2;
+                w = o.words[j++];
+            } else {
+                newKeys[n] = k1;
+                w = words[i++] | o.words[j++];
+            }
+            newWords[n++] = w;
+            newSize += Long.bitCount(w);
+        }
+        d.keys = newKeys;
+        d.words = newWords;
+        d.numOfWords = n;
+        d.size = newSize;
+        d.keyIndex = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof BitTaintFlowSet)) {
+            return super.equals(o);
+        }
+        BitTaintFlowSet other = (BitTaintFlowSet) o;
+        if (size != other.size || numOfWords != other.numOfWords) {
+            return false;
+        }
+        for (int i = 0; i < numOfWords; i++) {
+            if (keys[i] != other.keys[i] || words[i] != other.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public Iterator<Taint> iterator() {
+        return new Iterator<Taint>() {
+            private int pos = 0;
+            private int key = numOfWords > 0 ? keys[0] : 0;
+            private long word = numOfWords > 0 ? words[0] : 0;
+            private Taint last = null;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (pos + 1 >= numOfWords) {
+                        return false;
+                    }
+                    pos++;
+                    key = keys[pos];
+                    word = words[pos];
+                }
+                return true;
+            }
+
+            @Override
+            public Taint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                last = Taint.getTaintById((key << 6) | bit);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                BitTaintFlowSet.this.remove(last);
+                last = null;
+                // The current word has been dropped if it became empty, step back to its predecessor
+                if (pos >= numOfWords || keys[pos] != key) {
+                    pos--;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,24 @@
+package taintAnalysis.flowSet;
+
+/**
+ * The kinds of flow sets the taint analysis can use as its lattice.
+ */
+public enum FlowSetType {
+
+    /** Hash sets of taint objects */
+    HASH,
+
+    /** Sparse bitsets of taint ids, see {@link BitTaintFlowSet} */
+    BITSET;
+
+    public TaintFlowSet newFlowSet() {
+        switch (this) {
+            case BITSET:
+                return new BitTaintFlowSet();
+            case HASH:
+            default:
+                return new HashTaintFlowSet();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package taintAnalysis.flowSet;
+
+import soot.Value;
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+/**
+ * A flow set backed by hash sets of taints, one per key (see {@link TaintFlowSet#getKey(Value)}).
+ */
+public class HashTaintFlowSet extends TaintFlowSet {
+
+    private final Map<Object, Set<Taint>> buckets;
+    private int size;
+
+    public HashTaintFlowSet() {
+        this.buckets = new HashMap<>();
+    }
+
+    @Override
+    public TaintFlowSet emptySet() {
+        return new HashTaintFlowSet();
+    }
+
+    @Override
+    public List<Taint> getTaintsOn(Value v) {
+        List<Object> keys = new ArrayList<>(2);
+        collectKeys(v, keys);
+        List<Taint> taints = new ArrayList<>();
+        for (Object key : keys) {
+            Set<Taint> bucket = buckets.get(key);
+            if (bucket == null) continue;
+            for (Taint t : bucket) {
+                if (t.taints(v)) {
+                    taints.add(t);
+                }
+            }
+        }
+        return taints;
+    }
+
+    @Override
+    public boolean add(Taint taint) {
+        if (buckets.computeIfAbsent(getKey(taint.getPlainValue()), k -> new HashSet<>()).add(taint)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Taint)) {
+            return false;
+        }
+        Object key = getKey(((Taint) o).getPlainValue());
+        Set<Taint> bucket = buckets.get(key);
+        if (bucket == null || !bucket.remove(o)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Taint)) {
+            return false;
+        }
+        Set<Taint> bucket = buckets.get(getKey(((Taint) o).getPlainValue()));
+        return bucket != null && bucket.contains(o);
+    }
+
+    @Override
+    public void clear() {
+        buckets.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void copy(TaintFlowSet dest) {
+        if (!(dest instanceof HashTaintFlowSet)) {
+            super.copy(dest);
+            return;
+        }
+        HashTaintFlowSet d = (HashTaintFlowSet) dest;
+        if (d == this) return;
+        d.buckets.clear();
+        for (Map.Entry<Object, Set<Taint>> entry : buckets.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                d.buckets.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        }
+        d.size = size;
+    }
+
+    @Override
+    public Iterator<Taint> iterator() {
+        final Iterator<Set<Taint>> bucketIter = buckets.values().iterator();
+        return new Iterator<Taint>() {
+            private Iterator<Taint> iter = Collections.emptyIterator();
+            private Iterator<Taint> lastIter = null;
+
+            @Override
+            public boolean hasNext() {
+                while (!iter.hasNext()) {
+                    if (!bucketIter.hasNext()) {
+                        return false;
+                    }
+                    iter = bucketIter.next().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Taint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                lastIter = iter;
+                return iter.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastIter == null) {
+                    throw new IllegalStateException();
+                }
+                // Emptied buckets are kept until the set is copied or cleared
+                lastIter.remove();
+                lastIter = null;
+                size--;
+            }
+        };
+    }
+
+}
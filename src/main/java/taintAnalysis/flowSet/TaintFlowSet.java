@@ -0,0 +1,114 @@
+package taintAnalysis.flowSet;
+
+import soot.Local;
+import soot.Value;
+import soot.jimple.*;
+import taintAnalysis.Taint;
+
+import java.util.AbstractSet;
+import java.util.List;
+
+/**
+ * A set of taints used as the flow value of the taint analysis. Besides the usual set operations,
+ * a flow set can be copied to and united into another flow set of the same kind, which implementations
+ * can do without going through the elements one by one.
+ *
+ * Flow sets index their taints by the local (or static field) the tainted value is based on, so that
+ * the taints on a value can be looked up without checking every taint of the set against the value.
+ */
+public abstract class TaintFlowSet extends AbstractSet<Taint> {
+
+    /**
+     * Creates an empty flow set of the same kind as this one.
+     *
+     * @return The empty flow set
+     */
+    public abstract TaintFlowSet emptySet();
+
+    /**
+     * Gets the taints in this flow set which taint a given value (see {@link Taint#taints(Value)}).
+     *
+     * @param v the value
+     * @return The list of taints on the value
+     */
+    public abstract List<Taint> getTaintsOn(Value v);
+
+    /**
+     * Copies this flow set to another flow set.
+     *
+     * @param dest  the flow set to copy to, whose elements are replaced
+     */
+    public void copy(TaintFlowSet dest) {
+        if (dest == this) return;
+        dest.clear();
+        dest.addAll(this);
+    }
+
+    /**
+     * Puts the union of this flow set and another flow set into a destination flow set.
+     * The destination can be one of the two operands.
+     *
+     * @param other the other flow set
+     * @param dest  the flow set to hold the union, whose elements are replaced
+     */
+    public void union(TaintFlowSet other, TaintFlowSet dest) {
+        if (dest == this) {
+            dest.addAll(other);
+        } else if (dest == other) {
+            dest.addAll(this);
+        } else {
+            dest.clear();
+            dest.addAll(this);
+            dest.addAll(other);
+        }
+    }
+
+    /**
+     * Gets the key by which a taint on a given plain value is indexed, i.e. the local of a local value,
+     * the base local of an array ref or instance field ref, the field of a static field ref,
+     * and null for any other value (e.g. a constant).
+     *
+     * @param v the plain value
+     * @return The key of the value
+     */
+    protected static Object getKey(Value v) {
+        if (v instanceof Local) {
+            return v;
+        }
+        if (v instanceof ArrayRef) {
+            return ((ArrayRef) v).getBase();
+        }
+        if (v instanceof InstanceFieldRef) {
+            return ((InstanceFieldRef) v).getBase();
+        }
+        if (v instanceof StaticFieldRef) {
+            return ((StaticFieldRef) v).getField();
+        }
+        return null;
+    }
+
+    /**
+     * Collects the keys of the taints which may taint a given value, following the operands
+     * of the expressions looked into by {@link Taint#taints(Value)}.
+     *
+     * @param v     the value
+     * @param keys  the list to which to add the keys
+     */
+    protected static void collectKeys(Value v, List<Object> keys) {
+        Object key = getKey(v);
+        if (!keys.contains(key)) {
+            keys.add(key);
+        }
+        if (v instanceof BinopExpr) {
+            collectKeys(((BinopExpr) v).getOp1(), keys);
+            collectKeys(((BinopExpr) v).getOp2(), keys);
+        } else if (v instanceof UnopExpr) {
+            collectKeys(((UnopExpr) v).getOp(), keys);
+        } else if (v instanceof CastExpr) {
+            collectKeys(((CastExpr) v).getOp(), keys);
+        } else if (v instanceof InstanceOfExpr) {
+            collectKeys(((InstanceOfExpr) v).getOp(), keys);
+        }
+    }
+
+}
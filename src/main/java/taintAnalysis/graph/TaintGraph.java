@@ -0,0 +1,311 @@
+package taintAnalysis.graph;
+
+import taintAnalysis.Taint;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A taint propagation graph written by {@link TaintGraphWriter}, memory-mapped from its file.
+ *
+ * Taints, statements and strings are identified by their int ids in the file. A taint has a value (with its
+ * field), a method, a statement and a transfer type like a {@link Taint}, and the successors of a taint are
+ * found in the successor array between {@link #getSuccessorStart(int)} and {@link #getSuccessorEnd(int)}.
+ * Statements are compared by id, the same statement of the analysis has the same id.
+ * Strings are only decoded when requested.
+ */
+public class TaintGraph {
+
+    public static final byte STMT = 0;
+    public static final byte IDENTITY_STMT = 1;
+    public static final byte RET_STMT = 2;
+
+    private static final Taint.TransferType[] TRANSFER_TYPES = Taint.TransferType.values();
+
+    private final int numOfStrings;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringData;
+    private final String[] stringCache;
+
+    private final int numOfStmts;
+    private final IntBuffer stmtStrings;
+    private final IntBuffer stmtCallees;
+    private final ByteBuffer stmtKinds;
+
+    private final int numOfNodes;
+    private final IntBuffer nodeValues;
+    private final IntBuffer nodeMethods;
+    private final IntBuffer nodeStmts;
+    private final ByteBuffer nodeTransferTypes;
+
+    private final int numOfEdges;
+    private final IntBuffer edgeOffsets;
+    private final IntBuffer edgeTargets;
+
+    private final LongBuffer sinks;
+    private final int[] sources;
+    private final int[] sourceOptions;
+
+    private TaintGraph(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < TaintGraphWriter.HEADER_SIZE) {
+            throw new IOException("Truncated taint graph");
+        }
+        ByteBuffer header = map(channel, 0, TaintGraphWriter.HEADER_SIZE);
+        if (header.getInt() != TaintGraphWriter.MAGIC) {
+            throw new IOException("Not a taint graph");
+        }
+        if (header.getInt() != TaintGraphWriter.VERSION) {
+            throw new IOException("Unsupported taint graph version");
+        }
+        long[] offsets = new long[TaintGraphWriter.NUM_OF_SECTIONS + 1];
+        for (int i = 0; i < TaintGraphWriter.NUM_OF_SECTIONS; i++) {
+            offsets[i] = header.getLong();
+        }
+        offsets[TaintGraphWriter.NUM_OF_SECTIONS] = size;
+        ByteBuffer[] sections = new ByteBuffer[TaintGraphWriter.NUM_OF_SECTIONS];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = map(channel, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+
+        ByteBuffer b = sections[TaintGraphWriter.STRINGS];
+        numOfStrings = b.getInt();
+        stringOffsets = ints(b, 4, numOfStrings + 1);
+        stringData = bytes(b, 4 + 4L * (numOfStrings + 1), b.capacity() - 4 - 4L * (numOfStrings + 1));
+        stringCache = new String[numOfStrings];
+
+        b = sections[TaintGraphWriter.STMTS];
+        numOfStmts = b.getInt();
+        stmtStrings = ints(b, 4, numOfStmts);
+        stmtCallees = ints(b, 4 + 4L * numOfStmts, numOfStmts);
+        stmtKinds = bytes(b, 4 + 8L * numOfStmts, numOfStmts);
+
+        b = sections[TaintGraphWriter.NODES];
+        numOfNodes = b.getInt();
+        nodeValues = ints(b, 4, numOfNodes);
+        nodeMethods = ints(b, 4 + 4L * numOfNodes, numOfNodes);
+        nodeStmts = ints(b, 4 + 8L * numOfNodes, numOfNodes);
+        nodeTransferTypes = bytes(b, 4 + 12L * numOfNodes, numOfNodes);
+
+        b = sections[TaintGraphWriter.EDGES];
+        numOfEdges = b.getInt();
+        edgeOffsets = ints(b, 4, numOfNodes + 1);
+        edgeTargets = ints(b, 4 + 4L * (numOfNodes + 1), numOfEdges);
+
+        b = sections[TaintGraphWriter.SINKS];
+        sinks = b.asLongBuffer();
+
+        b = sections[TaintGraphWriter.SOURCES];
+        sources = new int[b.getInt()];
+        ints(b, 4, sources.length).get(sources);
+        sourceOptions = new int[sources.length];
+        ints(b, 4 + 4L * sources.length, sources.length).get(sourceOptions);
+    }
+
+    /**
+     * Memory-maps a taint graph file.
+     *
+     * @param path  the path of the file
+     * @return The taint graph
+     * @throws IOException if the file cannot be read or is not a taint graph
+     */
+    public static TaintGraph load(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            return new TaintGraph(channel);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid taint graph: " + e, e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > channel.size()) {
+            throw new IOException("Invalid section of taint graph");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private static ByteBuffer bytes(ByteBuffer b, long offset, long length) {
+        // Positioned through Buffer, whose methods return ByteBuffer in later Java versions
+        ByteBuffer dup = b.duplicate();
+        ((Buffer) dup).position((int) offset);
+        ((Buffer) dup).limit((int) (offset + length));
+        return dup.slice();
+    }
+
+    private static IntBuffer ints(ByteBuffer b, long offset, int count) {
+        return bytes(b, offset, 4L * count).asIntBuffer();
+    }
+
+    public int getNumOfNodes() {
+        return numOfNodes;
+    }
+
+    public int getNumOfEdges() {
+        return numOfEdges;
+    }
+
+    public int getNumOfStmts() {
+        return numOfStmts;
+    }
+
+    public int getNumOfStrings() {
+        return numOfStrings;
+    }
+
+    /**
+     * Gets the source taints, in the order of the analysis results.
+     *
+     * @return The ids of the source taints
+     */
+    public int[] getSources() {
+        return sources.clone();
+    }
+
+    /**
+     * Gets the string id of the name of the option loaded by a source.
+     *
+     * @param idx   the index of the source in {@link #getSources()}
+     * @return The string id, or -1 if the name is unknown
+     */
+    public int getSourceOptionId(int idx) {
+        return sourceOptions[idx];
+    }
+
+    public boolean isSink(int node) {
+        return (sinks.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    public Taint.TransferType getTransferType(int node) {
+        return TRANSFER_TYPES[nodeTransferTypes.get(node)];
+    }
+
+    /**
+     * Gets the string id of the value of a taint, including its field (e.g. "r0.&lt;Book: int id&gt;").
+     */
+    public int getValueId(int node) {
+        return nodeValues.get(node);
+    }
+
+    /**
+     * Gets the string id of the signature of the method of a taint.
+     */
+    public int getMethodId(int node) {
+        return nodeMethods.get(node);
+    }
+
+    public int getStmt(int node) {
+        return nodeStmts.get(node);
+    }
+
+    public String getValue(int node) {
+        return getString(getValueId(node));
+    }
+
+    public String getMethod(int node) {
+        return getString(getMethodId(node));
+    }
+
+    /**
+     * Gets the index of the first successor of a taint in the successor array.
+     */
+    public int getSuccessorStart(int node) {
+        return edgeOffsets.get(node);
+    }
+
+    /**
+     * Gets the index after the last successor of a taint in the successor array.
+     */
+    public int getSuccessorEnd(int node) {
+        return edgeOffsets.get(node + 1);
+    }
+
+    /**
+     * Gets an entry of the successor array.
+     */
+    public int getSuccessorAt(int idx) {
+        return edgeTargets.get(idx);
+    }
+
+    /**
+     * Gets the successors of a taint, in the order path reconstruction visits them in.
+     *
+     * @param node  the taint id
+     * @return The ids of the successors
+     */
+    public int[] getSuccessors(int node) {
+        int start = getSuccessorStart(node);
+        int[] successors = new int[getSuccessorEnd(node) - start];
+        for (int i = 0; i < successors.length; i++) {
+            successors[i] = edgeTargets.get(start + i);
+        }
+        return successors;
+    }
+
+    /**
+     * Gets the kind of a statement, which is {@link #STMT} for the statements of the method bodies, and
+     * {@link #IDENTITY_STMT} or {@link #RET_STMT} for the phantom entry and exit statements of a method.
+     */
+    public byte getStmtKind(int stmt) {
+        return stmtKinds.get(stmt);
+    }
+
+    public int getStmtStringId(int stmt) {
+        return stmtStrings.get(stmt);
+    }
+
+    /**
+     * Gets the string id of the signature of the method invoked by a statement.
+     *
+     * @return The string id, or -1 if the statement contains no invocation
+     */
+    public int getStmtCalleeId(int stmt) {
+        return stmtCallees.get(stmt);
+    }
+
+    /**
+     * Gets a string of the string table, decoding it on first use.
+     *
+     * @param id    the string id
+     * @return The string
+     */
+    public String getString(int id) {
+        String s = stringCache[id];
+        if (s == null) {
+            int start = stringOffsets.get(id);
+            byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+            ByteBuffer dup = stringData.duplicate();
+            ((Buffer) dup).position(start);
+            dup.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            stringCache[id] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Gets the string representation of a taint, which is the same as the one of the {@link Taint} it has
+     * been written from.
+     *
+     * @param node  the taint id
+     * @return The string representation
+     */
+    public String toString(int node) {
+        String str = "";
+        Taint.TransferType transferType = getTransferType(node);
+        if (transferType != Taint.TransferType.None) {
+            str += "[" + transferType + "] ";
+        }
+        str += getValue(node) + " in " + getString(getStmtStringId(getStmt(node))) +
+                " in method " + getMethod(node);
+        return str;
+    }
+
+}
@@ -0,0 +1,222 @@
+package taintAnalysis.graph;
+
+import taintAnalysis.Taint;
+import taintAnalysis.pathGraph.IPathGraph;
+import taintAnalysis.pathGraph.ShortestPathSearch;
+import taintAnalysis.utility.StronglyConnectedComponents;
+
+import java.util.*;
+
+/**
+ * Indexes of the source-sink connections of a {@link TaintGraph}, so that queries are answered by lookups.
+ *
+ * The taints of the graph are collapsed into their strongly connected components, and bitmaps of the
+ * options are propagated along the successors of the taints once, in topological order, like in
+ * {@link taintAnalysis.SinkSourceIndex}. The propagation ignores the matching of calls and returns, so the
+ * options reaching a sink are a superset of those whose valid paths reach the sink. Witness paths are valid
+ * paths, searched on demand by a {@link ShortestPathSearch} from the sources of an option.
+ *
+ * An option is identified by the name of the option loaded by its sources, or by the string representation
+ * of the source if the name is unknown. A sink method is the method invoked by the statement of a sink
+ * (or the method of the sink if its statement invokes none).
+ */
+public class TaintGraphIndex {
+
+    private final TaintGraph graph;
+    private final Map<String, List<Integer>> sourcesByOption;
+    private final Map<String, List<Integer>> sinksByOption;
+    private final Map<String, Set<String>> optionsBySinkMethod;
+
+    public TaintGraphIndex(TaintGraph graph) {
+        this.graph = graph;
+        this.sourcesByOption = new TreeMap<>();
+        this.sinksByOption = new HashMap<>();
+        this.optionsBySinkMethod = new TreeMap<>();
+
+        int[] sources = graph.getSources();
+        for (int i = 0; i < sources.length; i++) {
+            int optionId = graph.getSourceOptionId(i);
+            String option = optionId != -1 ? graph.getString(optionId) : graph.toString(sources[i]);
+            sourcesByOption.computeIfAbsent(option, k -> new ArrayList<>()).add(i);
+        }
+        build();
+    }
+
+    private void build() {
+        int n = graph.getNumOfNodes();
+        int[][] succ = new int[n][];
+        for (int v = 0; v < n; v++) {
+            succ[v] = graph.getSuccessors(v);
+        }
+        int[] comps = StronglyConnectedComponents.compute(succ);
+        int[][] members = StronglyConnectedComponents.getMembers(comps);
+        boolean[] hasSink = new boolean[members.length];
+        for (int v = 0; v < n; v++) {
+            if (graph.isSink(v)) {
+                hasSink[comps[v]] = true;
+            }
+        }
+
+        // Options are indexed by their position in the ordered option names
+        List<String> options = new ArrayList<>(sourcesByOption.keySet());
+        int[] sources = graph.getSources();
+        BitSet[] bits = new BitSet[members.length];
+        for (int i = 0; i < options.size(); i++) {
+            for (int src : sourcesByOption.get(options.get(i))) {
+                int c = comps[sources[src]];
+                if (bits[c] == null) {
+                    bits[c] = new BitSet(options.size());
+                }
+                bits[c].set(i);
+            }
+        }
+        StronglyConnectedComponents.propagate(succ, comps, members, bits, hasSink);
+
+        for (int v = 0; v < n; v++) {
+            BitSet b = bits[comps[v]];
+            if (!graph.isSink(v) || b == null) {
+                continue;
+            }
+            Set<String> sinkMethodOptions = optionsBySinkMethod.computeIfAbsent(getSinkMethod(v),
+                    k -> new TreeSet<>());
+            for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+                sinksByOption.computeIfAbsent(options.get(i), k -> new ArrayList<>()).add(v);
+                sinkMethodOptions.add(options.get(i));
+            }
+        }
+    }
+
+    public TaintGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the sink method of a sink taint.
+     */
+    public String getSinkMethod(int sink) {
+        int calleeId = graph.getStmtCalleeId(graph.getStmt(sink));
+        return graph.getString(calleeId != -1 ? calleeId : graph.getMethodId(sink));
+    }
+
+    /**
+     * Gets all options, in order.
+     */
+    public Set<String> getOptions() {
+        return Collections.unmodifiableSet(sourcesByOption.keySet());
+    }
+
+    /**
+     * Gets all sink methods reached by any option, in order.
+     */
+    public Set<String> getSinkMethods() {
+        return Collections.unmodifiableSet(optionsBySinkMethod.keySet());
+    }
+
+    /**
+     * Gets the sinks reached by an option.
+     *
+     * @param option    the option
+     * @return The ids of the sink taints, in increasing order
+     */
+    public List<Integer> getSinks(String option) {
+        return Collections.unmodifiableList(sinksByOption.getOrDefault(option, Collections.emptyList()));
+    }
+
+    /**
+     * Gets the options reaching a sink method.
+     *
+     * @param sinkMethod    the signature of the sink method
+     * @return The options, in order
+     */
+    public Set<String> getOptions(String sinkMethod) {
+        return optionsBySinkMethod.getOrDefault(sinkMethod, Collections.emptySet());
+    }
+
+    /**
+     * Gets a shortest valid path from an option to a sink, from the first source of the option it is the
+     * shortest from.
+     *
+     * @param option        the option
+     * @param sinkMethod    the signature of the sink method, or null for any sink
+     * @return The ids of the taints along the path, from the source to the sink, or null if there is none
+     */
+    public int[] getWitnessPath(String option, String sinkMethod) {
+        if (!sinksByOption.containsKey(option)) {
+            return null;
+        }
+        int[] sources = graph.getSources();
+        ShortestPathSearch<Integer> search = new ShortestPathSearch<>(new GraphPaths(graph), 1);
+        List<Integer> witness = null;
+        int witnessDist = Integer.MAX_VALUE;
+        for (int src : sourcesByOption.get(option)) {
+            search.search(sources[src]);
+            // The sinks are ordered by the length of their shortest path
+            for (int sink : search.getSinks()) {
+                if (sinkMethod == null || sinkMethod.equals(getSinkMethod(sink))) {
+                    if (search.getDistance(sink) < witnessDist) {
+                        witness = search.getPaths(sink).get(0);
+                        witnessDist = search.getDistance(sink);
+                    }
+                    break;
+                }
+            }
+        }
+        if (witness == null) {
+            return null;
+        }
+        int[] path = new int[witness.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = witness.get(i);
+        }
+        return path;
+    }
+
+    /**
+     * A taint graph as a path graph, visiting the successors of a taint in the order they have been written in.
+     */
+    private static class GraphPaths implements IPathGraph<Integer> {
+
+        private final TaintGraph graph;
+
+        private GraphPaths(TaintGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public List<Integer> getSuccessors(Integer node) {
+            int end = graph.getSuccessorEnd(node);
+            List<Integer> successors = new ArrayList<>(end - graph.getSuccessorStart(node));
+            for (int i = graph.getSuccessorStart(node); i < end; i++) {
+                successors.add(graph.getSuccessorAt(i));
+            }
+            return successors;
+        }
+
+        @Override
+        public boolean isCall(Integer node) {
+            return graph.getTransferType(node) == Taint.TransferType.Call;
+        }
+
+        @Override
+        public boolean isExit(Integer node) {
+            return graph.getStmtKind(graph.getStmt(node)) == TaintGraph.RET_STMT;
+        }
+
+        @Override
+        public boolean isSink(Integer node) {
+            return graph.isSink(node);
+        }
+
+        @Override
+        public boolean isReturnSite(Integer successor, Integer call) {
+            return graph.getStmt(successor) == graph.getStmt(call);
+        }
+
+        @Override
+        public String toString(Integer node) {
+            return graph.toString(node);
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package taintAnalysis.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Answers queries over a saved taint propagation graph, one query per line, on the standard input or on a
+ * socket bound to the loopback address. The answer to a query is zero or more lines, followed by an empty
+ * line.
+ *
+ * Queries:
+ *  - options: the options of the sources;
+ *  - options &lt;sink method&gt;: the options reaching a sink method (by signature);
+ *  - sinks: the sink methods reached by any option;
+ *  - sinks &lt;option&gt;: the sinks reached by an option;
+ *  - path &lt;option&gt; [-&gt; &lt;sink method&gt;]: a path from an option to a sink (of the sink method);
+ *  - help;
+ *  - quit.
+ */
+public class TaintGraphService {
+
+    private static final String PATH_SEPARATOR = " -> ";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final TaintGraphIndex index;
+
+    public TaintGraphService(TaintGraphIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Loads a taint graph file and builds its indexes.
+     *
+     * @param path  the path of the file
+     * @return The service
+     * @throws IOException if the file cannot be read or is not a taint graph
+     */
+    public static TaintGraphService load(String path) throws IOException {
+        TaintGraph graph = TaintGraph.load(path);
+        return new TaintGraphService(new TaintGraphIndex(graph));
+    }
+
+    /**
+     * Answers the queries read from an input until the end of the input or a quit query.
+     *
+     * @param in    the input to read the queries from
+     * @param out   the output to write the answers to
+     * @throws IOException if the input cannot be read
+     */
+    public void serve(BufferedReader in, PrintWriter out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!answer(line.trim(), out)) {
+                break;
+            }
+            out.println();
+            out.flush();
+        }
+        out.flush();
+    }
+
+    /**
+     * Answers the queries of the connections to a port of the loopback address until the process is stopped.
+     *
+     * @param port  the port
+     * @throws IOException if the port cannot be bound
+     */
+    public void serve(int port) throws IOException {
+        ExecutorService es = Executors.newCachedThreadPool();
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            logger.info("Serving queries on {}", serverSocket.getLocalSocketAddress());
+            while (true) {
+                Socket socket = serverSocket.accept();
+                es.submit(() -> {
+                    try (Socket s = socket) {
+                        serve(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)),
+                                new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        logger.warn("Query connection failed: {}", e.getMessage());
+                    }
+                });
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers a query.
+     *
+     * @return False if the query is a quit query
+     */
+    private boolean answer(String query, PrintWriter out) {
+        int sep = query.indexOf(' ');
+        String command = sep == -1 ? query : query.substring(0, sep);
+        String arg = sep == -1 ? null : query.substring(sep + 1).trim();
+        TaintGraph graph = index.getGraph();
+        switch (command) {
+            case "":
+                break;
+            case "options":
+                for (String option : arg == null ? index.getOptions() : index.getOptions(arg)) {
+                    out.println(option);
+                }
+                break;
+            case "sinks":
+                if (arg == null) {
+                    for (String sinkMethod : index.getSinkMethods()) {
+                        out.println(sinkMethod);
+                    }
+                } else {
+                    List<Integer> sinks = index.getSinks(arg);
+                    for (int sink : sinks) {
+                        out.println(graph.toString(sink));
+                    }
+                }
+                break;
+            case "path":
+                if (arg == null) {
+                    out.println("error: missing option");
+                    break;
+                }
+                int pathSep = arg.indexOf(PATH_SEPARATOR);
+                String option = pathSep == -1 ? arg : arg.substring(0, pathSep).trim();
+                String sinkMethod = pathSep == -1 ? null : arg.substring(pathSep + PATH_SEPARATOR.length()).trim();
+                int[] path = index.getWitnessPath(option, sinkMethod);
+                if (path != null) {
+                    for (int t : path) {
+                        if (graph.getStmtKind(graph.getStmt(t)) != TaintGraph.STMT) {
+                            continue;
+                        }
+                        out.println(graph.toString(t));
+                    }
+                }
+                break;
+            case "help":
+                out.println("options");
+                out.println("options <sink method>");
+                out.println("sinks");
+                out.println("sinks <option>");
+                out.println("path <option> [-> <sink method>]");
+                out.println("quit");
+                break;
+            case "quit":
+                return false;
+            default:
+                out.println("error: unknown query " + command);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,323 @@
+package taintAnalysis.graph;
+
+import soot.jimple.Stmt;
+import taintAnalysis.Taint;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.utility.PhantomIdentityStmt;
+import taintAnalysis.utility.PhantomRetStmt;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Writes the taint propagation graph reachable from the sources to a binary file, which can be
+ * memory-mapped by {@link TaintGraph} to query the results of an analysis without running it again.
+ *
+ * The taints are numbered in breadth-first order from the sources, and the successors of each taint are
+ * ordered by their string representation, which is the order path reconstruction visits them in.
+ *
+ * File format (big-endian), each section starting at the offset given in the header:
+ *  - header: magic, version, and the offsets of the sections;
+ *  - strings: the number of strings, the offsets of the strings in the string data (one more than the
+ *    number of strings), and the UTF-8 string data;
+ *  - statements: the number of statements, the string id of each statement, the string id of the signature
+ *    of the method invoked by each statement (-1 if none) and the kind of each statement (one byte each);
+ *  - taints: the number of taints, the string id of the value (with its field) of each taint, the string id
+ *    of the signature of the method of each taint, the statement id of each taint and the transfer type
+ *    of each taint (one byte each);
+ *  - edges: the number of edges, the offsets of the successors of each taint in the successor array
+ *    (one more than the number of taints), and the successor array;
+ *  - sinks: a bitmap of the sink taints, as longs;
+ *  - sources: the number of sources, their taint ids, and the string ids of the names of the options they
+ *    load (-1 if unknown).
+ */
+public class TaintGraphWriter {
+
+    static final int MAGIC = 0x43465447;
+    static final int VERSION = 2;
+    static final int NUM_OF_SECTIONS = 6;
+    static final int HEADER_SIZE = 8 + 8 * NUM_OF_SECTIONS;
+
+    static final int STRINGS = 0;
+    static final int STMTS = 1;
+    static final int NODES = 2;
+    static final int EDGES = 3;
+    static final int SINKS = 4;
+    static final int SOURCES = 5;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final List<Taint> nodes;
+    private final Map<Taint, Integer> nodeIds;
+    private final List<Stmt> stmts;
+    private final Map<Stmt, Integer> stmtIds;
+    private final List<String> strings;
+    private final Map<String, Integer> stringIds;
+
+    private TaintGraphWriter() {
+        this.nodes = new ArrayList<>();
+        this.nodeIds = new HashMap<>();
+        this.stmts = new ArrayList<>();
+        this.stmtIds = new HashMap<>();
+        this.strings = new ArrayList<>();
+        this.stringIds = new HashMap<>();
+    }
+
+    /**
+     * Writes the taint propagation graph reachable from the given sources.
+     *
+     * @param sources           the source taints
+     * @param sourceSinkManager the source sink manager giving the names of the options of the sources
+     * @param path              the path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Taint> sources, ISourceSinkManager sourceSinkManager, String path)
+            throws IOException {
+        new TaintGraphWriter().writeGraph(sources, sourceSinkManager, Paths.get(path));
+    }
+
+    private void writeGraph(List<Taint> sources, ISourceSinkManager sourceSinkManager, Path path)
+            throws IOException {
+        // Number the taints in breadth-first order, and their successors in visiting order
+        List<List<Taint>> successors = new ArrayList<>();
+        for (Taint source : sources) {
+            addNode(source);
+        }
+        int numOfEdges = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            List<Taint> lst = new ArrayList<>(nodes.get(i).getSuccessors());
+            lst.sort(Comparator.comparing(Taint::toString));
+            for (Taint successor : lst) {
+                addNode(successor);
+            }
+            successors.add(lst);
+            numOfEdges += lst.size();
+        }
+
+        int numOfNodes = nodes.size();
+        int[] valueIds = new int[numOfNodes];
+        int[] methodIds = new int[numOfNodes];
+        int[] nodeStmtIds = new int[numOfNodes];
+        byte[] transferTypes = new byte[numOfNodes];
+        long[] sinks = new long[(numOfNodes + 63) >>> 6];
+        for (int i = 0; i < numOfNodes; i++) {
+            Taint t = nodes.get(i);
+            valueIds[i] = addString(t.getPlainValue() + (t.getField() != null ? "." + t.getField() : ""));
+            methodIds[i] = addString(t.getMethod().getSignature());
+            nodeStmtIds[i] = addStmt(t.getStmt());
+            transferTypes[i] = (byte) t.getTransferType().ordinal();
+            if (t.isSink()) {
+                sinks[i >>> 6] |= 1L << i;
+            }
+        }
+
+        int[] optionIds = new int[sources.size()];
+        for (int i = 0; i < optionIds.length; i++) {
+            String option = sourceSinkManager.getConfigName(sources.get(i).getStmt());
+            optionIds[i] = option != null ? addString(option) : -1;
+        }
+
+        int numOfStmts = stmts.size();
+        int[] stmtStringIds = new int[numOfStmts];
+        int[] calleeIds = new int[numOfStmts];
+        byte[] kinds = new byte[numOfStmts];
+        for (int i = 0; i < numOfStmts; i++) {
+            Stmt stmt = stmts.get(i);
+            stmtStringIds[i] = addString(stmt.toString());
+            if (stmt instanceof PhantomIdentityStmt) {
+                kinds[i] = TaintGraph.IDENTITY_STMT;
+                calleeIds[i] = -1;
+            } else if (stmt instanceof PhantomRetStmt) {
+                kinds[i] = TaintGraph.RET_STMT;
+                calleeIds[i] = -1;
+            } else {
+                kinds[i] = TaintGraph.STMT;
+                calleeIds[i] = stmt.containsInvokeExpr() ?
+                        addString(stmt.getInvokeExpr().getMethod().getSignature()) : -1;
+            }
+        }
+
+        Path tmp = Paths.get(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            long[] offsets = new long[NUM_OF_SECTIONS];
+            out.skip(HEADER_SIZE);
+
+            // Strings
+            offsets[STRINGS] = out.position();
+            List<byte[]> stringBytes = new ArrayList<>(strings.size());
+            out.putInt(strings.size());
+            int stringOffset = 0;
+            out.putInt(stringOffset);
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                stringBytes.add(bytes);
+                stringOffset += bytes.length;
+                out.putInt(stringOffset);
+            }
+            for (byte[] bytes : stringBytes) {
+                out.put(bytes);
+            }
+
+            // Statements
+            offsets[STMTS] = out.position();
+            out.putInt(numOfStmts);
+            out.putInts(stmtStringIds);
+            out.putInts(calleeIds);
+            out.put(kinds);
+
+            // Taints
+            offsets[NODES] = out.position();
+            out.putInt(numOfNodes);
+            out.putInts(valueIds);
+            out.putInts(methodIds);
+            out.putInts(nodeStmtIds);
+            out.put(transferTypes);
+
+            // Edges
+            offsets[EDGES] = out.position();
+            out.putInt(numOfEdges);
+            int edgeOffset = 0;
+            out.putInt(edgeOffset);
+            for (List<Taint> lst : successors) {
+                edgeOffset += lst.size();
+                out.putInt(edgeOffset);
+            }
+            for (List<Taint> lst : successors) {
+                for (Taint successor : lst) {
+                    out.putInt(nodeIds.get(successor));
+                }
+            }
+
+            // Sinks
+            offsets[SINKS] = out.position();
+            for (long word : sinks) {
+                out.putLong(word);
+            }
+
+            // Sources
+            offsets[SOURCES] = out.position();
+            out.putInt(sources.size());
+            for (Taint source : sources) {
+                out.putInt(nodeIds.get(source));
+            }
+            out.putInts(optionIds);
+            out.flush();
+
+            // Header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            ((Buffer) header).flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void addNode(Taint t) {
+        if (!nodeIds.containsKey(t)) {
+            nodeIds.put(t, nodes.size());
+            nodes.add(t);
+        }
+    }
+
+    private int addStmt(Stmt stmt) {
+        Integer id = stmtIds.get(stmt);
+        if (id == null) {
+            id = stmts.size();
+            stmtIds.put(stmt, id);
+            stmts.add(stmt);
+        }
+        return id;
+    }
+
+    private int addString(String s) {
+        Integer id = stringIds.get(s);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(s, id);
+            strings.add(s);
+        }
+        return id;
+    }
+
+    /**
+     * A buffered output to a file channel, which keeps track of the position in the file.
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        private long position() {
+            return position;
+        }
+
+        private void skip(int n) throws IOException {
+            flush();
+            position += n;
+            channel.position(position);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+            position += 4;
+        }
+
+        private void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+            position += 8;
+        }
+
+        private void putInts(int[] values) throws IOException {
+            for (int v : values) {
+                putInt(v);
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - off);
+                buffer.put(bytes, off, n);
+                off += n;
+            }
+            position += bytes.length;
+        }
+
+        private void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ((Buffer) buffer).clear();
+        }
+    }
+
+}
@@ -0,0 +1,350 @@
+package taintAnalysis.pathGraph;
+
+import taintAnalysis.utility.StronglyConnectedComponents;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * The states of the valid paths from a source in a path graph, grouped into contexts, which are solved
+ * (e.g. counted or searched) callees first.
+ *
+ * A valid path returns from a callee to the call site it has been called from, but may return from the
+ * method of the source to any caller, and may end in a callee it has not returned from. The states of the
+ * paths are nodes of one of three kinds:
+ *  - UNBALANCED states are on a path which has returned from every callee it has called, and may still
+ *    return to any caller;
+ *  - CALLED states are on a path which has called a callee it has not returned from (yet), and only
+ *    returns from a callee through its balanced paths;
+ *  - SUMMARY states are on a balanced path from the entry node of a callee.
+ * The UNBALANCED and CALLED states are in the top context, of the source, and the SUMMARY states are in the
+ * context of the entry node of their callee. The first state of a context is the source or the entry node.
+ * The states of a context are connected by arcs, which are either edges of the graph or returns from a
+ * callee to the call site of a caller state along the balanced paths from the entry node to an exit node of
+ * the callee.
+ *
+ * A context only depends on the contexts it returns from, so the components of the contexts are solved in
+ * reverse topological order of their dependencies, and the components whose callees have all been solved are
+ * solved concurrently when running in a fork-join pool. The results do not depend on the number of threads.
+ *
+ * @param <N> the type of the nodes of the graph
+ */
+public class CallContextGraph<N> {
+
+    public static final int UNBALANCED = 0;
+    public static final int CALLED = 1;
+    public static final int SUMMARY = 2;
+
+    private final IPathGraph<N> graph;
+    private final List<Context<N>> contexts;
+    private final Map<N, Context<N>> calleeContexts;
+
+    /**
+     * Explores the states reachable from a source.
+     *
+     * @param graph     the graph
+     * @param source    the source node
+     */
+    public CallContextGraph(IPathGraph<N> graph, N source) {
+        this.graph = graph;
+        this.contexts = new ArrayList<>();
+        this.calleeContexts = new HashMap<>();
+
+        Deque<int[]> worklist = new ArrayDeque<>();
+        newContext(UNBALANCED, source, worklist);
+        while (!worklist.isEmpty()) {
+            int[] ref = worklist.poll();
+            explore(contexts.get(ref[0]), ref[1], worklist);
+        }
+
+        // Number the components of the contexts, callees first
+        int[][] deps = new int[contexts.size()][];
+        for (Context<N> ctx : contexts) {
+            Set<Integer> callees = new LinkedHashSet<>();
+            for (List<Arc<N>> arcs : ctx.arcs) {
+                for (Arc<N> arc : arcs) {
+                    if (arc.callee != null) {
+                        callees.add(arc.callee.id);
+                    }
+                }
+            }
+            deps[ctx.id] = callees.stream().mapToInt(Integer::intValue).toArray();
+        }
+        int[] comps = StronglyConnectedComponents.compute(deps);
+        for (Context<N> ctx : contexts) {
+            ctx.component = comps[ctx.id];
+        }
+    }
+
+    private Context<N> newContext(int kind, N first, Deque<int[]> worklist) {
+        Context<N> ctx = new Context<>(contexts.size());
+        contexts.add(ctx);
+        ctx.getState(kind, first, worklist);
+        return ctx;
+    }
+
+    private void explore(Context<N> ctx, int id, Deque<int[]> worklist) {
+        int kind = ctx.kinds.get(id);
+        N t = ctx.nodes.get(id);
+        if (graph.isCall(t)) {
+            for (N entry : graph.getSuccessors(t)) {
+                if (kind != SUMMARY) {
+                    // Call the callee without returning from it
+                    ctx.addArc(id, ctx.getState(CALLED, entry, worklist), null, -1);
+                }
+                // Return from the callee along its balanced paths
+                Context<N> callee = calleeContexts.get(entry);
+                if (callee == null) {
+                    callee = newContext(SUMMARY, entry, worklist);
+                    calleeContexts.put(entry, callee);
+                }
+                callee.callers.add(new int[]{ctx.id, id});
+                for (int exit : callee.exits) {
+                    returnFrom(ctx, id, callee, exit, worklist);
+                }
+            }
+        } else if (graph.isExit(t)) {
+            if (kind == UNBALANCED) {
+                // Return to any caller
+                for (N successor : graph.getSuccessors(t)) {
+                    ctx.addArc(id, ctx.getState(UNBALANCED, successor, worklist), null, -1);
+                }
+            } else if (kind == SUMMARY) {
+                ctx.exits.add(id);
+                for (int[] caller : ctx.callers) {
+                    returnFrom(contexts.get(caller[0]), caller[1], ctx, id, worklist);
+                }
+            }
+        } else {
+            // Visit within the same method
+            for (N successor : graph.getSuccessors(t)) {
+                ctx.addArc(id, ctx.getState(kind, successor, worklist), null, -1);
+            }
+        }
+    }
+
+    private void returnFrom(Context<N> ctx, int caller, Context<N> callee, int exit, Deque<int[]> worklist) {
+        N call = ctx.nodes.get(caller);
+        for (N successor : graph.getSuccessors(callee.nodes.get(exit))) {
+            if (graph.isReturnSite(successor, call)) {
+                ctx.addArc(caller, ctx.getState(ctx.kinds.get(caller), successor, worklist), callee, exit);
+            }
+        }
+    }
+
+    public IPathGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the contexts, the top context first, identified by their position.
+     */
+    public List<Context<N>> getContexts() {
+        return contexts;
+    }
+
+    public Context<N> getTopContext() {
+        return contexts.get(0);
+    }
+
+    /**
+     * Solves the components of the contexts callees first, each once all the components it returns from have
+     * been solved, concurrently when called from a fork-join pool.
+     *
+     * @param solver    the solver of a component, given the contexts of the component in order
+     */
+    public void solve(Consumer<List<Context<N>>> solver) {
+        int numOfComps = 0;
+        for (Context<N> ctx : contexts) {
+            numOfComps = Math.max(numOfComps, ctx.component + 1);
+        }
+        List<List<Context<N>>> members = new ArrayList<>(numOfComps);
+        for (int c = 0; c < numOfComps; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (Context<N> ctx : contexts) {
+            members.get(ctx.component).add(ctx);
+        }
+
+        // Components are numbered in reverse topological order, so the callees of a component come first
+        int[] levels = new int[numOfComps];
+        List<List<List<Context<N>>>> byLevel = new ArrayList<>();
+        for (int c = 0; c < numOfComps; c++) {
+            for (Context<N> ctx : members.get(c)) {
+                for (List<Arc<N>> arcs : ctx.arcs) {
+                    for (Arc<N> arc : arcs) {
+                        if (arc.callee != null && arc.callee.component != c) {
+                            levels[c] = Math.max(levels[c], levels[arc.callee.component] + 1);
+                        }
+                    }
+                }
+            }
+            while (byLevel.size() <= levels[c]) {
+                byLevel.add(new ArrayList<>());
+            }
+            byLevel.get(levels[c]).add(members.get(c));
+        }
+
+        for (List<List<Context<N>>> level : byLevel) {
+            if (level.size() > 1 && ForkJoinTask.inForkJoinPool()) {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(level.size());
+                for (List<Context<N>> comp : level) {
+                    tasks.add(ForkJoinTask.adapt(() -> solver.accept(comp)));
+                }
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                for (List<Context<N>> comp : level) {
+                    solver.accept(comp);
+                }
+            }
+        }
+    }
+
+    private static class State<N> {
+        private final int kind;
+        private final N node;
+
+        private State(int kind, N node) {
+            this.kind = kind;
+            this.node = node;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            State<?> state = (State<?>) o;
+            return kind == state.kind && node.equals(state.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind + node.hashCode();
+        }
+    }
+
+    /**
+     * An arc from a state to a state of the same context, along an edge of the graph, or along the balanced
+     * paths of a callee from its entry node to one of its exit nodes.
+     */
+    public static class Arc<N> {
+        private final int from;
+        private final int to;
+        private final Context<N> callee;
+        private final int exit;
+
+        private Arc(int from, int to, Context<N> callee, int exit) {
+            this.from = from;
+            this.to = to;
+            this.callee = callee;
+            this.exit = exit;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        /**
+         * Gets the context of the callee returned from, or null if the arc is an edge of the graph.
+         */
+        public Context<N> getCallee() {
+            return callee;
+        }
+
+        /**
+         * Gets the exit state of the callee returned from.
+         */
+        public int getExit() {
+            return exit;
+        }
+    }
+
+    /**
+     * The states of the paths from the source or from the entry node of a callee, identified by their
+     * position, with their arcs.
+     */
+    public static class Context<N> {
+        private final int id;
+        private final List<Integer> kinds;
+        private final List<N> nodes;
+        private final Map<State<N>, Integer> stateIds;
+        private final List<List<Arc<N>>> arcs;
+        private final List<Integer> exits;
+        private final List<int[]> callers;
+        private int component;
+
+        private Context(int id) {
+            this.id = id;
+            this.kinds = new ArrayList<>();
+            this.nodes = new ArrayList<>();
+            this.stateIds = new HashMap<>();
+            this.arcs = new ArrayList<>();
+            this.exits = new ArrayList<>();
+            this.callers = new ArrayList<>();
+        }
+
+        private int getState(int kind, N node, Deque<int[]> worklist) {
+            State<N> key = new State<>(kind, node);
+            Integer state = stateIds.get(key);
+            if (state == null) {
+                state = nodes.size();
+                stateIds.put(key, state);
+                kinds.add(kind);
+                nodes.add(node);
+                arcs.add(new ArrayList<>(2));
+                worklist.add(new int[]{id, state});
+            }
+            return state;
+        }
+
+        private void addArc(int from, int to, Context<N> callee, int exit) {
+            arcs.get(from).add(new Arc<>(from, to, callee, exit));
+        }
+
+        /**
+         * Gets the position of the context in {@link CallContextGraph#getContexts()}.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Gets the component of the context, the contexts of the same component return from each other.
+         */
+        public int getComponent() {
+            return component;
+        }
+
+        public int getNumOfStates() {
+            return nodes.size();
+        }
+
+        public int getKind(int state) {
+            return kinds.get(state);
+        }
+
+        public N getNode(int state) {
+            return nodes.get(state);
+        }
+
+        /**
+         * Gets the arcs from a state, in the order they have been explored in.
+         */
+        public List<Arc<N>> getArcs(int state) {
+            return arcs.get(state);
+        }
+
+        /**
+         * Gets the exit states of the context, in the order they have been explored in.
+         */
+        public List<Integer> getExits() {
+            return exits;
+        }
+    }
+
+}
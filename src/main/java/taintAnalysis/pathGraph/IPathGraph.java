@@ -0,0 +1,40 @@
+package taintAnalysis.pathGraph;
+
+import java.util.List;
+
+/**
+ * A taint propagation graph that the valid paths from a source to the sinks are searched in, either the
+ * taints of an analysis or a saved taint propagation graph.
+ *
+ * @param <N> the type of the nodes (taints) of the graph
+ */
+public interface IPathGraph<N> {
+
+    /**
+     * Gets the successors of a node, in the order path reconstruction visits them in.
+     */
+    List<N> getSuccessors(N node);
+
+    /**
+     * Gets whether a node is passed to the callees of its statement, in which case its successors are
+     * the entry nodes of the callees.
+     */
+    boolean isCall(N node);
+
+    /**
+     * Gets whether a node is at the exit of its method, in which case its successors are at the call sites
+     * of the method.
+     */
+    boolean isExit(N node);
+
+    boolean isSink(N node);
+
+    /**
+     * Gets whether a successor of an exit node is at the call site of a call node, i.e. whether a path
+     * calling the callee at the call node may return along the successor.
+     */
+    boolean isReturnSite(N successor, N call);
+
+    String toString(N node);
+
+}
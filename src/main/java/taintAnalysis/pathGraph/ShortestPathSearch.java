@@ -0,0 +1,332 @@
+package taintAnalysis.pathGraph;
+
+import assertion.Assert;
+import taintAnalysis.pathGraph.CallContextGraph.Arc;
+import taintAnalysis.pathGraph.CallContextGraph.Context;
+
+import java.util.*;
+
+/**
+ * Searches the shortest valid paths from a source to each sink it reaches in a path graph.
+ *
+ * The states of the valid paths are explored into a {@link CallContextGraph}, in which the balanced paths
+ * through a callee are summarized once per entry node of the callee. The shortest paths of each context are
+ * then found by a Dijkstra search with predecessor pointers, callees first, so that a return from a callee
+ * costs the length of the shortest balanced path to its exit node. The contexts of a cycle of recursive calls
+ * are searched together, relaxing a return from a callee of the cycle once both the call site and the exit
+ * node have been reached. The cost is polynomial in the number of nodes, and the searches of independent
+ * callees run concurrently when running in a fork-join pool.
+ *
+ * In the k-shortest mode, up to k shortest paths without repeated states are searched for each sink,
+ * with the shortest balanced paths through callees, by a second search over the states of the top context.
+ *
+ * @param <N> the type of the nodes of the graph
+ */
+public class ShortestPathSearch<N> {
+
+    private final IPathGraph<N> graph;
+    private final int numOfPaths;
+    private final List<N> sinks;
+    private final Map<N, Integer> distances;
+    private final Map<N, List<List<N>>> paths;
+
+    private int[][] dist;
+    private int[][] pred;
+    private int[][] predArc;
+
+    /**
+     * @param graph         the graph to search
+     * @param numOfPaths    the number of shortest paths to search for each sink
+     */
+    public ShortestPathSearch(IPathGraph<N> graph, int numOfPaths) {
+        Assert.assertTrue(numOfPaths > 0);
+        this.graph = graph;
+        this.numOfPaths = numOfPaths;
+        this.sinks = new ArrayList<>();
+        this.distances = new HashMap<>();
+        this.paths = new HashMap<>();
+    }
+
+    /**
+     * Searches the shortest paths from a source, replacing the results of the previous search.
+     */
+    public void search(N source) {
+        sinks.clear();
+        distances.clear();
+        paths.clear();
+
+        CallContextGraph<N> contexts = new CallContextGraph<>(graph, source);
+        int numOfContexts = contexts.getContexts().size();
+        dist = new int[numOfContexts][];
+        pred = new int[numOfContexts][];
+        predArc = new int[numOfContexts][];
+        contexts.solve(this::search);
+
+        // Order the sinks by the length of their shortest path
+        Context<N> top = contexts.getTopContext();
+        Map<N, Integer> sinkStates = new HashMap<>();
+        for (int s = 0; s < top.getNumOfStates(); s++) {
+            N node = top.getNode(s);
+            if (graph.isSink(node)) {
+                Integer best = sinkStates.get(node);
+                if (best == null || dist[top.getId()][s] < dist[top.getId()][best]) {
+                    sinkStates.put(node, s);
+                }
+            }
+        }
+        for (Map.Entry<N, Integer> e : sinkStates.entrySet()) {
+            distances.put(e.getKey(), dist[top.getId()][e.getValue()]);
+        }
+        sinks.addAll(sinkStates.keySet());
+        sinks.sort(Comparator.comparing((N sink) -> distances.get(sink)).thenComparing(graph::toString));
+        if (numOfPaths == 1) {
+            for (N sink : sinks) {
+                paths.put(sink, Collections.singletonList(getPath(top, sinkStates.get(sink))));
+            }
+        } else {
+            Map<N, List<Label>> sinkLabels = searchShortestPaths(top);
+            for (N sink : sinks) {
+                List<List<N>> sinkPaths = new ArrayList<>();
+                for (Label l : sinkLabels.get(sink)) {
+                    sinkPaths.add(getPath(top, l));
+                }
+                paths.put(sink, sinkPaths);
+            }
+        }
+
+        dist = null;
+        pred = null;
+        predArc = null;
+    }
+
+    /**
+     * Searches the shortest paths from the first state of each context of a component, after the callees
+     * the component returns from have been searched.
+     */
+    private void search(List<Context<N>> comp) {
+        // The contexts of the component are identified by their position in the component
+        int c = comp.get(0).getComponent();
+        Map<Context<N>, Integer> positions = new HashMap<>();
+        boolean[][] settled = new boolean[comp.size()][];
+        for (Context<N> ctx : comp) {
+            dist[ctx.getId()] = new int[ctx.getNumOfStates()];
+            Arrays.fill(dist[ctx.getId()], Integer.MAX_VALUE);
+            pred[ctx.getId()] = new int[ctx.getNumOfStates()];
+            predArc[ctx.getId()] = new int[ctx.getNumOfStates()];
+            settled[positions.size()] = new boolean[ctx.getNumOfStates()];
+            positions.put(ctx, positions.size());
+        }
+
+        // The returns from the contexts of the component, by context and exit state of the callee
+        Map<Long, List<int[]>> recursiveReturns = new HashMap<>();
+        for (Context<N> ctx : comp) {
+            for (int s = 0; s < ctx.getNumOfStates(); s++) {
+                List<Arc<N>> arcs = ctx.getArcs(s);
+                for (int i = 0; i < arcs.size(); i++) {
+                    Context<N> callee = arcs.get(i).getCallee();
+                    if (callee != null && callee.getComponent() == c) {
+                        recursiveReturns.computeIfAbsent(getKey(positions.get(callee), arcs.get(i).getExit()),
+                                k -> new ArrayList<>()).add(new int[]{positions.get(ctx), s, i});
+                    }
+                }
+            }
+        }
+
+        PriorityQueue<Label> queue = new PriorityQueue<>();
+        long seq = 0;
+        for (int p = 0; p < comp.size(); p++) {
+            int id = comp.get(p).getId();
+            dist[id][0] = 0;
+            pred[id][0] = -1;
+            queue.add(new Label(p, 0, 0, seq++, null, null));
+        }
+        while (!queue.isEmpty()) {
+            Label l = queue.poll();
+            int p = l.context;
+            int s = l.state;
+            Context<N> ctx = comp.get(p);
+            if (settled[p][s] || l.dist > dist[ctx.getId()][s]) {
+                continue;
+            }
+            settled[p][s] = true;
+
+            // Return from this exit state to the call sites of the component already reached
+            for (int[] r : recursiveReturns.getOrDefault(getKey(p, s), Collections.emptyList())) {
+                if (settled[r[0]][r[1]]) {
+                    Context<N> caller = comp.get(r[0]);
+                    int to = caller.getArcs(r[1]).get(r[2]).getTo();
+                    int d = dist[caller.getId()][r[1]] + 1 + l.dist + 1;
+                    if (relax(caller.getId(), to, d, r[1], r[2])) {
+                        queue.add(new Label(r[0], to, d, seq++, null, null));
+                    }
+                }
+            }
+
+            List<Arc<N>> arcs = ctx.getArcs(s);
+            for (int i = 0; i < arcs.size(); i++) {
+                Arc<N> arc = arcs.get(i);
+                Context<N> callee = arc.getCallee();
+                if (callee != null && callee.getComponent() == c && !settled[positions.get(callee)][arc.getExit()]) {
+                    // Relaxed once the exit state is reached
+                    continue;
+                }
+                int d = l.dist + getLength(arc);
+                if (relax(ctx.getId(), arc.getTo(), d, s, i)) {
+                    queue.add(new Label(p, arc.getTo(), d, seq++, null, null));
+                }
+            }
+        }
+    }
+
+    private static long getKey(int position, int state) {
+        return ((long) position << 32) | state;
+    }
+
+    private boolean relax(int context, int state, int d, int predecessor, int arc) {
+        if (d < dist[context][state]) {
+            dist[context][state] = d;
+            pred[context][state] = predecessor;
+            predArc[context][state] = arc;
+            return true;
+        }
+        return false;
+    }
+
+    private int getLength(Arc<N> arc) {
+        Context<N> callee = arc.getCallee();
+        return callee == null ? 1 : 1 + dist[callee.getId()][arc.getExit()] + 1;
+    }
+
+    /**
+     * Searches up to k shortest paths to each sink over the states of the top context, after the contexts
+     * have been searched.
+     */
+    private Map<N, List<Label>> searchShortestPaths(Context<N> top) {
+        Map<N, List<Label>> sinkLabels = new HashMap<>();
+        int[] numOfVisits = new int[top.getNumOfStates()];
+        PriorityQueue<Label> queue = new PriorityQueue<>();
+        long seq = 0;
+        queue.add(new Label(0, 0, 0, seq++, null, null));
+        while (!queue.isEmpty()) {
+            Label l = queue.poll();
+            if (numOfVisits[l.state] >= numOfPaths) {
+                continue;
+            }
+            numOfVisits[l.state]++;
+            N node = top.getNode(l.state);
+            if (graph.isSink(node)) {
+                List<Label> labels = sinkLabels.computeIfAbsent(node, k -> new ArrayList<>());
+                if (labels.size() < numOfPaths) {
+                    labels.add(l);
+                }
+            }
+
+            for (Arc<N> arc : top.getArcs(l.state)) {
+                // Only keep paths without repeated states
+                boolean repeated = false;
+                for (Label p = l; p != null && !repeated; p = p.parent) {
+                    repeated = p.state == arc.getTo();
+                }
+                if (!repeated) {
+                    queue.add(new Label(0, arc.getTo(), l.dist + getLength(arc), seq++, l, arc));
+                }
+            }
+        }
+        return sinkLabels;
+    }
+
+    /**
+     * Gets the shortest path to a state along the predecessor pointers, expanding the returns from callees.
+     */
+    private List<N> getPath(Context<N> ctx, int state) {
+        List<N> path = new ArrayList<>();
+        addPath(ctx, state, path);
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void addPath(Context<N> ctx, int state, List<N> reversedPath) {
+        int id = ctx.getId();
+        for (int s = state; s != -1; s = pred[id][s]) {
+            reversedPath.add(ctx.getNode(s));
+            if (pred[id][s] != -1) {
+                addReturn(ctx.getArcs(pred[id][s]).get(predArc[id][s]), reversedPath);
+            }
+        }
+    }
+
+    private void addReturn(Arc<N> arc, List<N> reversedPath) {
+        if (arc.getCallee() != null) {
+            addPath(arc.getCallee(), arc.getExit(), reversedPath);
+        }
+    }
+
+    private List<N> getPath(Context<N> top, Label label) {
+        List<N> path = new ArrayList<>();
+        for (Label l = label; l != null; l = l.parent) {
+            path.add(top.getNode(l.state));
+            if (l.arc != null) {
+                addReturn(l.arc, path);
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    public int getNumOfPaths() {
+        return numOfPaths;
+    }
+
+    /**
+     * Gets the reached sinks, ordered by the length of their shortest path.
+     */
+    public List<N> getSinks() {
+        return sinks;
+    }
+
+    /**
+     * Gets the length of the shortest path to a reached sink, in number of edges.
+     */
+    public int getDistance(N sink) {
+        return distances.get(sink);
+    }
+
+    /**
+     * Gets the shortest paths to a reached sink, from the source to the sink, shortest first.
+     */
+    public List<List<N>> getPaths(N sink) {
+        return paths.get(sink);
+    }
+
+    /**
+     * A state of a context reached by a path of some length, ordered by length and then by insertion order,
+     * with the previous label and the arc from it in the k-shortest mode. The context is identified by its
+     * position in the component searched, or is the top context in the k-shortest mode.
+     */
+    private class Label implements Comparable<Label> {
+        private final int context;
+        private final int state;
+        private final int dist;
+        private final long seq;
+        private final Label parent;
+        private final Arc<N> arc;
+
+        private Label(int context, int state, int dist, long seq, Label parent, Arc<N> arc) {
+            this.context = context;
+            this.state = state;
+            this.dist = dist;
+            this.seq = seq;
+            this.parent = parent;
+            this.arc = arc;
+        }
+
+        @Override
+        public int compareTo(Label o) {
+            if (dist != o.dist) {
+                return Integer.compare(dist, o.dist);
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package taintAnalysis.pathGraph;
+
+import taintAnalysis.Taint;
+import taintAnalysis.utility.PhantomRetStmt;
+
+import java.util.*;
+
+/**
+ * The taints of an analysis as a path graph. The successors of a taint are visited in the order of their
+ * string representations, and are sorted once per graph, so a graph should not be shared between threads.
+ */
+public class TaintPathGraph implements IPathGraph<Taint> {
+
+    private final Map<Taint, List<Taint>> sortedSuccessors;
+
+    public TaintPathGraph() {
+        this.sortedSuccessors = new HashMap<>();
+    }
+
+    @Override
+    public List<Taint> getSuccessors(Taint node) {
+        return sortedSuccessors.computeIfAbsent(node, k -> {
+            List<Taint> successors = new ArrayList<>(k.getSuccessors());
+            successors.sort(Comparator.comparing(Taint::toString));
+            return successors;
+        });
+    }
+
+    @Override
+    public boolean isCall(Taint node) {
+        return node.getTransferType() == Taint.TransferType.Call;
+    }
+
+    @Override
+    public boolean isExit(Taint node) {
+        return node.getStmt() instanceof PhantomRetStmt;
+    }
+
+    @Override
+    public boolean isSink(Taint node) {
+        return node.isSink();
+    }
+
+    @Override
+    public boolean isReturnSite(Taint successor, Taint call) {
+        return successor.getStmt() == call.getStmt();
+    }
+
+    @Override
+    public String toString(Taint node) {
+        return node.toString();
+    }
+
+}
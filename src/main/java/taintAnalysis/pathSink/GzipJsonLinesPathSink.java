@@ -0,0 +1,16 @@
+package taintAnalysis.pathSink;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes each path as a line of JSON like {@link JsonLinesPathSink}, compressed with gzip.
+ */
+public class GzipJsonLinesPathSink extends JsonLinesPathSink {
+
+    public GzipJsonLinesPathSink(String path) throws IOException {
+        super(new GZIPOutputStream(new FileOutputStream(path), BUFFER_SIZE));
+    }
+
+}
@@ -0,0 +1,31 @@
+package taintAnalysis.pathSink;
+
+import taintAnalysis.Taint;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * A consumer of the paths from sources to sinks, which path reconstruction pushes each path to as soon as
+ * it has been found, instead of keeping all paths in memory.
+ */
+public interface IPathSink extends Closeable {
+
+    /**
+     * Accepts a path. Called concurrently for the paths of different sources, and in order for the paths
+     * of the same source.
+     *
+     * @param source    the source taint
+     * @param path      the taints along the path, from the source to the sink, only valid during the call
+     */
+    void accept(Taint source, List<Taint> path);
+
+    /**
+     * Notifies that all paths of a source have been accepted, no path of the source is accepted afterwards.
+     *
+     * @param source    the source taint
+     */
+    default void finish(Taint source) {
+    }
+
+}
@@ -0,0 +1,103 @@
+package taintAnalysis.pathSink;
+
+import taintAnalysis.Taint;
+import taintAnalysis.utility.PhantomIdentityStmt;
+import taintAnalysis.utility.PhantomRetStmt;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes each path as a line of JSON to a buffered output, e.g.
+ * {"source":"...","sink":"...","path":["...","..."]}, where the taints are given by their string
+ * representation and the phantom entry and exit taints of methods are left out, as in the printed results.
+ * The lines of the paths of different sources may be interleaved.
+ */
+public class JsonLinesPathSink implements IPathSink {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private long numOfPaths;
+
+    public JsonLinesPathSink(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.numOfPaths = 0;
+    }
+
+    public JsonLinesPathSink(String path) throws IOException {
+        this(new FileOutputStream(path));
+    }
+
+    @Override
+    public void accept(Taint source, List<Taint> path) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"source\":");
+        appendString(sb, source.toString());
+        sb.append(",\"sink\":");
+        appendString(sb, path.get(path.size() - 1).toString());
+        sb.append(",\"path\":[");
+        boolean first = true;
+        for (Taint t : path) {
+            if (t.getStmt() instanceof PhantomIdentityStmt || t.getStmt() instanceof PhantomRetStmt) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            appendString(sb, t.toString());
+            first = false;
+        }
+        sb.append("]}\n");
+        synchronized (this) {
+            try {
+                writer.write(sb.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            numOfPaths++;
+        }
+    }
+
+    public synchronized long getNumOfPaths() {
+        return numOfPaths;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+}
@@ -0,0 +1,167 @@
+package taintAnalysis.pathSink;
+
+import assertion.Assert;
+import taintAnalysis.Taint;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the paths of each source in a prefix tree over taint ids, in which the paths share the nodes of
+ * their common prefixes, so that the memory is proportional to the number of distinct prefixes instead of
+ * the total length of the paths. A path is kept as its last node, and only materialized as a list of taints
+ * when it is iterated over.
+ *
+ * The ids of the taints are only valid until the next {@link Taint#reset()}.
+ */
+public class PathTrie implements IPathSink {
+
+    private final Map<Taint, Trie> tries;
+
+    public PathTrie() {
+        this.tries = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void accept(Taint source, List<Taint> path) {
+        Trie trie = tries.computeIfAbsent(source, k -> new Trie());
+        synchronized (trie) {
+            trie.add(path);
+        }
+    }
+
+    /**
+     * Gets the paths of a source, in the order they have been accepted in.
+     *
+     * @param source    the source taint
+     * @return A view of the paths, materializing each path when it is accessed
+     */
+    public List<List<Taint>> getPaths(Taint source) {
+        Trie trie = tries.get(source);
+        if (trie == null) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<List<Taint>>() {
+            @Override
+            public List<Taint> get(int index) {
+                synchronized (trie) {
+                    return trie.getPath(index);
+                }
+            }
+
+            @Override
+            public int size() {
+                synchronized (trie) {
+                    return trie.numOfPaths;
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the number of nodes of the prefix trees of all sources.
+     */
+    public long getNumOfNodes() {
+        long n = 0;
+        for (Trie trie : tries.values()) {
+            synchronized (trie) {
+                n += trie.numOfNodes;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void finish(Taint source) {
+        Trie trie = tries.get(source);
+        if (trie != null) {
+            synchronized (trie) {
+                trie.finish();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * The prefix tree of the paths of a source, as arrays of the taint ids and the parents of the nodes.
+     *
+     * While paths are added, the children of a node are indexed as a list of siblings, starting at its first
+     * child. A new child is inserted first, as the paths of a depth-first search mostly extend the prefix
+     * added last. The index is dropped and the arrays are trimmed once the paths of the source are complete.
+     */
+    private static class Trie {
+        private int[] taintIds = new int[16];
+        private int[] parents = new int[16];
+        private int[] firstChildren = new int[16];
+        private int[] nextSiblings = new int[16];
+        private int firstRootChild = -1;
+        private int numOfNodes = 0;
+        private int[] leaves = new int[4];
+        private int numOfPaths = 0;
+
+        private void add(List<Taint> path) {
+            Assert.assertTrue(firstChildren != null);
+            int node = -1;
+            for (Taint t : path) {
+                int id = t.getId();
+                int first = node == -1 ? firstRootChild : firstChildren[node];
+                int child = first;
+                while (child != -1 && taintIds[child] != id) {
+                    child = nextSiblings[child];
+                }
+                if (child == -1) {
+                    child = newNode(id, node, first);
+                    if (node == -1) {
+                        firstRootChild = child;
+                    } else {
+                        firstChildren[node] = child;
+                    }
+                }
+                node = child;
+            }
+            if (numOfPaths == leaves.length) {
+                leaves = Arrays.copyOf(leaves, leaves.length * 2);
+            }
+            leaves[numOfPaths++] = node;
+        }
+
+        private int newNode(int taintId, int parent, int nextSibling) {
+            if (numOfNodes == taintIds.length) {
+                int capacity = taintIds.length * 2;
+                taintIds = Arrays.copyOf(taintIds, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            }
+            taintIds[numOfNodes] = taintId;
+            parents[numOfNodes] = parent;
+            firstChildren[numOfNodes] = -1;
+            nextSiblings[numOfNodes] = nextSibling;
+            return numOfNodes++;
+        }
+
+        private void finish() {
+            firstChildren = null;
+            nextSiblings = null;
+            taintIds = Arrays.copyOf(taintIds, numOfNodes);
+            parents = Arrays.copyOf(parents, numOfNodes);
+            leaves = Arrays.copyOf(leaves, numOfPaths);
+        }
+
+        private List<Taint> getPath(int index) {
+            if (index < 0 || index >= numOfPaths) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numOfPaths);
+            }
+            List<Taint> path = new ArrayList<>();
+            for (int node = leaves[index]; node != -1; node = parents[node]) {
+                path.add(Taint.getTaintById(taintIds[node]));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+}
@@ -0,0 +1,385 @@
+package taintAnalysis.prescan;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * The parts of a class file needed by the {@link SourceClassPrescan}: the name of the class, its direct
+ * supertypes and the methods invoked by its code. A class file is read directly from its bytes,
+ * looking only into the constant pool and the invoke instructions of the code of its methods,
+ * which is much cheaper than having Soot load the class and build its bodies.
+ *
+ * All class names are in the dotted form used by Soot (e.g. java.lang.String).
+ */
+public class ClassFile {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int LOOKUPSWITCH = 0xab;
+    private static final int WIDE = 0xc4;
+    private static final int IINC = 0x84;
+
+    /** Length of each instruction with its operands, 0 for the variable-length ones */
+    private static final int[] INSTRUCTION_LENGTHS = new int[256];
+
+    static {
+        Arrays.fill(INSTRUCTION_LENGTHS, 1);
+        INSTRUCTION_LENGTHS[0x10] = 2;                          // bipush
+        INSTRUCTION_LENGTHS[0x11] = 3;                          // sipush
+        INSTRUCTION_LENGTHS[0x12] = 2;                          // ldc
+        INSTRUCTION_LENGTHS[0x13] = 3;                          // ldc_w
+        INSTRUCTION_LENGTHS[0x14] = 3;                          // ldc2_w
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x15, 0x1a, 2);        // iload .. aload
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x36, 0x3b, 2);        // istore .. astore
+        INSTRUCTION_LENGTHS[IINC] = 3;
+        Arrays.fill(INSTRUCTION_LENGTHS, 0x99, 0xa9, 3);        // ifeq .. jsr
+        INSTRUCTION_LENGTHS[0xa9] = 2;                          // ret
+        INSTRUCTION_LENGTHS[TABLESWITCH] = 0;
+        INSTRUCTION_LENGTHS[LOOKUPSWITCH] = 0;
+        Arrays.fill(INSTRUCTION_LENGTHS, 0xb2, 0xb9, 3);        // getstatic .. invokestatic
+        INSTRUCTION_LENGTHS[INVOKEINTERFACE] = 5;
+        INSTRUCTION_LENGTHS[0xba] = 5;                          // invokedynamic
+        INSTRUCTION_LENGTHS[0xbb] = 3;                          // new
+        INSTRUCTION_LENGTHS[0xbc] = 2;                          // newarray
+        INSTRUCTION_LENGTHS[0xbd] = 3;                          // anewarray
+        INSTRUCTION_LENGTHS[0xc0] = 3;                          // checkcast
+        INSTRUCTION_LENGTHS[0xc1] = 3;                          // instanceof
+        INSTRUCTION_LENGTHS[WIDE] = 0;
+        INSTRUCTION_LENGTHS[0xc5] = 4;                          // multianewarray
+        INSTRUCTION_LENGTHS[0xc6] = 3;                          // ifnull
+        INSTRUCTION_LENGTHS[0xc7] = 3;                          // ifnonnull
+        INSTRUCTION_LENGTHS[0xc8] = 5;                          // goto_w
+        INSTRUCTION_LENGTHS[0xc9] = 5;                          // jsr_w
+    }
+
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final List<MethodRef> invokedMethods;
+
+    private ClassFile(String name, String superName, List<String> interfaces, List<MethodRef> invokedMethods) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.invokedMethods = invokedMethods;
+    }
+
+    /**
+     * Reads a class file.
+     *
+     * @param in    the stream of the bytes of the class file
+     * @return The class file
+     * @throws IOException if the stream cannot be read or does not hold a valid class file
+     */
+    public static ClassFile read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        data.readUnsignedShort();   // minor version
+        data.readUnsignedShort();   // major version
+
+        // Constant pool: keep the UTF-8 strings and the indices referred to by class and member entries
+        int poolSize = data.readUnsignedShort();
+        String[] utf8s = new String[poolSize];
+        int[] tags = new int[poolSize];
+        int[] refs1 = new int[poolSize];
+        int[] refs2 = new int[poolSize];
+        for (int i = 1; i < poolSize; i++) {
+            int tag = data.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8s[i] = data.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    refs1[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    refs1[i] = data.readUnsignedShort();
+                    refs2[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    data.readUnsignedByte();    // reference kind
+                    refs1[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                    data.readInt();
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    data.readLong();
+                    i++;    // takes two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        ConstantPool pool = new ConstantPool(utf8s, tags, refs1, refs2);
+
+        data.readUnsignedShort();   // access flags
+        String name = pool.getClassName(data.readUnsignedShort());
+        int superIdx = data.readUnsignedShort();
+        String superName = superIdx == 0 ? null : pool.getClassName(superIdx);
+        int numOfInterfaces = data.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(numOfInterfaces);
+        for (int i = 0; i < numOfInterfaces; i++) {
+            interfaces.add(pool.getClassName(data.readUnsignedShort()));
+        }
+
+        // Fields
+        int numOfFields = data.readUnsignedShort();
+        for (int i = 0; i < numOfFields; i++) {
+            data.skipBytes(6);      // access flags, name and descriptor
+            skipAttributes(data);
+        }
+
+        // Methods: walk the code of each method for invoke instructions
+        Set<MethodRef> invokedMethods = new LinkedHashSet<>();
+        int numOfMethods = data.readUnsignedShort();
+        for (int i = 0; i < numOfMethods; i++) {
+            data.skipBytes(6);      // access flags, name and descriptor
+            int numOfAttributes = data.readUnsignedShort();
+            for (int j = 0; j < numOfAttributes; j++) {
+                String attributeName = pool.getUtf8(data.readUnsignedShort());
+                int length = data.readInt();
+                byte[] attribute = new byte[length];
+                data.readFully(attribute);
+                if ("Code".equals(attributeName)) {
+                    readCode(attribute, pool, invokedMethods);
+                }
+            }
+        }
+
+        // Method handles, e.g. of method references, invoke methods without an invoke instruction
+        for (int i = 1; i < poolSize; i++) {
+            if (tags[i] == CONSTANT_METHOD_HANDLE) {
+                MethodRef ref = pool.getMethodRef(refs1[i], true);
+                if (ref != null) {
+                    invokedMethods.add(ref);
+                }
+            }
+        }
+
+        return new ClassFile(name, superName, interfaces, new ArrayList<>(invokedMethods));
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        int numOfAttributes = data.readUnsignedShort();
+        for (int i = 0; i < numOfAttributes; i++) {
+            data.skipBytes(2);      // name
+            int length = data.readInt();
+            data.skipBytes(length);
+        }
+    }
+
+    private static void readCode(byte[] attribute, ConstantPool pool, Set<MethodRef> invokedMethods) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(attribute));
+        data.skipBytes(4);          // max stack and max locals
+        int codeLength = data.readInt();
+        byte[] code = new byte[codeLength];
+        data.readFully(code);
+
+        int pc = 0;
+        while (pc < codeLength) {
+            int opcode = code[pc] & 0xff;
+            switch (opcode) {
+                case INVOKEVIRTUAL:
+                case INVOKESPECIAL:
+                case INVOKESTATIC:
+                case INVOKEINTERFACE:
+                    int idx = ((code[pc + 1] & 0xff) << 8) | (code[pc + 2] & 0xff);
+                    MethodRef ref = pool.getMethodRef(idx, opcode == INVOKEVIRTUAL || opcode == INVOKEINTERFACE);
+                    if (ref != null) {
+                        invokedMethods.add(ref);
+                    }
+                    pc += INSTRUCTION_LENGTHS[opcode];
+                    break;
+                case TABLESWITCH: {
+                    int base = (pc + 4) & ~3;   // operands are 4-byte aligned
+                    int low = readInt(code, base + 4);
+                    int high = readInt(code, base + 8);
+                    pc = base + 12 + 4 * (high - low + 1);
+                    break;
+                }
+                case LOOKUPSWITCH: {
+                    int base = (pc + 4) & ~3;
+                    int numOfPairs = readInt(code, base + 4);
+                    pc = base + 8 + 8 * numOfPairs;
+                    break;
+                }
+                case WIDE:
+                    pc += (code[pc + 1] & 0xff) == IINC ? 6 : 4;
+                    break;
+                default:
+                    pc += INSTRUCTION_LENGTHS[opcode];
+                    break;
+            }
+        }
+    }
+
+    private static int readInt(byte[] code, int pos) {
+        return ((code[pos] & 0xff) << 24) | ((code[pos + 1] & 0xff) << 16) |
+                ((code[pos + 2] & 0xff) << 8) | (code[pos + 3] & 0xff);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the name of the direct superclass of the class.
+     *
+     * @return The name of the superclass, or null for java.lang.Object and module descriptors
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Gets the distinct methods invoked by the code of the class, as they are referred to by the
+     * invoke instructions, i.e. with the static type of the receiver as owner rather than the class
+     * declaring the method.
+     *
+     * @return The list of invoked methods
+     */
+    public List<MethodRef> getInvokedMethods() {
+        return invokedMethods;
+    }
+
+    /**
+     * A method referred to by a class file, identified by the name of its owner class and its name,
+     * and whether it is invoked virtually, i.e. may be dispatched to an override in a subclass of its owner.
+     */
+    public static final class MethodRef {
+        private final String owner;
+        private final String name;
+        private final boolean virtual;
+
+        private MethodRef(String owner, String name, boolean virtual) {
+            this.owner = owner;
+            this.name = name;
+            this.virtual = virtual;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isVirtual() {
+            return virtual;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodRef)) return false;
+            MethodRef other = (MethodRef) o;
+            return owner.equals(other.owner) && name.equals(other.name) && virtual == other.virtual;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * owner.hashCode() + name.hashCode()) + (virtual ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return owner + "." + name;
+        }
+    }
+
+    private static final class ConstantPool {
+        private final String[] utf8s;
+        private final int[] tags;
+        private final int[] refs1;
+        private final int[] refs2;
+
+        private ConstantPool(String[] utf8s, int[] tags, int[] refs1, int[] refs2) {
+            this.utf8s = utf8s;
+            this.tags = tags;
+            this.refs1 = refs1;
+            this.refs2 = refs2;
+        }
+
+        private String getUtf8(int idx) throws IOException {
+            if (idx <= 0 || idx >= tags.length || tags[idx] != CONSTANT_UTF8) {
+                throw new IOException("Invalid UTF-8 constant " + idx);
+            }
+            return utf8s[idx];
+        }
+
+        private String getClassName(int idx) throws IOException {
+            if (idx <= 0 || idx >= tags.length || tags[idx] != CONSTANT_CLASS) {
+                throw new IOException("Invalid class constant " + idx);
+            }
+            return getUtf8(refs1[idx]).replace('/', '.');
+        }
+
+        /**
+         * Gets the method referred to by a constant, or null if the constant is not a method reference
+         * or its owner is an array type (e.g. for clone).
+         */
+        private MethodRef getMethodRef(int idx, boolean virtual) throws IOException {
+            if (idx <= 0 || idx >= tags.length ||
+                    (tags[idx] != CONSTANT_METHODREF && tags[idx] != CONSTANT_INTERFACE_METHODREF)) {
+                return null;
+            }
+            int classIdx = refs1[idx];
+            int nameAndTypeIdx = refs2[idx];
+            if (tags[classIdx] != CONSTANT_CLASS || tags[nameAndTypeIdx] != CONSTANT_NAME_AND_TYPE) {
+                throw new IOException("Invalid method constant " + idx);
+            }
+            String owner = getUtf8(refs1[classIdx]);
+            if (owner.startsWith("[")) {
+                return null;
+            }
+            return new MethodRef(owner.replace('/', '.'), getUtf8(refs1[nameAndTypeIdx]), virtual);
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package taintAnalysis.prescan;
+
+import configInterface.ConfigInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds, before Soot loads any class, the classes of the source paths the taint analysis needs to look into,
+ * so that only these classes are loaded as application classes and have their bodies built.
+ *
+ * The class files of the source paths (jars or directories) are read directly (see {@link ClassFile}).
+ * The classes calling a method which may be a getter of the {@link ConfigInterface} seed the scan,
+ * which then adds, transitively:
+ *  - the classes whose methods are invoked by a class of the scan, and for virtual invocations
+ *    their subclasses (to which the invocations may be dispatched);
+ *  - the superclasses and interfaces of a class of the scan (which may declare its invoked methods).
+ * Only classes of the source paths are added, the other classes are left to Soot to load on demand.
+ *
+ * Taints only reach the callers of the seed classes through the methods of the scanned classes, so taints
+ * which flow back into a caller outside of the scan (e.g. through a return value) are not tracked there.
+ */
+public class SourceClassPrescan {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConfigInterface configInterface;
+    private final Map<String, ClassFile> classes;
+    private final Map<String, List<String>> subtypes;
+
+    public SourceClassPrescan(ConfigInterface configInterface) {
+        this.configInterface = configInterface;
+        this.classes = new HashMap<>();
+        this.subtypes = new HashMap<>();
+    }
+
+    /**
+     * Scans the class files of the source paths.
+     *
+     * @param srcPaths  the source paths, each either a jar or a directory of class files
+     * @return The names of the classes to load as application classes
+     * @throws IOException if a source path cannot be read
+     */
+    public Set<String> scan(List<String> srcPaths) throws IOException {
+        classes.clear();
+        subtypes.clear();
+        for (String path : srcPaths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                readDirectory(file);
+            } else {
+                readJar(file);
+            }
+        }
+        for (ClassFile cf : classes.values()) {
+            if (cf.getSuperName() != null) {
+                subtypes.computeIfAbsent(cf.getSuperName(), k -> new ArrayList<>()).add(cf.getName());
+            }
+            for (String itf : cf.getInterfaces()) {
+                subtypes.computeIfAbsent(itf, k -> new ArrayList<>()).add(cf.getName());
+            }
+        }
+
+        Set<String> result = new TreeSet<>();
+        Set<String> withSubtypes = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>();
+        int numOfSeeds = 0;
+        for (ClassFile cf : classes.values()) {
+            if (callsGetter(cf)) {
+                result.add(cf.getName());
+                worklist.add(cf.getName());
+                numOfSeeds++;
+            }
+        }
+        while (!worklist.isEmpty()) {
+            ClassFile cf = classes.get(worklist.poll());
+            for (ClassFile.MethodRef ref : cf.getInvokedMethods()) {
+                if (ref.isVirtual()) {
+                    addWithSubtypes(ref.getOwner(), result, withSubtypes, worklist);
+                } else {
+                    add(ref.getOwner(), result, worklist);
+                }
+            }
+            if (cf.getSuperName() != null) {
+                add(cf.getSuperName(), result, worklist);
+            }
+            for (String itf : cf.getInterfaces()) {
+                add(itf, result, worklist);
+            }
+        }
+
+        logger.info("Prescan: {} of {} classes to load, {} calling getters", result.size(), classes.size(), numOfSeeds);
+        return result;
+    }
+
+    private void readDirectory(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list " + dir);
+        }
+        Arrays.sort(files);
+        for (File f : files) {
+            if (f.isDirectory()) {
+                readDirectory(f);
+            } else if (isClassFile(f.getName())) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(f))) {
+                    readClass(in, f.getPath());
+                }
+            }
+        }
+    }
+
+    private void readJar(File jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && isClassFile(entry.getName())) {
+                    try (InputStream in = new BufferedInputStream(zip.getInputStream(entry))) {
+                        readClass(in, jar + "!" + entry.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.startsWith("META-INF/");
+    }
+
+    private void readClass(InputStream in, String location) {
+        ClassFile cf;
+        try {
+            cf = ClassFile.read(in);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Prescan: skipping unreadable class file {}: {}", location, e.getMessage());
+            return;
+        }
+        // As on a class path, the first class of a name hides the later ones
+        classes.putIfAbsent(cf.getName(), cf);
+    }
+
+    private boolean callsGetter(ClassFile cf) {
+        for (ClassFile.MethodRef ref : cf.getInvokedMethods()) {
+            // The invoked method may be declared by a superclass of its owner
+            String className = ref.getOwner();
+            Set<String> visited = new HashSet<>();
+            while (className != null && visited.add(className)) {
+                if (configInterface.mayBeGetter(className, ref.getName())) {
+                    return true;
+                }
+                ClassFile owner = classes.get(className);
+                className = owner == null ? null : owner.getSuperName();
+            }
+        }
+        return false;
+    }
+
+    private void add(String className, Set<String> result, Deque<String> worklist) {
+        if (classes.containsKey(className) && result.add(className)) {
+            worklist.add(className);
+        }
+    }
+
+    private void addWithSubtypes(String className, Set<String> result, Set<String> withSubtypes,
+                                 Deque<String> worklist) {
+        Deque<String> todo = new ArrayDeque<>();
+        todo.add(className);
+        while (!todo.isEmpty()) {
+            String name = todo.poll();
+            // Classes outside of the source paths (e.g. java.lang.Object) do not bring in their subclasses
+            if (!classes.containsKey(name) || !withSubtypes.add(name)) continue;
+            add(name, result, worklist);
+            todo.addAll(subtypes.getOrDefault(name, Collections.emptyList()));
+        }
+    }
+
+}
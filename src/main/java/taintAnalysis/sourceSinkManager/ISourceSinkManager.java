@@ -20,4 +20,14 @@ public interface ISourceSinkManager {
      */
     boolean isSink(Stmt stmt);
 
+    /**
+     * Gets the name of the configuration option loaded by a source statement
+     *
+     * @param stmt  The source statement
+     * @return The name of the option, or null if it is unknown
+     */
+    default String getConfigName(Stmt stmt) {
+        return null;
+    }
+
 }
@@ -27,6 +27,13 @@ public class SourceSinkManager implements ISourceSinkManager {
         return false;
     }
 
+    @Override
+    public String getConfigName(Stmt stmt) {
+        if (!stmt.containsInvokeExpr())
+            return null;
+        return interfaces.getConfigName(stmt.getInvokeExpr());
+    }
+
     @Override
     public boolean isSink(Stmt stmt)  {
         // external lib calls considered as sink
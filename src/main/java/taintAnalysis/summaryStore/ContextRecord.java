@@ -0,0 +1,99 @@
+package taintAnalysis.summaryStore;
+
+import soot.SootMethod;
+import soot.toolkits.scalar.Pair;
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+/**
+ * Everything the analysis of a (method, entry taint) context adds to the inter-procedural state, besides
+ * its summary: the sources found, the sinks reached, the edges added to the taint propagation graph and
+ * the callee contexts whose summaries have been read. Replaying a record, together with the summary,
+ * has the same effect as analyzing the context.
+ */
+public class ContextRecord {
+
+    private final Taint entryTaint;
+    private final Set<Taint> sources;
+    private final Set<Taint> sinks;
+    private final Set<Pair<Taint, Taint>> edges;
+    private final Set<Pair<SootMethod, Taint>> consumedSummaries;
+    private final Map<Pair<SootMethod, Taint>, Long> summaryDigests;
+    private List<Set<Taint>> summary;
+
+    public ContextRecord(Taint entryTaint) {
+        this.entryTaint = entryTaint;
+        this.sources = new HashSet<>();
+        this.sinks = new HashSet<>();
+        this.edges = new HashSet<>();
+        this.consumedSummaries = new HashSet<>();
+        this.summaryDigests = new HashMap<>();
+    }
+
+    public Taint getEntryTaint() {
+        return entryTaint;
+    }
+
+    public Set<Taint> getSources() {
+        return sources;
+    }
+
+    public Set<Taint> getSinks() {
+        return sinks;
+    }
+
+    /**
+     * Gets the edges added to the taint propagation graph, as (taint, successor) pairs.
+     *
+     * @return The set of edges
+     */
+    public Set<Pair<Taint, Taint>> getEdges() {
+        return edges;
+    }
+
+    public Set<Pair<SootMethod, Taint>> getConsumedSummaries() {
+        return consumedSummaries;
+    }
+
+    /**
+     * Gets the digests (see {@link TaintCodec#digest}) of the summaries of the consumed callee contexts
+     * at the time the record has been written, which are only part of the records read from a store.
+     *
+     * @return The map from the consumed callee contexts to the digests of their summaries
+     */
+    public Map<Pair<SootMethod, Taint>, Long> getSummaryDigests() {
+        return summaryDigests;
+    }
+
+    /**
+     * Gets the summary of the context, which is only part of the records read from a store.
+     * The summary of a recorded context is otherwise taken from the method summaries of the analysis.
+     *
+     * @return The summary list, or null if it is not part of the record
+     */
+    public List<Set<Taint>> getSummary() {
+        return summary;
+    }
+
+    public void setSummary(List<Set<Taint>> summary) {
+        this.summary = summary;
+    }
+
+    public void addEdge(Taint from, Taint to) {
+        edges.add(new Pair<>(from, to));
+    }
+
+    /**
+     * Merges the record of another analysis of the same context into this record.
+     *
+     * @param other the other record
+     */
+    public synchronized void merge(ContextRecord other) {
+        sources.addAll(other.sources);
+        sinks.addAll(other.sinks);
+        edges.addAll(other.edges);
+        consumedSummaries.addAll(other.consumedSummaries);
+    }
+
+}
@@ -0,0 +1,195 @@
+package taintAnalysis.summaryStore;
+
+import soot.Body;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import taintAnalysis.BodyInfoCache;
+import taintAnalysis.CallGraphScheduler;
+
+import java.util.*;
+
+/**
+ * Fingerprints of the analyzed methods, which tell whether the summary of a method recorded in an
+ * earlier run can be reused:
+ *  - the body fingerprint covers the body of the method;
+ *  - the local fingerprint additionally covers the classification of its statements (e.g. sources and
+ *    sinks) and the callees resolved at its call sites, i.e. everything the analysis of the method reads
+ *    besides the summaries of its callees;
+ *  - the callee fingerprint covers the local fingerprints of all methods it transitively calls.
+ * A method has the same summaries as long as its local and callee fingerprints are the same. A method
+ * with the same local fingerprint also has the same summaries if the summaries of its callees are the same.
+ *
+ * The callee fingerprint of a method is the fingerprint of its SCC of the call graph, which covers the
+ * local fingerprints of all methods of the SCC and the fingerprints of the callee SCCs. Callees which are not
+ * analyzed (e.g. library methods) are covered by their signatures in the local fingerprints of their callers.
+ */
+public class MethodFingerprints {
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<SootMethod, Long> bodyFingerprints;
+    private final Map<SootMethod, Long> localFingerprints;
+    private final Map<SootMethod, Long> calleeFingerprints;
+
+    public MethodFingerprints(List<SootMethod> methodList, CallGraphScheduler scheduler,
+                              BodyInfoCache bodyInfoCache) {
+        this.bodyFingerprints = new HashMap<>();
+        this.localFingerprints = new HashMap<>();
+        this.calleeFingerprints = new HashMap<>();
+
+        List<List<SootMethod>> sccs = new ArrayList<>();
+        for (SootMethod sm : methodList) {
+            Body b = sm.getActiveBody();
+            long bodyFingerprint = fingerprint(b);
+            bodyFingerprints.put(sm, bodyFingerprint);
+
+            long h = bodyFingerprint;
+            BodyInfoCache.BodyInfo info = bodyInfoCache.getBodyInfo(b);
+            for (int i = 0; i < b.getUnits().size(); i++) {
+                List<SootMethod> callees = info.getCallees(i);
+                if (info.getKind(i) == 0 && callees.isEmpty()) continue;
+                h = hash(h, i);
+                h = hash(h, info.getKind(i));
+                SortedSet<String> calleeDescriptors = new TreeSet<>();
+                for (SootMethod callee : callees) {
+                    calleeDescriptors.add(callee.getSignature() +
+                            (callee.hasActiveBody() ? " body" : "") +
+                            (callee.getDeclaringClass().isApplicationClass() ? " app" : ""));
+                }
+                for (String callee : calleeDescriptors) {
+                    h = hash(h, callee);
+                }
+            }
+            localFingerprints.put(sm, h);
+
+            int scc = scheduler.getSCC(sm);
+            while (sccs.size() <= scc) {
+                sccs.add(new ArrayList<>());
+            }
+            sccs.get(scc).add(sm);
+        }
+
+        // SCCs are indexed in reverse topological order, so callee SCCs are fingerprinted first
+        long[] sccFingerprints = new long[sccs.size()];
+        for (int scc = 0; scc < sccs.size(); scc++) {
+            List<SootMethod> members = sccs.get(scc);
+            members.sort(Comparator.comparing(SootMethod::getSignature));
+            long h = FNV_OFFSET;
+            SortedSet<Long> calleeSCCs = new TreeSet<>();
+            for (SootMethod sm : members) {
+                h = hash(h, sm.getSignature());
+                h = hash(h, localFingerprints.get(sm));
+                Body b = sm.getActiveBody();
+                BodyInfoCache.BodyInfo info = bodyInfoCache.getBodyInfo(b);
+                for (int i = 0; i < b.getUnits().size(); i++) {
+                    for (SootMethod callee : info.getCallees(i)) {
+                        int calleeSCC = scheduler.getSCC(callee);
+                        if (calleeSCC != -1 && calleeSCC != scc) {
+                            calleeSCCs.add(sccFingerprints[calleeSCC]);
+                        }
+                    }
+                }
+            }
+            for (long calleeSCC : calleeSCCs) {
+                h = hash(h, calleeSCC);
+            }
+            sccFingerprints[scc] = h;
+            for (SootMethod sm : members) {
+                calleeFingerprints.put(sm, h);
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a body from its locals and statements.
+     *
+     * @param b the body
+     * @return The fingerprint of the body
+     */
+    public static long fingerprint(Body b) {
+        long h = hash(FNV_OFFSET, b.getMethod().getSignature());
+        for (Local l : b.getLocals()) {
+            h = hash(h, l.getName());
+            h = hash(h, l.getType().toString());
+        }
+        for (Unit u : b.getUnits()) {
+            h = hash(h, u.toString());
+        }
+        return h;
+    }
+
+    /**
+     * Computes the fingerprint of a list of strings, e.g. the settings of the analysis.
+     *
+     * @param parts the strings
+     * @return The fingerprint of the strings
+     */
+    public static long fingerprint(String... parts) {
+        long h = FNV_OFFSET;
+        for (String part : parts) {
+            h = hash(h, String.valueOf(part));
+        }
+        return h;
+    }
+
+    static long hash(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        // Separate consecutive strings
+        h ^= 0xff;
+        h *= FNV_PRIME;
+        return h;
+    }
+
+    static long hash(long h, long v) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (v >>> (8 * i)) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    static long hash(long h, byte[] bytes) {
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Gets the fingerprint of the body of an analyzed method.
+     *
+     * @param sm    the method
+     * @return The body fingerprint, or null if the method is not analyzed
+     */
+    public Long getBodyFingerprint(SootMethod sm) {
+        return bodyFingerprints.get(sm);
+    }
+
+    /**
+     * Gets the fingerprint of the body, the statement classification and the resolved callees of an
+     * analyzed method.
+     *
+     * @param sm    the method
+     * @return The local fingerprint, or null if the method is not analyzed
+     */
+    public Long getLocalFingerprint(SootMethod sm) {
+        return localFingerprints.get(sm);
+    }
+
+    /**
+     * Gets the fingerprint of the methods an analyzed method transitively calls.
+     *
+     * @param sm    the method
+     * @return The callee fingerprint, or null if the method is not analyzed
+     */
+    public Long getCalleeFingerprint(SootMethod sm) {
+        return calleeFingerprints.get(sm);
+    }
+
+}
@@ -0,0 +1,449 @@
+package taintAnalysis.summaryStore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import soot.SootMethod;
+import soot.toolkits.scalar.Pair;
+import taintAnalysis.Taint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An on-disk store of the records of the analyzed (method, entry taint) contexts of a run, which lets a later
+ * run replay the contexts of the methods whose fingerprints (see {@link MethodFingerprints}) have not changed
+ * instead of analyzing them.
+ *
+ * The store file is memory-mapped, and only its index, which maps the signature of each method to the
+ * fingerprints and the position of its record, is read when the store is opened. The record of a method
+ * is decoded the first time one of its contexts is looked up.
+ *
+ * File format (big-endian):
+ *  - header: magic, version, fingerprint of the analysis settings;
+ *  - method records: the number of contexts, then for each context a table of its taints (see
+ *    {@link TaintCodec}), followed by the entry taint, the summary sets, the sources, the sinks,
+ *    the taint propagation edges and the consumed callee contexts (with the digests of their summaries)
+ *    as indices into the table;
+ *  - index: the number of methods, then for each method its signature, body fingerprint, local fingerprint,
+ *    callee fingerprint, and the offset and length of its record;
+ *  - trailer: the offset of the index.
+ */
+public class SummaryStore {
+
+    private static final int MAGIC = 0x43464c53;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String path;
+    private final long settingsFingerprint;
+    private final TaintCodec codec;
+    private final Map<String, IndexEntry> index;
+    private final Map<SootMethod, Map<Taint, ContextRecord>> decoded;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+
+    /**
+     * Opens a store, whose index is read if the store file exists and has been written with the same settings.
+     *
+     * @param path                  the path of the store file
+     * @param settingsFingerprint   the fingerprint of the settings of the analysis
+     */
+    public SummaryStore(String path, long settingsFingerprint) {
+        this.path = path;
+        this.settingsFingerprint = settingsFingerprint;
+        this.codec = new TaintCodec();
+        this.index = new HashMap<>();
+        this.decoded = new ConcurrentHashMap<>();
+        if (Files.exists(Paths.get(path))) {
+            try {
+                load();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Cannot read summary store {}, starting from an empty store: {}", path, e.getMessage());
+                index.clear();
+                close();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_SIZE + 8) {
+            throw new IOException("Truncated store");
+        }
+        if (size <= Integer.MAX_VALUE) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer header = slice(0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a summary store");
+        }
+        if (header.getInt() != VERSION) {
+            logger.info("Summary store {} has been written by another version, ignoring it", path);
+            close();
+            return;
+        }
+        if (header.getLong() != settingsFingerprint) {
+            logger.info("Summary store {} has been written with different settings, ignoring it", path);
+            close();
+            return;
+        }
+        long indexOffset = slice(size - 8, 8).getLong();
+        ByteBuffer in = slice(indexOffset, size - 8 - indexOffset);
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String signature = TaintCodec.readString(in);
+            index.put(signature, new IndexEntry(in.getLong(), in.getLong(), in.getLong(), in.getLong(), in.getInt()));
+        }
+    }
+
+    private ByteBuffer slice(long offset, long length) throws IOException {
+        if (buffer != null) {
+            // Positioned through Buffer, whose methods return ByteBuffer in later Java versions
+            ByteBuffer b = buffer.duplicate();
+            ((Buffer) b).position((int) offset);
+            ((Buffer) b).limit((int) (offset + length));
+            return b.slice();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /**
+     * Gets the number of methods in the store.
+     *
+     * @return The number of methods
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Checks whether the store has a record of a method whose body, statement classification and resolved
+     * callees are unchanged (see {@link MethodFingerprints}). The recorded contexts of such a method are valid
+     * as long as the summaries of the callee contexts they have consumed are the same.
+     *
+     * @param sm            the method
+     * @param fingerprints  the current fingerprints
+     * @return True if the method has a record with the same body and local fingerprints
+     */
+    public boolean isLocallyUnchanged(SootMethod sm, MethodFingerprints fingerprints) {
+        IndexEntry entry = index.get(sm.getSignature());
+        return entry != null && entry.valid &&
+                matches(entry.bodyFingerprint, fingerprints.getBodyFingerprint(sm)) &&
+                matches(entry.localFingerprint, fingerprints.getLocalFingerprint(sm));
+    }
+
+    /**
+     * Checks whether the store has a record of a method which is unchanged, together with all the methods
+     * it transitively calls. The recorded contexts of such a method are valid.
+     *
+     * @param sm            the method
+     * @param fingerprints  the current fingerprints
+     * @return True if the method has a record with the same fingerprints
+     */
+    public boolean isUnchanged(SootMethod sm, MethodFingerprints fingerprints) {
+        return isLocallyUnchanged(sm, fingerprints) &&
+                matches(index.get(sm.getSignature()).calleeFingerprint, fingerprints.getCalleeFingerprint(sm));
+    }
+
+    /**
+     * Checks a recorded fingerprint against a current one, which is null for a method that is not analyzed.
+     */
+    private static boolean matches(long recorded, Long current) {
+        return current != null && current == recorded;
+    }
+
+    /**
+     * Gets the recorded contexts of a locally unchanged method, decoding its record if not done yet.
+     *
+     * @param sm            the method
+     * @param fingerprints  the current fingerprints
+     * @return The records of the contexts of the method by entry taint, or null if the method has no record
+     *         with the same body and local fingerprints
+     */
+    public Map<Taint, ContextRecord> getRecords(SootMethod sm, MethodFingerprints fingerprints) {
+        if (!isLocallyUnchanged(sm, fingerprints)) {
+            return null;
+        }
+        Map<Taint, ContextRecord> records = decoded.computeIfAbsent(sm, this::decode);
+        return records.isEmpty() ? null : records;
+    }
+
+    private Map<Taint, ContextRecord> decode(SootMethod sm) {
+        IndexEntry entry = index.get(sm.getSignature());
+        Map<Taint, ContextRecord> records = new HashMap<>();
+        try {
+            ByteBuffer in = slice(entry.offset, entry.length);
+            int numOfContexts = in.getInt();
+            for (int c = 0; c < numOfContexts; c++) {
+                Taint[] taints = new Taint[in.getInt()];
+                for (int i = 0; i < taints.length; i++) {
+                    taints[i] = codec.read(sm, in);
+                }
+                ContextRecord record = new ContextRecord(taints[in.getInt()]);
+                List<Set<Taint>> summary = new ArrayList<>();
+                int numOfSets = in.getInt();
+                for (int i = 0; i < numOfSets; i++) {
+                    Set<Taint> set = new LinkedHashSet<>();
+                    readTaints(in, taints, set);
+                    summary.add(set);
+                }
+                record.setSummary(summary);
+                readTaints(in, taints, record.getSources());
+                readTaints(in, taints, record.getSinks());
+                int numOfEdges = in.getInt();
+                for (int i = 0; i < numOfEdges; i++) {
+                    record.addEdge(taints[in.getInt()], taints[in.getInt()]);
+                }
+                int numOfConsumed = in.getInt();
+                for (int i = 0; i < numOfConsumed; i++) {
+                    SootMethod callee = TaintCodec.getMethod(TaintCodec.readString(in));
+                    Pair<SootMethod, Taint> context = new Pair<>(callee, taints[in.getInt()]);
+                    record.getConsumedSummaries().add(context);
+                    record.getSummaryDigests().put(context, in.getLong());
+                }
+                records.put(record.getEntryTaint(), record);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot decode the record of {}: {}", sm, e.getMessage());
+            entry.valid = false;
+            return Collections.emptyMap();
+        }
+        return records;
+    }
+
+    /**
+     * Computes the digest of a summary, to be compared with the digests of the consumed callee contexts
+     * of the records (see {@link ContextRecord#getSummaryDigests()}).
+     *
+     * @param summary   the summary list of a (method, entry taint) context
+     * @param method    the method
+     * @return The digest of the summary
+     */
+    public long digest(List<Set<Taint>> summary, SootMethod method) {
+        return codec.digest(summary, method);
+    }
+
+    /**
+     * Discards the decoded records, whose taints are not valid anymore after {@link Taint#reset()}.
+     */
+    public void clearDecoded() {
+        decoded.clear();
+    }
+
+    private static void readTaints(ByteBuffer in, Taint[] taints, Set<Taint> set) {
+        int n = in.getInt();
+        for (int i = 0; i < n; i++) {
+            set.add(taints[in.getInt()]);
+        }
+    }
+
+    /**
+     * Writes the store file with the records of the current run. The record of an unchanged method which has
+     * not been analyzed in the current run is copied over from the previous store file, the record of any
+     * other method is encoded from the records of its contexts.
+     *
+     * @param methodList        the analyzed methods
+     * @param fingerprints      the fingerprints of the analyzed methods
+     * @param records           the records of the analyzed or replayed contexts, all of which are valid
+     * @param methodSummary     the summaries of the methods
+     * @param analyzedMethods   the methods of which at least one context has been analyzed
+     * @throws IOException if the store file cannot be written
+     */
+    public void save(List<SootMethod> methodList, MethodFingerprints fingerprints,
+                     Map<SootMethod, Map<Taint, ContextRecord>> records,
+                     Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary,
+                     Set<SootMethod> analyzedMethods) throws IOException {
+        Path target = Paths.get(path);
+        Path tmp = Paths.get(path + ".tmp");
+        int numOfCopied = 0;
+        int numOfEncoded = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(HEADER_SIZE);
+            DataOutputStream headerOut = new DataOutputStream(headerBytes);
+            headerOut.writeInt(MAGIC);
+            headerOut.writeInt(VERSION);
+            headerOut.writeLong(settingsFingerprint);
+            writeFully(out, ByteBuffer.wrap(headerBytes.toByteArray()));
+
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+            DataOutputStream indexOut = new DataOutputStream(indexBytes);
+            int count = 0;
+            for (SootMethod sm : methodList) {
+                boolean unchanged = isUnchanged(sm, fingerprints);
+                long offset = out.position();
+                if (!analyzedMethods.contains(sm) && unchanged) {
+                    IndexEntry entry = index.get(sm.getSignature());
+                    writeFully(out, slice(entry.offset, entry.length));
+                    numOfCopied++;
+                } else {
+                    Map<Taint, ContextRecord> contexts = new LinkedHashMap<>();
+                    if (records.containsKey(sm)) {
+                        contexts.putAll(records.get(sm));
+                    }
+                    // Keep the stored contexts of an unchanged method which have not been scheduled in this run
+                    Map<Taint, ContextRecord> stored = unchanged ? getRecords(sm, fingerprints) : null;
+                    if (stored != null) {
+                        stored.forEach(contexts::putIfAbsent);
+                    }
+                    if (contexts.isEmpty()) continue;
+                    byte[] bytes;
+                    try {
+                        bytes = encode(sm, contexts, methodSummary);
+                    } catch (RuntimeException e) {
+                        logger.debug("Cannot encode the record of {}: {}", sm, e.getMessage());
+                        continue;
+                    }
+                    writeFully(out, ByteBuffer.wrap(bytes));
+                    numOfEncoded++;
+                }
+                TaintCodec.writeString(sm.getSignature(), indexOut);
+                indexOut.writeLong(fingerprints.getBodyFingerprint(sm));
+                indexOut.writeLong(fingerprints.getLocalFingerprint(sm));
+                indexOut.writeLong(fingerprints.getCalleeFingerprint(sm));
+                indexOut.writeLong(offset);
+                indexOut.writeInt((int) (out.position() - offset));
+                count++;
+            }
+
+            ByteArrayOutputStream tailBytes = new ByteArrayOutputStream();
+            DataOutputStream tailOut = new DataOutputStream(tailBytes);
+            long indexOffset = out.position();
+            tailOut.writeInt(count);
+            indexOut.flush();
+            indexBytes.writeTo(tailOut);
+            tailOut.writeLong(indexOffset);
+            writeFully(out, ByteBuffer.wrap(tailBytes.toByteArray()));
+        }
+        close();
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Saved summary store {}: {} methods reused, {} methods recorded", path, numOfCopied, numOfEncoded);
+    }
+
+    private byte[] encode(SootMethod sm, Map<Taint, ContextRecord> contexts,
+                          Map<SootMethod, Map<Taint, List<Set<Taint>>>> methodSummary) throws RuntimeException {
+        Map<Taint, List<Set<Taint>>> summaries = methodSummary.get(sm);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(contexts.size());
+            for (ContextRecord record : contexts.values()) {
+                List<Set<Taint>> summary = summaries == null ? null : summaries.get(record.getEntryTaint());
+                if (summary == null) {
+                    summary = record.getSummary() == null ? Collections.emptyList() : record.getSummary();
+                }
+
+                // Table of the taints of the context
+                Map<Taint, Integer> taints = new LinkedHashMap<>();
+                taints.putIfAbsent(record.getEntryTaint(), taints.size());
+                for (Set<Taint> set : summary) {
+                    for (Taint t : set) {
+                        taints.putIfAbsent(t, taints.size());
+                    }
+                }
+                for (Taint t : record.getSources()) {
+                    taints.putIfAbsent(t, taints.size());
+                }
+                for (Taint t : record.getSinks()) {
+                    taints.putIfAbsent(t, taints.size());
+                }
+                for (Pair<Taint, Taint> edge : record.getEdges()) {
+                    taints.putIfAbsent(edge.getO1(), taints.size());
+                    taints.putIfAbsent(edge.getO2(), taints.size());
+                }
+                for (Pair<SootMethod, Taint> callee : record.getConsumedSummaries()) {
+                    taints.putIfAbsent(callee.getO2(), taints.size());
+                }
+                out.writeInt(taints.size());
+                for (Taint t : taints.keySet()) {
+                    codec.write(t, sm, out);
+                }
+
+                out.writeInt(taints.get(record.getEntryTaint()));
+                out.writeInt(summary.size());
+                for (Set<Taint> set : summary) {
+                    writeTaints(set, taints, out);
+                }
+                writeTaints(record.getSources(), taints, out);
+                writeTaints(record.getSinks(), taints, out);
+                out.writeInt(record.getEdges().size());
+                for (Pair<Taint, Taint> edge : record.getEdges()) {
+                    out.writeInt(taints.get(edge.getO1()));
+                    out.writeInt(taints.get(edge.getO2()));
+                }
+                out.writeInt(record.getConsumedSummaries().size());
+                for (Pair<SootMethod, Taint> callee : record.getConsumedSummaries()) {
+                    TaintCodec.writeString(callee.getO1().getSignature(), out);
+                    out.writeInt(taints.get(callee.getO2()));
+                    Map<Taint, List<Set<Taint>>> calleeSummaries = methodSummary.get(callee.getO1());
+                    List<Set<Taint>> calleeSummary = calleeSummaries == null ? null : calleeSummaries.get(callee.getO2());
+                    out.writeLong(calleeSummary != null ? codec.digest(calleeSummary, callee.getO1()) :
+                            record.getSummaryDigests().getOrDefault(callee, 0L));
+                }
+            }
+        } catch (IOException e) {
+            // Not thrown by byte array streams
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeTaints(Set<Taint> set, Map<Taint, Integer> taints, DataOutputStream out)
+            throws IOException {
+        out.writeInt(set.size());
+        for (Taint t : set) {
+            out.writeInt(taints.get(t));
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            out.write(b);
+        }
+    }
+
+    /**
+     * Releases the store file, after which no record can be decoded anymore.
+     */
+    public void close() {
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Cannot close summary store {}: {}", path, e.getMessage());
+            }
+            channel = null;
+        }
+        codec.clear();
+    }
+
+    private static class IndexEntry {
+        private final long bodyFingerprint;
+        private final long localFingerprint;
+        private final long calleeFingerprint;
+        private final long offset;
+        private final int length;
+        private volatile boolean valid = true;
+
+        private IndexEntry(long bodyFingerprint, long localFingerprint, long calleeFingerprint, long offset,
+                           int length) {
+            this.bodyFingerprint = bodyFingerprint;
+            this.localFingerprint = localFingerprint;
+            this.calleeFingerprint = calleeFingerprint;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+}
@@ -0,0 +1,327 @@
+package taintAnalysis.summaryStore;
+
+import soot.*;
+import soot.jimple.Stmt;
+import taintAnalysis.Taint;
+import taintAnalysis.utility.PhantomIdentityStmt;
+import taintAnalysis.utility.PhantomRetStmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes taints by their components relative to the body of their method, so that they can be restored
+ * in a later run in which the body is the same: the statement of a taint by its index in the body, and
+ * its plain value either as a local of the body or by the position of its value box in a statement.
+ *
+ * A taint of a method other than the method whose record is being encoded (e.g. the entry taint of a callee)
+ * is encoded with the signature of its method. The this local and the parameter locals of a body are encoded
+ * by their role, so that the entry taints of a callee are restored even if the callee body has changed.
+ * Decoding fails with an {@link IllegalStateException} if a component cannot be found anymore.
+ */
+public class TaintCodec {
+
+    private static final byte EMPTY_TAINT = 0;
+    private static final byte OWN_METHOD = 1;
+    private static final byte OTHER_METHOD = 2;
+
+    private static final int IDENTITY_STMT = -1;
+    private static final int RET_STMT = -2;
+
+    private static final byte LOCAL = 0;
+    private static final byte VALUE_BOX = 1;
+    private static final byte THIS_LOCAL = 2;
+    private static final byte PARAMETER_LOCAL = 3;
+
+    private static final Taint.TransferType[] TRANSFER_TYPES = Taint.TransferType.values();
+
+    private final Map<Body, BodyIndex> bodyIndices;
+
+    public TaintCodec() {
+        this.bodyIndices = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Writes a taint.
+     *
+     * @param t         the taint
+     * @param method    the method whose record is being encoded
+     * @param out       the output to write to
+     * @throws IOException if the output cannot be written
+     */
+    public void write(Taint t, SootMethod method, DataOutput out) throws IOException {
+        if (t.isEmpty()) {
+            out.writeByte(EMPTY_TAINT);
+            return;
+        }
+        SootMethod sm = t.getMethod();
+        if (sm.equals(method)) {
+            out.writeByte(OWN_METHOD);
+        } else {
+            out.writeByte(OTHER_METHOD);
+            writeString(sm.getSignature(), out);
+        }
+        BodyIndex index = getBodyIndex(sm);
+
+        Stmt stmt = t.getStmt();
+        if (stmt instanceof PhantomIdentityStmt) {
+            out.writeInt(IDENTITY_STMT);
+        } else if (stmt instanceof PhantomRetStmt) {
+            out.writeInt(RET_STMT);
+        } else {
+            out.writeInt(index.indexOf(stmt));
+        }
+
+        Value v = t.getPlainValue();
+        Integer localIdx = v instanceof Local ? index.localIndices.get(v) : null;
+        int paramIdx = index.parameterLocals.indexOf(v);
+        if (v == index.thisLocal) {
+            out.writeByte(THIS_LOCAL);
+        } else if (paramIdx != -1) {
+            out.writeByte(PARAMETER_LOCAL);
+            out.writeInt(paramIdx);
+        } else if (localIdx != null) {
+            out.writeByte(LOCAL);
+            out.writeInt(localIdx);
+        } else {
+            long pos = index.positionOf(v);
+            out.writeByte(VALUE_BOX);
+            out.writeInt((int) (pos >>> 32));
+            out.writeInt((int) pos);
+        }
+
+        writeString(t.getField() == null ? "" : t.getField().getSignature(), out);
+        out.writeByte(t.getTransferType().ordinal());
+    }
+
+    /**
+     * Reads a taint written by {@link #write(Taint, SootMethod, DataOutput)}.
+     *
+     * @param method    the method whose record is being decoded
+     * @param in        the buffer to read from
+     * @return The taint
+     */
+    public Taint read(SootMethod method, ByteBuffer in) {
+        byte kind = in.get();
+        if (kind == EMPTY_TAINT) {
+            return Taint.getEmptyTaint();
+        }
+        SootMethod sm = kind == OWN_METHOD ? method : getMethod(readString(in));
+        BodyIndex index = getBodyIndex(sm);
+
+        int stmtIdx = in.getInt();
+        Stmt stmt;
+        if (stmtIdx == IDENTITY_STMT) {
+            stmt = PhantomIdentityStmt.getInstance(sm);
+        } else if (stmtIdx == RET_STMT) {
+            stmt = PhantomRetStmt.getInstance(sm);
+        } else {
+            stmt = (Stmt) index.getUnit(stmtIdx);
+        }
+
+        Value v;
+        byte valueKind = in.get();
+        if (valueKind == THIS_LOCAL) {
+            v = index.getThisLocal();
+        } else if (valueKind == PARAMETER_LOCAL) {
+            v = index.getParameterLocal(in.getInt());
+        } else if (valueKind == LOCAL) {
+            v = index.getLocal(in.getInt());
+        } else {
+            int unitIdx = in.getInt();
+            int boxIdx = in.getInt();
+            v = index.getValue(unitIdx, boxIdx);
+        }
+
+        String fieldSig = readString(in);
+        SootField field = null;
+        if (!fieldSig.isEmpty()) {
+            field = Scene.v().grabField(fieldSig);
+            if (field == null) {
+                throw new IllegalStateException("Field not found: " + fieldSig);
+            }
+        }
+        int transferType = in.get();
+        if (transferType < 0 || transferType >= TRANSFER_TYPES.length) {
+            throw new IllegalStateException("Invalid transfer type: " + transferType);
+        }
+        return Taint.getTaint(v, field, stmt, sm, TRANSFER_TYPES[transferType]);
+    }
+
+    /**
+     * Computes a digest of a summary of a method from the encodings of its taints, which does not depend
+     * on the order in which the taints have been added to the summary sets.
+     *
+     * @param summary   the summary list of a (method, entry taint) context
+     * @param method    the method
+     * @return The digest of the summary
+     */
+    public long digest(List<Set<Taint>> summary, SootMethod method) {
+        long h = MethodFingerprints.FNV_OFFSET;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Set<Taint> set : summary) {
+            long[] taintHashes = new long[set.size()];
+            int n = 0;
+            for (Taint t : set) {
+                if (n == taintHashes.length) break;
+                bytes.reset();
+                try {
+                    write(t, method, out);
+                } catch (IOException e) {
+                    // Not thrown by byte array streams
+                    throw new IllegalStateException(e);
+                }
+                taintHashes[n++] = MethodFingerprints.hash(MethodFingerprints.FNV_OFFSET, bytes.toByteArray());
+            }
+            Arrays.sort(taintHashes, 0, n);
+            h = MethodFingerprints.hash(h, n);
+            for (int i = 0; i < n; i++) {
+                h = MethodFingerprints.hash(h, taintHashes[i]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Gets an analyzed method by its signature.
+     *
+     * @param signature the signature of the method
+     * @return The method
+     */
+    public static SootMethod getMethod(String signature) {
+        SootMethod sm = Scene.v().grabMethod(signature);
+        if (sm == null || !sm.hasActiveBody()) {
+            throw new IllegalStateException("Method not found: " + signature);
+        }
+        return sm;
+    }
+
+    public static void writeString(String s, DataOutput out) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalStateException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private BodyIndex getBodyIndex(SootMethod sm) {
+        if (!sm.hasActiveBody()) {
+            throw new IllegalStateException("No active body: " + sm);
+        }
+        return bodyIndices.computeIfAbsent(sm.getActiveBody(), BodyIndex::new);
+    }
+
+    public void clear() {
+        bodyIndices.clear();
+    }
+
+    /**
+     * The units and locals of a body by index, and the positions of the values of its value boxes.
+     */
+    private static class BodyIndex {
+        private final Unit[] units;
+        private final Local[] locals;
+        private final Map<Unit, Integer> unitIndices;
+        private final Map<Value, Integer> localIndices;
+        private final Local thisLocal;
+        private final List<Local> parameterLocals;
+        private Map<Value, Long> valuePositions;
+
+        private BodyIndex(Body b) {
+            this.units = b.getUnits().toArray(new Unit[0]);
+            this.locals = b.getLocals().toArray(new Local[0]);
+            this.unitIndices = new HashMap<>(units.length * 2);
+            for (int i = 0; i < units.length; i++) {
+                unitIndices.put(units[i], i);
+            }
+            this.localIndices = new HashMap<>(locals.length * 2);
+            for (int i = 0; i < locals.length; i++) {
+                localIndices.put(locals[i], i);
+            }
+            this.thisLocal = b.getMethod().isStatic() ? null : b.getThisLocal();
+            this.parameterLocals = b.getParameterLocals();
+        }
+
+        private int indexOf(Unit u) {
+            Integer idx = unitIndices.get(u);
+            if (idx == null) {
+                throw new IllegalStateException("Statement not found: " + u);
+            }
+            return idx;
+        }
+
+        private Unit getUnit(int idx) {
+            if (idx < 0 || idx >= units.length) {
+                throw new IllegalStateException("Invalid statement index: " + idx);
+            }
+            return units[idx];
+        }
+
+        private Local getLocal(int idx) {
+            if (idx < 0 || idx >= locals.length) {
+                throw new IllegalStateException("Invalid local index: " + idx);
+            }
+            return locals[idx];
+        }
+
+        private Local getThisLocal() {
+            if (thisLocal == null) {
+                throw new IllegalStateException("No this local");
+            }
+            return thisLocal;
+        }
+
+        private Local getParameterLocal(int idx) {
+            if (idx < 0 || idx >= parameterLocals.size() || parameterLocals.get(idx) == null) {
+                throw new IllegalStateException("Invalid parameter index: " + idx);
+            }
+            return parameterLocals.get(idx);
+        }
+
+        private Value getValue(int unitIdx, int boxIdx) {
+            List<ValueBox> boxes = getUnit(unitIdx).getUseAndDefBoxes();
+            if (boxIdx < 0 || boxIdx >= boxes.size()) {
+                throw new IllegalStateException("Invalid value box index: " + boxIdx);
+            }
+            return boxes.get(boxIdx).getValue();
+        }
+
+        /**
+         * Gets the position of a value as the index of the first statement using or defining it
+         * (upper 32 bits) and the index of its value box in the statement (lower 32 bits).
+         */
+        private synchronized long positionOf(Value v) {
+            if (valuePositions == null) {
+                // Values are looked up by identity, a value object may be shared by several boxes
+                valuePositions = new IdentityHashMap<>();
+                for (int i = 0; i < units.length; i++) {
+                    List<ValueBox> boxes = units[i].getUseAndDefBoxes();
+                    for (int j = 0; j < boxes.size(); j++) {
+                        valuePositions.putIfAbsent(boxes.get(j).getValue(), ((long) i << 32) | j);
+                    }
+                }
+            }
+            Long pos = valuePositions.get(v);
+            if (pos == null) {
+                throw new IllegalStateException("Value not found: " + v);
+            }
+            return pos;
+        }
+    }
+
+}
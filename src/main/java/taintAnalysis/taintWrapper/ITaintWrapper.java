@@ -4,7 +4,6 @@ import soot.SootMethod;
 import soot.jimple.Stmt;
 import taintAnalysis.Taint;
 
-import java.util.Map;
 import java.util.Set;
 
 
@@ -19,12 +18,9 @@ public interface ITaintWrapper {
      * @param caller        The caller method of the invocation statement
      * @param killSet       The kill sets of the invocation statement computed with the provided in-set
      * @param genSet        The gen sets of the invocation statement computed with the provided in-set
-     * @param taintCache    The taint cache of the caller method,
-     *                       used to ensure global uniqueness of generated taint objects
      */
     void genTaintsForMethodInternal(Set<Taint> in, Stmt stmt, SootMethod caller,
-                                    Set<Taint> killSet, Set<Taint> genSet,
-                                    Map<Taint, Taint> taintCache);
+                                    Set<Taint> killSet, Set<Taint> genSet);
 
     /**
      * Checks whether this taint wrapper can in general produce artificial taints
@@ -36,4 +32,11 @@ public interface ITaintWrapper {
      */
     boolean supportsCallee(SootMethod method);
 
+    /**
+     * Computes a fingerprint of the rules this taint wrapper applies, so that results computed under
+     * other rules (e.g. summaries kept in a summary store) are not reused.
+     * @return The fingerprint of the rules
+     */
+    long fingerprint();
+
 }
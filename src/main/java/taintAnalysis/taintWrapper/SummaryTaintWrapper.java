@@ -0,0 +1,266 @@
+package taintAnalysis.taintWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import soot.SootMethod;
+import soot.Value;
+import soot.jimple.AssignStmt;
+import soot.jimple.Constant;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Stmt;
+import taintAnalysis.Taint;
+import taintAnalysis.flowSet.TaintFlowSet;
+import taintAnalysis.summaryStore.MethodFingerprints;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static assertion.Assert.assertNotNull;
+import static assertion.Assert.assertTrue;
+
+/**
+ * Models library methods by summaries generated by analyzing the library bodies once (see
+ * {@link taintAnalysis.LibrarySummaryTransformer}), and the methods without a generated summary by a
+ * hand-written {@link TaintWrapper}, whose rules take precedence over the generated summaries.
+ *
+ * The summary of a method tells which of its slots (base object, return value and parameters, indexed as
+ * in the method summaries: 0: base, 1: retVal, 2+: parameters) get tainted when another slot is tainted.
+ * The summaries are kept in a text file with one line per method, made of the signature of the method and
+ * one tab-separated flow per tainted slot, e.g.
+ *
+ *      &lt;com.google.common.base.Joiner: java.lang.String join(java.lang.Iterable)&gt;  arg0>return  this>return
+ *
+ * Generated summaries only taint, they never kill a taint.
+ */
+public class SummaryTaintWrapper implements ITaintWrapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryTaintWrapper.class);
+
+    private static final int MAX_SLOTS = 64;
+    private static final long[] NO_SUMMARY = new long[0];
+
+    private final Map<String, long[]> summaries;
+    private final TaintWrapper fallback;
+
+    /**
+     * The summaries of the methods looked up so far, {@link #NO_SUMMARY} for methods without one
+     */
+    private final Map<SootMethod, long[]> methodSummaries = new ConcurrentHashMap<>();
+
+    /**
+     * @param summaries the flows of each method by signature, as bitmasks of the tainted slots of each slot
+     * @param fallback  the wrapper of the methods without a generated summary (null for none)
+     */
+    public SummaryTaintWrapper(Map<String, long[]> summaries, TaintWrapper fallback) {
+        this.summaries = summaries;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Loads the summaries of a file written by {@link #write(Map, String)}.
+     *
+     * @param f         the summary file
+     * @param fallback  the wrapper of the methods without a generated summary (null for none)
+     */
+    public SummaryTaintWrapper(String f, TaintWrapper fallback) throws IOException {
+        this(read(f), fallback);
+        logger.info("Loaded generated summaries for {} library methods", summaries.size());
+    }
+
+    private static Map<String, long[]> read(String f) throws IOException {
+        Map<String, long[]> summaries = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(f), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("%"))
+                    continue;
+                String[] parts = line.split("\t");
+                long[] flows = new long[0];
+                for (int i = 1; i < parts.length; i++) {
+                    int sep = parts[i].indexOf('>');
+                    if (sep == -1)
+                        throw new IOException("Malformed summary line: " + line);
+                    int in = parseSlot(parts[i].substring(0, sep));
+                    if (in >= flows.length)
+                        flows = Arrays.copyOf(flows, in + 1);
+                    for (String out : parts[i].substring(sep + 1).split(",")) {
+                        flows[in] |= 1L << parseSlot(out);
+                    }
+                }
+                summaries.put(parts[0], flows);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Writes summaries to a file, ordered by signature.
+     *
+     * @param summaries the flows of each method by signature, as bitmasks of the tainted slots of each slot
+     * @param f         the summary file
+     */
+    public static void write(Map<String, long[]> summaries, String f) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(f), StandardCharsets.UTF_8)))) {
+            writer.println("% Generated library summaries: <signature> followed by the flows from a tainted slot "
+                    + "(this, return, arg<i>) to the slots it taints");
+            for (Map.Entry<String, long[]> e : new TreeMap<>(summaries).entrySet()) {
+                StringBuilder sb = new StringBuilder(e.getKey());
+                long[] flows = e.getValue();
+                for (int in = 0; in < flows.length; in++) {
+                    if (flows[in] == 0)
+                        continue;
+                    sb.append('\t').append(getSlotName(in)).append('>');
+                    String sep = "";
+                    for (int out = 0; out < MAX_SLOTS; out++) {
+                        if ((flows[in] & (1L << out)) != 0) {
+                            sb.append(sep).append(getSlotName(out));
+                            sep = ",";
+                        }
+                    }
+                }
+                writer.println(sb);
+            }
+            if (writer.checkError())
+                throw new IOException("Cannot write " + f);
+        }
+    }
+
+    /**
+     * Gets the number of slots which can be summarized, parameters beyond are ignored
+     */
+    public static int getMaxSlots() {
+        return MAX_SLOTS;
+    }
+
+    private static String getSlotName(int slot) {
+        if (slot == 0)
+            return "this";
+        if (slot == 1)
+            return "return";
+        return "arg" + (slot - 2);
+    }
+
+    private static int parseSlot(String name) throws IOException {
+        int slot;
+        if (name.equals("this")) {
+            slot = 0;
+        } else if (name.equals("return")) {
+            slot = 1;
+        } else if (name.startsWith("arg")) {
+            try {
+                slot = 2 + Integer.parseInt(name.substring(3));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed summary slot: " + name);
+            }
+        } else {
+            throw new IOException("Malformed summary slot: " + name);
+        }
+        if (slot >= MAX_SLOTS)
+            throw new IOException("Summary slot out of range: " + name);
+        return slot;
+    }
+
+    @Override
+    public void genTaintsForMethodInternal(Set<Taint> in, Stmt stmt, SootMethod caller,
+                                           Set<Taint> killSet, Set<Taint> genSet) {
+        assertTrue(stmt.containsInvokeExpr());
+        InvokeExpr invoke = stmt.getInvokeExpr();
+        SootMethod callee = invoke.getMethod();
+        assertNotNull(callee);
+
+        long[] flows = getSummary(callee);
+        if (flows == NO_SUMMARY) {
+            if (fallback != null)
+                fallback.genTaintsForMethodInternal(in, stmt, caller, killSet, genSet);
+            return;
+        }
+
+        // Get the caller values corresponding to the slots
+        Value[] callerVals = new Value[Math.min(invoke.getArgCount() + 2, MAX_SLOTS)];
+        if (invoke instanceof InstanceInvokeExpr) {
+            callerVals[0] = ((InstanceInvokeExpr) invoke).getBase();
+        }
+        if (stmt instanceof AssignStmt) {
+            callerVals[1] = ((AssignStmt) stmt).getLeftOp();
+        }
+        for (int i = 2; i < callerVals.length; i++) {
+            callerVals[i] = invoke.getArg(i - 2);
+        }
+
+        for (int slot = 0; slot < Math.min(flows.length, callerVals.length); slot++) {
+            if (flows[slot] == 0 || callerVals[slot] == null || callerVals[slot] instanceof Constant)
+                continue;
+            Collection<Taint> taints = in instanceof TaintFlowSet ?
+                    ((TaintFlowSet) in).getTaintsOn(callerVals[slot]) : in;
+            for (Taint t : taints) {
+                if (!t.taints(callerVals[slot]))
+                    continue;
+                for (int out = 0; out < callerVals.length; out++) {
+                    Value callerVal = callerVals[out];
+                    if ((flows[slot] & (1L << out)) == 0 || callerVal == null || callerVal instanceof Constant)
+                        continue;
+                    genSet.add(Taint.getTaintFor(t, callerVal, stmt, caller));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsCallee(SootMethod method) {
+        if (!method.getDeclaringClass().isApplicationClass())
+            return true;
+        return false;
+    }
+
+    /**
+     * Computes a fingerprint of the summaries, ordered by signature, and of the rules of the fallback wrapper.
+     */
+    @Override
+    public long fingerprint() {
+        List<String> parts = new ArrayList<>();
+        parts.add(fallback == null ? "" : Long.toHexString(fallback.fingerprint()));
+        for (Map.Entry<String, long[]> e : new TreeMap<>(summaries).entrySet()) {
+            parts.add(e.getKey());
+            long[] flows = e.getValue();
+            // Trailing slots without flows do not change the summary
+            int length = flows.length;
+            while (length > 0 && flows[length - 1] == 0)
+                length--;
+            for (int in = 0; in < length; in++) {
+                parts.add(Long.toHexString(flows[in]));
+            }
+        }
+        return MethodFingerprints.fingerprint(parts.toArray(new String[0]));
+    }
+
+    /**
+     * Gets the summary of a method, unless the fallback wrapper has a rule for it
+     *
+     * @param method      The method to look for
+     * @return The flows of the method, or {@link #NO_SUMMARY}
+     */
+    private long[] getSummary(SootMethod method) {
+        long[] flows = methodSummaries.get(method);
+        if (flows == null) {
+            flows = fallback != null && fallback.isRegistered(method) ?
+                    null : summaries.get(method.getSignature());
+            if (flows == null)
+                flows = NO_SUMMARY;
+            methodSummaries.put(method, flows);
+        }
+        return flows;
+    }
+
+    /**
+     * Gets the number of methods with a generated summary
+     */
+    public int getNumOfSummaries() {
+        return summaries.size();
+    }
+
+}
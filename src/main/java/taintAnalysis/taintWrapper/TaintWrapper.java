@@ -5,13 +5,23 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import soot.SootClass;
 import soot.SootMethod;
 import soot.Value;
 import soot.jimple.AssignStmt;
@@ -19,6 +29,8 @@ import soot.jimple.InstanceInvokeExpr;
 import soot.jimple.InvokeExpr;
 import soot.jimple.Stmt;
 import taintAnalysis.Taint;
+import taintAnalysis.flowSet.TaintFlowSet;
+import taintAnalysis.summaryStore.MethodFingerprints;
 
 import static assertion.Assert.assertNotNull;
 import static assertion.Assert.assertTrue;
@@ -36,6 +48,11 @@ import static assertion.Assert.assertTrue;
  *                  if the base object is tainted or one of the parameter is tainted
  * 4. KillTaint:    kill the taint if the base object is tainted
  * 5. Exclude:      excluded, do nothing
+ *
+ * The lists are compiled into rules by class name and subsignature, and the type of a method is resolved
+ * once per method through its class hierarchy: a method without a rule of its own takes the rule of the
+ * nearest superclass or interface declaring the same subsignature (except constructors and static
+ * initializers), so that a rule of an interface covers all its implementors.
  */
 public class TaintWrapper implements ITaintWrapper {
 
@@ -47,6 +64,16 @@ public class TaintWrapper implements ITaintWrapper {
     private final Set<String> excludeList;
     private final Set<String> killList;
 
+    /**
+     * The rules by subsignature and class name
+     */
+    private final Map<String, Map<String, MethodWrapType>> rules = new HashMap<>();
+
+    /**
+     * The resolved types of the methods looked up so far
+     */
+    private final Map<SootMethod, MethodWrapType> methodWrapTypes = new ConcurrentHashMap<>();
+
     /**
      * The possible effects this taint wrapper can have on a method invocation
      */
@@ -84,6 +111,7 @@ public class TaintWrapper implements ITaintWrapper {
         this.taintBaseList = taintBaseList;
         this.excludeList = excludeList;
         this.killList = killList;
+        compileRules();
     }
 
     public static TaintWrapper getDefault() throws IOException {
@@ -122,6 +150,7 @@ public class TaintWrapper implements ITaintWrapper {
         } finally {
             bufReader.close();
         }
+        compileRules();
     }
 
     public TaintWrapper(TaintWrapper taintWrapper) {
@@ -131,8 +160,7 @@ public class TaintWrapper implements ITaintWrapper {
 
     @Override
     public void genTaintsForMethodInternal(Set<Taint> in, Stmt stmt, SootMethod caller,
-                                           Set<Taint> killSet, Set<Taint> genSet,
-                                           Map<Taint, Taint> taintCache) {
+                                           Set<Taint> killSet, Set<Taint> genSet) {
         assertTrue(stmt.containsInvokeExpr());
         InvokeExpr invoke = stmt.getInvokeExpr();
         SootMethod callee = invoke.getMethod();
@@ -158,7 +186,20 @@ public class TaintWrapper implements ITaintWrapper {
             retVal = ((AssignStmt) stmt).getLeftOp();
         }
 
-        for (Taint t : in) {
+        // Only the taints on the base object or on the arguments can be affected by the invocation
+        Collection<Taint> candidates = in;
+        if (in instanceof TaintFlowSet) {
+            TaintFlowSet flowSet = (TaintFlowSet) in;
+            candidates = new LinkedHashSet<>();
+            if (base != null) {
+                candidates.addAll(flowSet.getTaintsOn(base));
+            }
+            for (int i = 0; i < invoke.getArgCount(); i++) {
+                candidates.addAll(flowSet.getTaintsOn(invoke.getArg(i)));
+            }
+        }
+
+        for (Taint t : candidates) {
             boolean baseTainted = false;
             boolean paramTainted = false;
 
@@ -186,7 +227,7 @@ public class TaintWrapper implements ITaintWrapper {
                     if (t.taints(base)) {
                         killSet.add(t);
                     }
-                    Taint newTaint = Taint.getTaintFor(t, base, stmt, caller, taintCache);
+                    Taint newTaint = Taint.getTaintFor(t, base, stmt, caller);
                     genSet.add(newTaint);
                 }
 
@@ -194,7 +235,7 @@ public class TaintWrapper implements ITaintWrapper {
                 if (retVal != null && (baseTainted ||
                         wrapType == MethodWrapType.TaintBoth ||
                         wrapType == MethodWrapType.TaintReturn)) {
-                    Taint newTaint = Taint.getTaintFor(t, retVal, stmt, caller, taintCache);
+                    Taint newTaint = Taint.getTaintFor(t, retVal, stmt, caller);
                     genSet.add(newTaint);
                 }
             }
@@ -208,6 +249,65 @@ public class TaintWrapper implements ITaintWrapper {
         return false;
     }
 
+    /**
+     * Computes a fingerprint of the sorted entries of the five lists.
+     */
+    @Override
+    public long fingerprint() {
+        List<String> parts = new ArrayList<>();
+        addEntries(parts, "both", taintBothList);
+        addEntries(parts, "return", taintReturnList);
+        addEntries(parts, "base", taintBaseList);
+        addEntries(parts, "exclude", excludeList);
+        addEntries(parts, "kill", killList);
+        return MethodFingerprints.fingerprint(parts.toArray(new String[0]));
+    }
+
+    private static void addEntries(List<String> parts, String listName, Set<String> entries) {
+        parts.add(listName);
+        parts.add(String.valueOf(entries.size()));
+        parts.addAll(new TreeSet<>(entries));
+    }
+
+    /**
+     * Checks whether a method has a rule of its own or of one of its superclasses or interfaces
+     *
+     * @param method      The method to look for
+     * @return True if the taint wrapper has a rule for the method
+     */
+    public boolean isRegistered(SootMethod method) {
+        return getMethodWrapType(method) != MethodWrapType.NotRegistered;
+    }
+
+    /**
+     * Compiles the lists into rules by subsignature and class name, giving precedence to the lists in the
+     * order taint-both, taint-return, taint-base, exclude and kill-taint
+     */
+    private void compileRules() {
+        compileRules(killList, MethodWrapType.KillTaint);
+        compileRules(excludeList, MethodWrapType.Exclude);
+        compileRules(taintBaseList, MethodWrapType.TaintBase);
+        compileRules(taintReturnList, MethodWrapType.TaintReturn);
+        compileRules(taintBothList, MethodWrapType.TaintBoth);
+    }
+
+    private void compileRules(Set<String> signatures, MethodWrapType wrapType) {
+        for (String entry : signatures) {
+            // Entries commented out with '#' are never matched
+            if (entry.startsWith("#"))
+                continue;
+            String sig = entry.trim();
+            int sep = sig.indexOf(": ");
+            if (!sig.startsWith("<") || !sig.endsWith(">") || sep == -1) {
+                logger.warn("Ignoring malformed wrapper entry {}", sig);
+                continue;
+            }
+            String className = sig.substring(1, sep);
+            String subSignature = sig.substring(sep + 2, sig.length() - 1);
+            rules.computeIfAbsent(subSignature, k -> new HashMap<>()).put(className, wrapType);
+        }
+    }
+
     /**
      * Gets the type of action the taint wrapper shall perform on a given method
      *
@@ -215,17 +315,45 @@ public class TaintWrapper implements ITaintWrapper {
      * @return The type of action to be performed on the given method
      */
     private MethodWrapType getMethodWrapType(SootMethod method) {
-        String sig = method.getSignature();
-        if (taintBothList.contains(sig))
-            return MethodWrapType.TaintBoth;
-        if (taintReturnList.contains(sig))
-            return MethodWrapType.TaintReturn;
-        if (taintBaseList.contains(sig))
-            return MethodWrapType.TaintBase;
-        if (excludeList.contains(sig))
-            return MethodWrapType.Exclude;
-        if (killList.contains(sig))
-            return MethodWrapType.KillTaint;
+        MethodWrapType wrapType = methodWrapTypes.get(method);
+        if (wrapType == null) {
+            wrapType = resolveMethodWrapType(method);
+            methodWrapTypes.put(method, wrapType);
+        }
+        return wrapType;
+    }
+
+    /**
+     * Resolves the type of a method from the rule of its class, or else from the rule of the nearest
+     * superclass or interface in breadth-first order
+     */
+    private MethodWrapType resolveMethodWrapType(SootMethod method) {
+        Map<String, MethodWrapType> byClass = rules.get(method.getSubSignature());
+        if (byClass == null)
+            return MethodWrapType.NotRegistered;
+        SootClass cls = method.getDeclaringClass();
+        MethodWrapType wrapType = byClass.get(cls.getName());
+        if (wrapType != null)
+            return wrapType;
+        if (method.isConstructor() || method.isStaticInitializer())
+            return MethodWrapType.NotRegistered;
+
+        Set<SootClass> visited = new HashSet<>();
+        Deque<SootClass> worklist = new ArrayDeque<>();
+        visited.add(cls);
+        worklist.add(cls);
+        while (!worklist.isEmpty()) {
+            SootClass curr = worklist.poll();
+            wrapType = byClass.get(curr.getName());
+            if (wrapType != null)
+                return wrapType;
+            if (curr.hasSuperclass() && visited.add(curr.getSuperclass()))
+                worklist.add(curr.getSuperclass());
+            for (SootClass itf : curr.getInterfaces()) {
+                if (visited.add(itf))
+                    worklist.add(itf);
+            }
+        }
         return MethodWrapType.NotRegistered;
     }
 
@@ -0,0 +1,156 @@
+package taintAnalysis.utility;
+
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+/**
+ * The taints reachable from a set of root taints (e.g. the sources) along their successors, numbered in
+ * breadth-first order from 0, with their successor arrays and their strongly connected components.
+ */
+public class ReachableTaintGraph {
+
+    private final List<Taint> taints;
+    private final Map<Taint, Integer> indices;
+    private final int[][] succ;
+    private final int[] comps;
+    private final int[][] members;
+
+    /**
+     * @param roots the taints to start from, which are numbered first in order
+     */
+    public ReachableTaintGraph(Collection<Taint> roots) {
+        this.taints = new ArrayList<>();
+        this.indices = new HashMap<>();
+        Deque<Taint> worklist = new ArrayDeque<>();
+        for (Taint root : roots) {
+            if (!indices.containsKey(root)) {
+                indices.put(root, taints.size());
+                taints.add(root);
+                worklist.add(root);
+            }
+        }
+        while (!worklist.isEmpty()) {
+            for (Taint successor : worklist.poll().getSuccessors()) {
+                if (!indices.containsKey(successor)) {
+                    indices.put(successor, taints.size());
+                    taints.add(successor);
+                    worklist.add(successor);
+                }
+            }
+        }
+
+        int n = taints.size();
+        this.succ = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Set<Taint> successors = taints.get(i).getSuccessors();
+            succ[i] = new int[successors.size()];
+            int j = 0;
+            for (Taint successor : successors) {
+                succ[i][j++] = indices.get(successor);
+            }
+        }
+
+        this.comps = StronglyConnectedComponents.compute(succ);
+        this.members = StronglyConnectedComponents.getMembers(comps);
+    }
+
+    /**
+     * Gets the number of reachable taints.
+     */
+    public int size() {
+        return taints.size();
+    }
+
+    public Taint getTaint(int i) {
+        return taints.get(i);
+    }
+
+    /**
+     * Gets the number of a taint, or -1 if it is not reachable from the roots.
+     */
+    public int indexOf(Taint t) {
+        return indices.getOrDefault(t, -1);
+    }
+
+    /**
+     * Gets the numbers of the successors of a taint.
+     */
+    public int[] getSuccessors(int i) {
+        return succ[i];
+    }
+
+    /**
+     * Gets the numbers of the successors of every taint.
+     */
+    public int[][] getSuccessors() {
+        return succ;
+    }
+
+    /**
+     * Gets the component of a taint. Components are numbered in reverse topological order, i.e. the
+     * successors of a component come first.
+     */
+    public int getComponent(int i) {
+        return comps[i];
+    }
+
+    /**
+     * Gets the component of every taint.
+     */
+    public int[] getComponents() {
+        return comps;
+    }
+
+    public int getNumOfComponents() {
+        return members.length;
+    }
+
+    /**
+     * Gets the numbers of the taints of a component, in increasing order.
+     */
+    public int[] getMembers(int c) {
+        return members[c];
+    }
+
+    /**
+     * Gets the numbers of the taints of every component, in increasing order.
+     */
+    public int[][] getMembers() {
+        return members;
+    }
+
+    /**
+     * Estimates the number of taints reachable from each component, as its size plus the estimates of the
+     * components it has edges to, without the cost of a search per component. A component reachable along
+     * several paths is counted once per path, so the estimates are upper bounds, and saturate at
+     * {@link Long#MAX_VALUE}.
+     *
+     * @return The estimate of each component
+     */
+    public long[] estimateReachableSizes() {
+        long[] sizes = new long[members.length];
+        int[] lastSeen = new int[members.length];
+        Arrays.fill(lastSeen, -1);
+        // Components are numbered in reverse topological order, so the successors of a component come first
+        for (int c = 0; c < members.length; c++) {
+            long size = members[c].length;
+            lastSeen[c] = c;
+            for (int v : members[c]) {
+                for (int w : succ[v]) {
+                    int d = comps[w];
+                    if (lastSeen[d] != c) {
+                        lastSeen[d] = c;
+                        size += sizes[d];
+                        if (size < 0) {
+                            size = Long.MAX_VALUE;
+                        }
+                    }
+                }
+            }
+            sizes[c] = size;
+        }
+        return sizes;
+    }
+
+}
@@ -0,0 +1,142 @@
+package taintAnalysis.utility;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Strongly connected components of graphs given as successor arrays of int nodes.
+ */
+public class StronglyConnectedComponents {
+
+    /**
+     * Computes the strongly connected components of a graph (iterative Tarjan's algorithm).
+     *
+     * @param succ  the successors of each node
+     * @return The component of each node, numbered in reverse topological order
+     */
+    public static int[] compute(int[][] succ) {
+        int n = succ.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] comp = new int[n];
+        int[] edgePos = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callStack = new int[n];
+        int csp = 0;
+        int nextIndex = 0;
+        int nextComp = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            callStack[csp++] = root;
+            index[root] = low[root] = nextIndex++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgePos[v] < succ[v].length) {
+                    int w = succ[v][edgePos[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = nextIndex++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    csp--;
+                    if (csp > 0) {
+                        int u = callStack[csp - 1];
+                        low[u] = Math.min(low[u], low[v]);
+                    }
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            comp[w] = nextComp;
+                        } while (w != v);
+                        nextComp++;
+                    }
+                }
+            }
+        }
+        return comp;
+    }
+
+    /**
+     * Gets the number of components of a result of {@link #compute(int[][])}.
+     */
+    public static int getNumOfComponents(int[] comps) {
+        int n = 0;
+        for (int c : comps) {
+            n = Math.max(n, c + 1);
+        }
+        return n;
+    }
+
+    /**
+     * Gets the nodes of each component of a result of {@link #compute(int[][])}.
+     *
+     * @return The nodes of each component, in increasing order
+     */
+    public static int[][] getMembers(int[] comps) {
+        int numOfComps = getNumOfComponents(comps);
+        int[] sizes = new int[numOfComps];
+        for (int c : comps) {
+            sizes[c]++;
+        }
+        int[][] members = new int[numOfComps][];
+        for (int c = 0; c < numOfComps; c++) {
+            members[c] = new int[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int i = 0; i < comps.length; i++) {
+            members[comps[i]][sizes[comps[i]]++] = i;
+        }
+        return members;
+    }
+
+    /**
+     * Propagates bitmaps along the edges between the components of a graph, once per component in
+     * topological order, so that the bitmap of a component becomes the union of its own bitmap and of the
+     * bitmaps of the components it is reachable from.
+     *
+     * @param succ      the successors of each node
+     * @param comps     the component of each node, as computed by {@link #compute(int[][])}
+     * @param members   the nodes of each component, as computed by {@link #getMembers(int[])}
+     * @param bits      the bitmap of each component (null if empty), updated in place
+     * @param keep      whether the bitmap of each component is kept, the others are set to null once they
+     *                  have been propagated
+     */
+    public static void propagate(int[][] succ, int[] comps, int[][] members, BitSet[] bits, boolean[] keep) {
+        // Components are numbered in reverse topological order, so the predecessors of a component come first
+        for (int c = members.length - 1; c >= 0; c--) {
+            BitSet b = bits[c];
+            if (b == null) {
+                continue;
+            }
+            for (int v : members[c]) {
+                for (int w : succ[v]) {
+                    int d = comps[w];
+                    if (d == c) {
+                        continue;
+                    }
+                    if (bits[d] == null) {
+                        bits[d] = new BitSet();
+                    }
+                    bits[d].or(b);
+                }
+            }
+            if (!keep[c]) {
+                bits[c] = null;
+            }
+        }
+    }
+
+}
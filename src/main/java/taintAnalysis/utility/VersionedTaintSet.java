@@ -0,0 +1,98 @@
+package taintAnalysis.utility;
+
+import taintAnalysis.Taint;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A grow-only set of taints that remembers the order in which taints have been added.
+ * The version of the set is its size, so that a reader who has seen version v of the set
+ * can consume exactly the taints added since then by {@link #get(int)} with indices v to
+ * {@link #getVersion()} - 1. Used for method summaries, which never shrink.
+ *
+ * Adding is synchronized, while reading is lock-free and safe to run concurrently with adding.
+ */
+public class VersionedTaintSet extends AbstractSet<Taint> {
+
+    private final Set<Taint> members;
+    private volatile Taint[] log;
+    private volatile int version;
+
+    public VersionedTaintSet() {
+        this.members = ConcurrentHashMap.newKeySet();
+        this.log = new Taint[4];
+        this.version = 0;
+    }
+
+    @Override
+    public synchronized boolean add(Taint taint) {
+        if (!members.add(taint)) {
+            return false;
+        }
+        Taint[] arr = log;
+        if (version == arr.length) {
+            arr = Arrays.copyOf(arr, arr.length * 2);
+            log = arr;
+        }
+        arr[version] = taint;
+        version = version + 1;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return members.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return version;
+    }
+
+    /**
+     * Gets the current version of the set, i.e. the number of taints added so far.
+     *
+     * @return The current version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the taint added at a given position.
+     *
+     * @param idx   the position, which must be smaller than a version previously read from this set
+     * @return The taint added at the given position
+     */
+    public Taint get(int idx) {
+        return log[idx];
+    }
+
+    @Override
+    public Iterator<Taint> iterator() {
+        final int end = version;
+        final Taint[] arr = log;
+        return new Iterator<Taint>() {
+            private int idx = 0;
+
+            @Override
+            public boolean hasNext() {
+                return idx < end;
+            }
+
+            @Override
+            public Taint next() {
+                if (idx >= end) {
+                    throw new NoSuchElementException();
+                }
+                return arr[idx++];
+            }
+        };
+    }
+
+}
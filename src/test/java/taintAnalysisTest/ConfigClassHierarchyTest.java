@@ -0,0 +1,126 @@
+package taintAnalysisTest;
+
+import configInterface.ConfigClassHierarchy;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+
+/**
+ * Checks the configuration classes of scenes made of classes mirroring the Hadoop configuration classes.
+ */
+public class ConfigClassHierarchyTest extends TaintAnalysisTest {
+
+    private static final String CONFIGURATION = "org.apache.hadoop.conf.Configuration";
+
+    private SootClass object;
+
+    @Before
+    public void resetScene() {
+        G.reset();
+        object = addClass("java.lang.Object", null, Modifier.PUBLIC);
+    }
+
+    @Test
+    public void testDeeperSubclasses() {
+        SootClass conf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        SootClass jobConf = addClass("org.apache.hadoop.mapred.JobConf", conf, Modifier.PUBLIC);
+        SootClass deepConf = addClass("org.example.DeepJobConf", jobConf, Modifier.PUBLIC);
+        SootClass other = addClass("org.example.Other", object, Modifier.PUBLIC);
+
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy(CONFIGURATION);
+        Assert.assertTrue(hierarchy.isConfigClass(conf));
+        Assert.assertTrue(hierarchy.isConfigClass(jobConf));
+        Assert.assertTrue(hierarchy.isConfigClass(deepConf));
+        Assert.assertFalse(hierarchy.isConfigClass(other));
+        Assert.assertFalse(hierarchy.isConfigClass(object));
+    }
+
+    @Test
+    public void testImplementers() {
+        SootClass configurable = addClass("org.apache.hadoop.conf.Configurable", null,
+                Modifier.PUBLIC | Modifier.INTERFACE);
+        SootClass subInterface = addClass("org.example.SubConfigurable", null,
+                Modifier.PUBLIC | Modifier.INTERFACE, configurable);
+        SootClass impl = addClass("org.example.ConfiguredImpl", object, Modifier.PUBLIC, subInterface);
+        SootClass subImpl = addClass("org.example.SubConfiguredImpl", impl, Modifier.PUBLIC);
+
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy("org.apache.hadoop.conf.Configurable");
+        Assert.assertTrue(hierarchy.isConfigClass(configurable));
+        Assert.assertTrue(hierarchy.isConfigClass(impl));
+        Assert.assertTrue(hierarchy.isConfigClass(subImpl));
+    }
+
+    @Test
+    public void testNestedClassesDoNotMatch() {
+        SootClass conf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        SootClass nested = addClass(CONFIGURATION + "$IntegerRanges", object, Modifier.PUBLIC);
+        SootClass prefixed = addClass(CONFIGURATION + "Printer", object, Modifier.PUBLIC);
+        SootClass nestedSub = addClass("org.apache.hadoop.mapred.JobConf$Nested", conf, Modifier.PUBLIC);
+
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy(CONFIGURATION);
+        Assert.assertFalse(hierarchy.isConfigClass(nested));
+        Assert.assertFalse(hierarchy.isConfigClass(prefixed));
+        // A nested class is only a configuration class by inheritance
+        Assert.assertTrue(hierarchy.isConfigClass(nestedSub));
+    }
+
+    @Test
+    public void testPhantomConfigClass() {
+        SootClass conf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        conf.setPhantomClass();
+        SootClass jobConf = addClass("org.apache.hadoop.mapred.JobConf", conf, Modifier.PUBLIC);
+
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy(CONFIGURATION);
+        Assert.assertTrue(hierarchy.isConfigClass(conf));
+        Assert.assertTrue(hierarchy.isConfigClass(jobConf));
+    }
+
+    @Test
+    public void testConfigClassAbsentAtSnapshot() {
+        SootClass other = addClass("org.example.Other", object, Modifier.PUBLIC);
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy(CONFIGURATION);
+        Assert.assertFalse(hierarchy.isConfigClass(other));
+
+        // Created as a phantom class once the snapshot has been taken, it is matched by its name only
+        SootClass conf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        conf.setPhantomClass();
+        SootClass jobConf = addClass("org.apache.hadoop.mapred.JobConf", conf, Modifier.PUBLIC);
+        Assert.assertTrue(hierarchy.isConfigClass(conf));
+        Assert.assertFalse(hierarchy.isConfigClass(jobConf));
+        Assert.assertFalse(hierarchy.isConfigClass(other));
+    }
+
+    @Test
+    public void testNewScene() {
+        ConfigClassHierarchy hierarchy = new ConfigClassHierarchy(CONFIGURATION);
+        SootClass conf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        SootClass jobConf = addClass("org.apache.hadoop.mapred.JobConf", conf, Modifier.PUBLIC);
+        Assert.assertTrue(hierarchy.isConfigClass(jobConf));
+
+        // The classes of the new scene are looked up in a new snapshot, in which JobConf is not a subclass
+        resetScene();
+        SootClass newConf = addClass(CONFIGURATION, object, Modifier.PUBLIC);
+        SootClass newJobConf = addClass("org.apache.hadoop.mapred.JobConf", object, Modifier.PUBLIC);
+        Assert.assertTrue(hierarchy.isConfigClass(newConf));
+        Assert.assertFalse(hierarchy.isConfigClass(newJobConf));
+        Assert.assertFalse(hierarchy.isConfigClass(jobConf));
+    }
+
+    private static SootClass addClass(String name, SootClass superclass, int modifiers, SootClass... interfaces) {
+        SootClass cls = new SootClass(name, modifiers);
+        if (superclass != null) {
+            cls.setSuperclass(superclass);
+        }
+        for (SootClass itf : interfaces) {
+            cls.addInterface(itf);
+        }
+        Scene.v().addClass(cls);
+        cls.setApplicationClass();
+        return cls;
+    }
+
+}
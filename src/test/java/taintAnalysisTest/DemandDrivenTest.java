@@ -0,0 +1,42 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DemandDrivenTest extends TaintAnalysisTest {
+
+    @Test
+    public void testDemandDrivenMatchesExhaustive() {
+        InterAnalysisTransformer exhaustive = runInterTaintAnalysis(driver -> driver.setDemandDriven(false));
+        List<String> paths = getPaths(exhaustive);
+        List<String> summaries = getNonEmptySummaries(exhaustive);
+        Assert.assertFalse(paths.isEmpty());
+        Assert.assertFalse(summaries.isEmpty());
+
+        InterAnalysisTransformer demandDriven = runInterTaintAnalysis(driver -> driver.setDemandDriven(true));
+        Assert.assertEquals(getSources(exhaustive), getSources(demandDriven));
+        Assert.assertEquals(getSinks(exhaustive), getSinks(demandDriven));
+        Assert.assertEquals(paths, getPaths(demandDriven));
+        // Methods never reached by a taint have no summary in demand-driven mode
+        Assert.assertEquals(summaries, getNonEmptySummaries(demandDriven));
+        Assert.assertTrue(getSummaries(demandDriven).size() < getSummaries(exhaustive).size());
+    }
+
+    /**
+     * Gets the summaries in which some taint reaches the exit of the method.
+     */
+    private static List<String> getNonEmptySummaries(InterAnalysisTransformer transformer) {
+        List<String> nonEmpty = new ArrayList<>();
+        for (String line : getSummaries(transformer)) {
+            if (!line.substring(line.indexOf(" => ")).matches(" => \\[(\\[\\](, )?)*\\]")) {
+                nonEmpty.add(line);
+            }
+        }
+        return nonEmpty;
+    }
+
+}
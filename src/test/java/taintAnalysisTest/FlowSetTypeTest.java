@@ -0,0 +1,42 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.flowSet.FlowSetType;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import utility.Config;
+
+import java.util.List;
+
+public class FlowSetTypeTest extends TaintAnalysisTest {
+
+    @Test
+    public void testBitsetFlowSetsMatchHashFlowSets() {
+        InterAnalysisTransformer hash = run(FlowSetType.HASH);
+        List<String> hashSources = getSources(hash);
+        List<String> hashSinks = getSinks(hash);
+        List<String> hashSummaries = getSummaries(hash);
+        Assert.assertFalse(hashSources.isEmpty());
+        Assert.assertFalse(hashSinks.isEmpty());
+        Assert.assertFalse(hashSummaries.isEmpty());
+
+        InterAnalysisTransformer bitset = run(FlowSetType.BITSET);
+        Assert.assertEquals(hashSources, getSources(bitset));
+        Assert.assertEquals(hashSinks, getSinks(bitset));
+        Assert.assertEquals(hashSummaries, getSummaries(bitset));
+    }
+
+    private static InterAnalysisTransformer run(FlowSetType flowSetType) {
+        String[] cfg = Config.getCfg("test");
+        List<String> srcPaths = Config.getSourcePaths(cfg);
+        List<String> classPaths = Config.getClassPaths(cfg);
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(cfg));
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager);
+        driver.setFlowSetType(flowSetType);
+        return driver.runInterTaintAnalysis(srcPaths, classPaths, false);
+    }
+
+}
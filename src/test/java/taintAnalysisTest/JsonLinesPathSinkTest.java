@@ -0,0 +1,102 @@
+package taintAnalysisTest;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.Taint;
+import taintAnalysis.utility.PhantomIdentityStmt;
+import taintAnalysis.utility.PhantomRetStmt;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Checks that the paths streamed to a JSON lines file are the paths kept in memory otherwise.
+ */
+public class JsonLinesPathSinkTest extends TaintAnalysisTest {
+
+    private static List<String> expected;
+    private static File file;
+    private static File gzipFile;
+
+    @BeforeClass
+    public static void analyze() throws IOException {
+        InterAnalysisTransformer transformer = runInterTaintAnalysis(driver -> { });
+        expected = new ArrayList<>();
+        for (Map.Entry<Taint, List<List<Taint>>> e : transformer.getPathsMap().entrySet()) {
+            for (List<Taint> path : e.getValue()) {
+                expected.add(toJson(e.getKey(), path));
+            }
+        }
+        Collections.sort(expected);
+
+        file = File.createTempFile("paths", ".jsonl");
+        gzipFile = File.createTempFile("paths", ".jsonl.gz");
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        file.delete();
+        gzipFile.delete();
+    }
+
+    @Test
+    public void testJsonLines() throws IOException {
+        runInterTaintAnalysis(driver -> driver.setPathOutputPath(file.getPath()));
+        try (InputStream in = new FileInputStream(file)) {
+            assertLines(in);
+        }
+    }
+
+    @Test
+    public void testGzipJsonLines() throws IOException {
+        runInterTaintAnalysis(driver -> driver.setPathOutputPath(gzipFile.getPath()));
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gzipFile))) {
+            assertLines(in);
+        }
+    }
+
+    /**
+     * Asserts that a file has one line per path kept in memory, the lines of different sources being
+     * interleaved in any order.
+     */
+    private static void assertLines(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        Collections.sort(lines);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.size(), lines.size());
+        Assert.assertEquals(expected, lines);
+
+        // The quotes of the string constants of the statements are escaped
+        boolean escaped = false;
+        for (String l : lines) {
+            escaped |= l.contains("(\\\"hadoop.tmp.dir\\\")");
+        }
+        Assert.assertTrue(escaped);
+    }
+
+    private static String toJson(Taint source, List<Taint> path) {
+        List<String> taints = new ArrayList<>();
+        for (Taint t : path) {
+            if (!(t.getStmt() instanceof PhantomIdentityStmt) && !(t.getStmt() instanceof PhantomRetStmt)) {
+                taints.add(quote(t.toString()));
+            }
+        }
+        return "{\"source\":" + quote(source.toString()) + ",\"sink\":" + quote(path.get(path.size() - 1).toString()) +
+                ",\"path\":[" + String.join(",", taints) + "]}";
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
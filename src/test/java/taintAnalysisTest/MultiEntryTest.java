@@ -0,0 +1,25 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+
+import java.util.List;
+
+public class MultiEntryTest extends TaintAnalysisTest {
+
+    @Test
+    public void testMultiEntryMatchesSingleEntry() {
+        InterAnalysisTransformer singleEntry = runInterTaintAnalysis(driver -> driver.setMultiEntry(false));
+        List<String> sinks = getSinks(singleEntry);
+        List<String> summaries = getSummaries(singleEntry);
+        Assert.assertFalse(sinks.isEmpty());
+        Assert.assertFalse(summaries.isEmpty());
+
+        InterAnalysisTransformer multiEntry = runInterTaintAnalysis(driver -> driver.setMultiEntry(true));
+        Assert.assertEquals(getSources(singleEntry), getSources(multiEntry));
+        Assert.assertEquals(sinks, getSinks(multiEntry));
+        Assert.assertEquals(summaries, getSummaries(multiEntry));
+    }
+
+}
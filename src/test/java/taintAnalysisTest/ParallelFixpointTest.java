@@ -0,0 +1,26 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+
+import java.util.List;
+
+public class ParallelFixpointTest extends TaintAnalysisTest {
+
+    @Test
+    public void testParallelFixpointMatchesSequentialFixpoint() {
+        InterAnalysisTransformer sequential = runInterTaintAnalysis(driver -> driver.setNumOfThreads(1));
+        List<String> sources = getSources(sequential);
+        List<String> sinks = getSinks(sequential);
+        List<String> summaries = getSummaries(sequential);
+        Assert.assertFalse(sources.isEmpty());
+        Assert.assertFalse(sinks.isEmpty());
+
+        InterAnalysisTransformer parallel = runInterTaintAnalysis(driver -> driver.setNumOfThreads(4));
+        Assert.assertEquals(sources, getSources(parallel));
+        Assert.assertEquals(sinks, getSinks(parallel));
+        Assert.assertEquals(summaries, getSummaries(parallel));
+    }
+
+}
@@ -0,0 +1,86 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.PathCounter;
+import taintAnalysis.Taint;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import utility.Config;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class PathCounterTest extends TaintAnalysisTest {
+
+    private static final String FIXTURE = "PathCountTest";
+
+    private static final Map<String, Taint> sources = new HashMap<>();
+
+    @BeforeClass
+    public static void analyze() {
+        String[] cfg = Config.getCfg("test");
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(cfg));
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager);
+        InterAnalysisTransformer transformer = driver.runInterTaintAnalysis(
+                Config.getSourcePaths(cfg), Config.getClassPaths(cfg), false);
+        for (Taint t : transformer.getSources()) {
+            if (t.getMethod().getDeclaringClass().getName().equals(FIXTURE)) {
+                Assert.assertNull(sources.put(t.getMethod().getName(), t));
+            }
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("branch", "loop", "twice")), sources.keySet());
+    }
+
+    @Test
+    public void testBranchesAreCountedSeparately() {
+        // Through id or through copy
+        Assert.assertEquals(Collections.singletonList(2L), count("branch"));
+    }
+
+    @Test
+    public void testLoopIsCountedOnce() {
+        // Skipping the loop, or through id in the loop, however many times it iterates
+        Assert.assertEquals(Collections.singletonList(2L), count("loop"));
+    }
+
+    @Test
+    public void testCalleeReturnsToItsCallSite() {
+        // id is called from two call sites, a path returning from the first call to the second call site is
+        // not counted
+        Assert.assertEquals(Collections.singletonList(1L), count("twice"));
+    }
+
+    @Test
+    public void testCountsDoNotDependOnThreads() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String method : sources.keySet()) {
+                PathCounter counter = new PathCounter(sources.get(method));
+                pool.invoke(ForkJoinTask.adapt(counter::call));
+                Assert.assertEquals(count(method), new ArrayList<>(counter.getCounts().values()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts the paths from the source of a fixture method to each sink it reaches, in the order of the sinks.
+     */
+    private static List<Long> count(String method) {
+        Taint source = sources.get(method);
+        PathCounter counter = new PathCounter(source);
+        counter.count(source);
+        for (Taint sink : counter.getSinks()) {
+            Assert.assertTrue(sink.isSink());
+            Assert.assertEquals(source.getMethod(), sink.getMethod());
+        }
+        return new ArrayList<>(counter.getCounts().values());
+    }
+
+}
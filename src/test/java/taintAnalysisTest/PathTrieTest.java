@@ -0,0 +1,106 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.Taint;
+import taintAnalysis.pathSink.PathTrie;
+
+import java.util.*;
+
+public class PathTrieTest extends TaintAnalysisTest {
+
+    private static List<Taint> taints;
+
+    @BeforeClass
+    public static void analyze() {
+        // The trie does not check the edges of the paths, any interned taints will do
+        runInterTaintAnalysis(driver -> { });
+        taints = new ArrayList<>();
+        for (int id = 0; id < Taint.getNumOfIds(); id++) {
+            taints.add(Taint.getTaintById(id));
+        }
+        Assert.assertTrue(taints.size() > 100);
+    }
+
+    @Test
+    public void testPathsSharePrefixes() {
+        Taint source = taints.get(0);
+        List<List<Taint>> paths = Arrays.asList(
+                path(0, 1, 2, 3),
+                path(0, 1, 2, 4),
+                // A prefix of an earlier path, the same path again, and a prefix of a later path
+                path(0, 1),
+                path(0, 1, 2, 4),
+                path(0, 5),
+                path(0, 5, 1, 2),
+                // Not starting with the source
+                path(6, 1));
+        PathTrie trie = new PathTrie();
+        for (List<Taint> path : paths) {
+            trie.accept(source, path);
+        }
+        Assert.assertEquals(paths, trie.getPaths(source));
+        // 0, 1, 2, 3, 4, 5, 5 -> 1, 5 -> 1 -> 2, 6, 6 -> 1
+        Assert.assertEquals(10, trie.getNumOfNodes());
+
+        trie.finish(source);
+        Assert.assertEquals(paths, trie.getPaths(source));
+        Assert.assertEquals(10, trie.getNumOfNodes());
+    }
+
+    @Test
+    public void testManySiblings() {
+        Taint source = taints.get(0);
+        List<List<Taint>> paths = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            paths.add(path(0, i));
+        }
+        for (int i = 100; i >= 1; i--) {
+            paths.add(path(0, i, 0));
+        }
+        PathTrie trie = new PathTrie();
+        for (List<Taint> path : paths) {
+            trie.accept(source, path);
+        }
+        trie.finish(source);
+        Assert.assertEquals(paths, trie.getPaths(source));
+        Assert.assertEquals(1 + 100 + 100, trie.getNumOfNodes());
+    }
+
+    @Test
+    public void testSourcesAreKeptApart() {
+        Taint source1 = taints.get(1);
+        Taint source2 = taints.get(2);
+        PathTrie trie = new PathTrie();
+        trie.accept(source1, path(1, 3));
+        trie.accept(source2, path(2, 3));
+        trie.accept(source1, path(1, 4));
+        // The paths of the other source are still added after one is finished
+        trie.finish(source1);
+        trie.accept(source2, path(2, 3, 4));
+        trie.finish(source2);
+
+        Assert.assertEquals(Arrays.asList(path(1, 3), path(1, 4)), trie.getPaths(source1));
+        Assert.assertEquals(Arrays.asList(path(2, 3), path(2, 3, 4)), trie.getPaths(source2));
+        Assert.assertEquals(Collections.emptyList(), trie.getPaths(taints.get(3)));
+        Assert.assertEquals(3 + 3, trie.getNumOfNodes());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        Taint source = taints.get(0);
+        PathTrie trie = new PathTrie();
+        trie.accept(source, path(0, 1));
+        trie.getPaths(source).get(1);
+    }
+
+    private static List<Taint> path(int... ids) {
+        List<Taint> path = new ArrayList<>();
+        for (int id : ids) {
+            path.add(taints.get(id));
+        }
+        return path;
+    }
+
+}
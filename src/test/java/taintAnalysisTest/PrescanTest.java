@@ -0,0 +1,92 @@
+package taintAnalysisTest;
+
+import configInterface.TestInterface;
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.prescan.ClassFile;
+import taintAnalysis.prescan.SourceClassPrescan;
+import utility.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class PrescanTest extends TaintAnalysisTest {
+
+    @Test
+    public void testInvokedMethodsAfterSwitches() throws IOException {
+        // The switches are padded by 2, 0 and 1 bytes, and the last method starts with a wide iinc
+        ClassFile cf = readClass("SwitchTest");
+        Assert.assertEquals("SwitchTest", cf.getName());
+        Assert.assertEquals("java.lang.Object", cf.getSuperName());
+        Assert.assertEquals(Collections.emptyList(), cf.getInterfaces());
+        Assert.assertEquals(Arrays.asList("java.lang.Object.<init>",
+                "SwitchTest.source", "SwitchTest.table1", "SwitchTest.table2",
+                "SwitchTest.lookup10", "SwitchTest.lookup1000", "SwitchTest.lookupDefault",
+                "SwitchTest.negated0", "SwitchTest.negated1", "SwitchTest.negated2",
+                "SwitchTest.afterWide"), toStrings(cf.getInvokedMethods()));
+        for (ClassFile.MethodRef ref : cf.getInvokedMethods()) {
+            Assert.assertFalse(ref.toString(), ref.isVirtual());
+        }
+    }
+
+    @Test
+    public void testInvokedMethodsOwnedByStaticType() throws IOException {
+        ClassFile cf = readClass("InterTaintTest");
+        Assert.assertEquals(Arrays.asList("java.lang.Object.<init>", "Car.<init>", "Vehicle.dynamicBinding1",
+                "Vehicle.dynamicBinding2", "Cat.<init>", "Cat.dynamicBinding"), toStrings(cf.getInvokedMethods()));
+        Set<String> virtual = new TreeSet<>();
+        for (ClassFile.MethodRef ref : cf.getInvokedMethods()) {
+            if (ref.isVirtual()) {
+                virtual.add(ref.toString());
+            }
+        }
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("Vehicle.dynamicBinding1", "Vehicle.dynamicBinding2",
+                "Cat.dynamicBinding")), virtual);
+
+        cf = readClass("Car");
+        Assert.assertEquals("Vehicle", cf.getSuperName());
+        cf = readClass("Cat");
+        Assert.assertEquals(Collections.singletonList("Animal"), cf.getInterfaces());
+    }
+
+    @Test
+    public void testScanClosure() throws IOException {
+        SourceClassPrescan prescan = new SourceClassPrescan(new TestInterface());
+        Set<String> classes = prescan.scan(Collections.singletonList(Config.TEST_PATH));
+        Assert.assertEquals(new TreeSet<>(Arrays.asList(
+                // The classes calling source
+                "Car", "Cat", "ComplexContextSensitivityTest", "ConditionalFlowTest", "ContextSensitivityTest",
+                "NestedFieldTest", "PathCountTest", "RecursiveCallTest", "ShortestPathTest",
+                "SimpleInterAnalysisTest", "SimpleIntraAnalysisTest", "SinkFixture", "SwitchTest",
+                "TaintWrapperTest", "Vehicle",
+                // Invoked by them
+                "Book", "SinkFixture$Node",
+                // Implemented by Cat
+                "Animal")), classes);
+        // Neither calls source nor is invoked by a class calling it
+        Assert.assertFalse(classes.contains("InterTaintTest"));
+        Assert.assertFalse(classes.contains("MainClass"));
+    }
+
+    private static ClassFile readClass(String name) throws IOException {
+        try (ZipFile jar = new ZipFile(Config.TEST_PATH)) {
+            ZipEntry entry = jar.getEntry(name + ".class");
+            Assert.assertNotNull(name, entry);
+            try (InputStream in = jar.getInputStream(entry)) {
+                return ClassFile.read(in);
+            }
+        }
+    }
+
+    private static List<String> toStrings(List<ClassFile.MethodRef> refs) {
+        List<String> strings = new ArrayList<>();
+        for (ClassFile.MethodRef ref : refs) {
+            strings.add(ref.toString());
+        }
+        return strings;
+    }
+
+}
@@ -0,0 +1,39 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+public class PrunePathsTest extends TaintAnalysisTest {
+
+    @Test
+    public void testPrunedPathsMatchUnpruned() {
+        // No source of the fixtures reaches the threshold of the search, so the paths are the same
+        InterAnalysisTransformer unpruned = runInterTaintAnalysis(driver -> driver.setPrunePaths(false));
+        Map<String, List<String>> paths = getPathsBySource(unpruned);
+        Assert.assertFalse(getPaths(unpruned).isEmpty());
+
+        InterAnalysisTransformer pruned = runInterTaintAnalysis(driver -> driver.setPrunePaths(true));
+        Assert.assertEquals(getSinks(unpruned), getSinks(pruned));
+        Assert.assertEquals(paths, getPathsBySource(pruned));
+    }
+
+    /**
+     * Gets the paths of each source, in the order they have been found in.
+     */
+    private static Map<String, List<String>> getPathsBySource(InterAnalysisTransformer transformer) {
+        Map<String, List<String>> paths = new TreeMap<>();
+        for (Map.Entry<Taint, List<List<Taint>>> e : transformer.getPathsMap().entrySet()) {
+            List<String> lines = new ArrayList<>();
+            for (List<Taint> path : e.getValue()) {
+                lines.add(path.toString());
+            }
+            Assert.assertNull(paths.put(e.getKey().toString(), lines));
+        }
+        return paths;
+    }
+
+}
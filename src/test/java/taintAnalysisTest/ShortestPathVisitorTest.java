@@ -0,0 +1,124 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import soot.jimple.Stmt;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.ShortestPathVisitor;
+import taintAnalysis.Taint;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import taintAnalysis.utility.PhantomRetStmt;
+import utility.Config;
+
+import java.util.*;
+
+public class ShortestPathVisitorTest extends TaintAnalysisTest {
+
+    private static final String FIXTURE = "ShortestPathTest";
+
+    private static Taint source;
+
+    @BeforeClass
+    public static void analyze() {
+        String[] cfg = Config.getCfg("test");
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(cfg));
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager);
+        InterAnalysisTransformer transformer = driver.runInterTaintAnalysis(
+                Config.getSourcePaths(cfg), Config.getClassPaths(cfg), false);
+        for (Taint t : transformer.getSources()) {
+            if (t.getMethod().getDeclaringClass().getName().equals(FIXTURE)) {
+                Assert.assertNull(source);
+                source = t;
+            }
+        }
+        Assert.assertNotNull(source);
+    }
+
+    @Test
+    public void testShortestPathReturnsToEachCallSite() {
+        ShortestPathVisitor visitor = new ShortestPathVisitor(source);
+        visitor.visit(source);
+        Map<String, List<List<Taint>>> paths = getPathsBySink(visitor);
+        Assert.assertEquals(2, paths.size());
+
+        // id is called twice in a row, a path returning from the first call to the second call site is invalid
+        List<List<Taint>> idPaths = paths.get("r3");
+        Assert.assertEquals(1, idPaths.size());
+        Assert.assertEquals(Arrays.asList("run", "run", "id", "id", "run", "run", "id", "id", "run", "run"),
+                getMethodNames(idPaths.get(0)));
+        assertReturnsMatched(idPaths.get(0));
+
+        // The shortest path returns from the base case of repeat without recursing
+        List<List<Taint>> repeatPaths = paths.get("r6");
+        Assert.assertEquals(1, repeatPaths.size());
+        Assert.assertEquals(Arrays.asList("run", "run", "id", "id", "run", "run", "repeat", "repeat", "run", "run"),
+                getMethodNames(repeatPaths.get(0)));
+        assertReturnsMatched(repeatPaths.get(0));
+    }
+
+    @Test
+    public void testShortestPathsThroughRecursiveCall() {
+        ShortestPathVisitor visitor = new ShortestPathVisitor(source, 3);
+        visitor.visit(source);
+        Map<String, List<List<Taint>>> paths = getPathsBySink(visitor);
+        Assert.assertEquals(2, paths.size());
+        Assert.assertEquals(1, paths.get("r3").size());
+
+        // The second path recurses once, returning to the recursive call site before returning to run
+        List<List<Taint>> repeatPaths = paths.get("r6");
+        Assert.assertEquals(2, repeatPaths.size());
+        Assert.assertEquals(Arrays.asList("run", "run", "id", "id", "run", "run", "repeat", "repeat", "run", "run"),
+                getMethodNames(repeatPaths.get(0)));
+        Assert.assertEquals(Arrays.asList("run", "run", "id", "id", "run", "run", "repeat", "repeat", "repeat",
+                "repeat", "repeat", "repeat", "run", "run"), getMethodNames(repeatPaths.get(1)));
+        for (List<List<Taint>> sinkPaths : paths.values()) {
+            for (List<Taint> path : sinkPaths) {
+                assertReturnsMatched(path);
+            }
+        }
+    }
+
+    /**
+     * Groups the paths found by a visitor by the value of their sink, in the order they have been found in.
+     */
+    private static Map<String, List<List<Taint>>> getPathsBySink(ShortestPathVisitor visitor) {
+        Map<String, List<List<Taint>>> paths = new HashMap<>();
+        for (List<Taint> path : visitor.getPaths()) {
+            Assert.assertSame(source, path.get(0));
+            Taint sink = path.get(path.size() - 1);
+            Assert.assertTrue(sink.isSink());
+            paths.computeIfAbsent(sink.getPlainValue().toString(), k -> new ArrayList<>()).add(path);
+        }
+        return paths;
+    }
+
+    private static List<String> getMethodNames(List<Taint> path) {
+        List<String> names = new ArrayList<>();
+        for (Taint t : path) {
+            names.add(t.getMethod().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Asserts that every return of a path is to the call site of the matching call, and that the path returns
+     * from every callee it calls, as the sinks of the fixture are in the method of the source.
+     */
+    private static void assertReturnsMatched(List<Taint> path) {
+        Deque<Stmt> callSites = new ArrayDeque<>();
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Taint t = path.get(i);
+            if (t.getTransferType() == Taint.TransferType.Call) {
+                callSites.push(t.getStmt());
+            } else if (t.getStmt() instanceof PhantomRetStmt) {
+                Assert.assertFalse(callSites.isEmpty());
+                Assert.assertSame(callSites.pop(), path.get(i + 1).getStmt());
+            }
+        }
+        Assert.assertTrue(callSites.isEmpty());
+    }
+
+}
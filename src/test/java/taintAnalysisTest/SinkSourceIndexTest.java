@@ -0,0 +1,110 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.SinkSourceIndex;
+import taintAnalysis.Taint;
+
+import java.util.*;
+
+public class SinkSourceIndexTest extends TaintAnalysisTest {
+
+    private static final String FILE_SINK = "<java.io.File: void <init>(java.lang.String)>";
+    private static final String SHORTEST_PATH_SOURCE = "r1 in r1 = specialinvoke r0.<ShortestPathTest: java.lang.String source()>() in method <ShortestPathTest: java.io.File run()>";
+    private static final String HADOOP_TMP_DIR_SOURCE = "r1 in r1 = specialinvoke r0.<SinkFixture: java.lang.String source(java.lang.String)>(\"hadoop.tmp.dir\") in method <SinkFixture: java.io.File openTwice()>";
+
+    private static InterAnalysisTransformer transformer;
+    private static SinkSourceIndex index;
+
+    @BeforeClass
+    public static void analyze() {
+        transformer = runInterTaintAnalysis(driver -> { });
+        List<Taint> sources = new ArrayList<>(transformer.getSources());
+        sources.sort(Comparator.comparing(Taint::toString));
+        index = new SinkSourceIndex(sources, getNamingSourceSinkManager());
+    }
+
+    @Test
+    public void testSourcesOfSink() {
+        Taint sink = getSink("r3 in specialinvoke $r4.<java.io.File: void <init>(java.lang.String)>(r3) in method <ShortestPathTest: java.io.File run()>");
+        Assert.assertEquals(Collections.singletonList(SHORTEST_PATH_SOURCE), toStrings(index.getSources(sink)));
+        Assert.assertEquals(Collections.singleton("ShortestPathTest.option"), index.getOptions(sink));
+        BitSet bits = index.getSourceBits(sink);
+        Assert.assertEquals(1, bits.cardinality());
+        Assert.assertEquals(SHORTEST_PATH_SOURCE, index.getSources().get(bits.nextSetBit(0)).toString());
+
+        // A source without an option name is named after itself
+        sink = getSink("r3 in specialinvoke $r4.<java.io.File: void <init>(java.lang.String)>(r3) in method <SinkFixture: java.io.File openTwice()>");
+        Assert.assertEquals(Collections.singletonList(HADOOP_TMP_DIR_SOURCE), toStrings(index.getSources(sink)));
+        Assert.assertEquals(Collections.singleton(HADOOP_TMP_DIR_SOURCE), index.getOptions(sink));
+    }
+
+    @Test
+    public void testSourcesOverApproximateValidPaths() {
+        // The three sources of PathCountTest call id, whose return reaches the call sites of the other sources
+        Taint sink = getSink("r3 in specialinvoke $r4.<java.io.File: void <init>(java.lang.String)>(r3) in method <PathCountTest: void twice()>");
+        Assert.assertEquals(Arrays.asList(
+                "r1 in r1 = specialinvoke r0.<PathCountTest: java.lang.String source()>() in method <PathCountTest: void branch(boolean)>",
+                "r1 in r1 = specialinvoke r0.<PathCountTest: java.lang.String source()>() in method <PathCountTest: void twice()>",
+                "r2 in r2 = specialinvoke r0.<PathCountTest: java.lang.String source()>() in method <PathCountTest: void loop(int)>"),
+                toStrings(index.getSources(sink)));
+        Assert.assertEquals(Collections.singleton("PathCountTest.option"), index.getOptions(sink));
+
+        // Only the source of twice has a valid path to its sink
+        Set<String> pathSources = new TreeSet<>();
+        for (Map.Entry<Taint, List<List<Taint>>> e : transformer.getPathsMap().entrySet()) {
+            for (List<Taint> path : e.getValue()) {
+                if (path.get(path.size() - 1) == sink) {
+                    pathSources.add(e.getKey().toString());
+                }
+            }
+        }
+        Assert.assertEquals(Collections.singleton(
+                "r1 in r1 = specialinvoke r0.<PathCountTest: java.lang.String source()>() in method <PathCountTest: void twice()>"),
+                pathSources);
+    }
+
+    @Test
+    public void testSinksOfPaths() {
+        // Every path ends at an indexed sink reached by the source of the path
+        int numOfPaths = 0;
+        for (Map.Entry<Taint, List<List<Taint>>> e : transformer.getPathsMap().entrySet()) {
+            for (List<Taint> path : e.getValue()) {
+                Taint sink = path.get(path.size() - 1);
+                Assert.assertTrue(index.getSinks().contains(sink));
+                Assert.assertTrue(index.getSources(sink).contains(e.getKey()));
+                numOfPaths++;
+            }
+        }
+        Assert.assertTrue(numOfPaths > 0);
+    }
+
+    @Test
+    public void testOptionsOfSinkMethod() {
+        Assert.assertEquals(Collections.singleton(FILE_SINK), index.getSinkMethods());
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("PathCountTest.option", "ShortestPathTest.option",
+                HADOOP_TMP_DIR_SOURCE)), index.getOptions(FILE_SINK));
+        Assert.assertEquals(Collections.emptySet(), index.getOptions("<java.io.PrintStream: void println(int)>"));
+    }
+
+    private static Taint getSink(String str) {
+        for (Taint sink : index.getSinks()) {
+            if (sink.toString().equals(str)) {
+                return sink;
+            }
+        }
+        Assert.fail(str);
+        return null;
+    }
+
+    private static List<String> toStrings(List<Taint> taints) {
+        List<String> strings = new ArrayList<>();
+        for (Taint t : taints) {
+            strings.add(t.toString());
+        }
+        return strings;
+    }
+
+}
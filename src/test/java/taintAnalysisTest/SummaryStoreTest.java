@@ -0,0 +1,106 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import soot.SootMethod;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import utility.Config;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+public class SummaryStoreTest extends TaintAnalysisTest {
+
+    private static final String EDITED_CLASS = "ComplexContextSensitivityTest";
+
+    @Test
+    public void testWarmRunReplaysColdRun() throws IOException {
+        Path store = Files.createTempDirectory("summary-store").resolve("summaries.bin");
+        List<String> paths = Collections.singletonList(Config.TEST_PATH);
+
+        InterAnalysisTransformer cold = run(paths, store.toString());
+        List<String> coldSummaries = getSummaries(cold);
+        List<String> coldSinks = getSinks(cold);
+        Assert.assertFalse(cold.getAnalyzedMethods().isEmpty());
+
+        InterAnalysisTransformer warm = run(paths, store.toString());
+        Assert.assertEquals(coldSummaries, getSummaries(warm));
+        Assert.assertEquals(coldSinks, getSinks(warm));
+        // Every method is replayed from the store
+        Assert.assertEquals(Collections.emptySet(), warm.getAnalyzedMethods());
+    }
+
+    @Test
+    public void testEditedMethodIsReanalyzedWithItsCallers() throws IOException {
+        Path dir = Files.createTempDirectory("summary-store");
+        Path store = dir.resolve("summaries.bin");
+        run(Collections.singletonList(Config.TEST_PATH), store.toString());
+
+        // C no longer returns its tainted parameter, which changes the summaries of B1 and B2 calling it
+        List<String> edited = Collections.singletonList(
+                buildEditedFixture(dir.resolve("edited"), "int ret = i + 10;", "int ret = 10;").toString());
+        InterAnalysisTransformer warm = run(edited, store.toString());
+        InterAnalysisTransformer cold = run(edited, null);
+        Assert.assertEquals(getSummaries(cold), getSummaries(warm));
+        Assert.assertEquals(getSinks(cold), getSinks(warm));
+
+        Set<String> analyzed = new TreeSet<>();
+        for (SootMethod sm : warm.getAnalyzedMethods()) {
+            Assert.assertEquals(EDITED_CLASS, sm.getDeclaringClass().getName());
+            analyzed.add(sm.getName());
+        }
+        Assert.assertTrue(analyzed.toString(), analyzed.containsAll(Arrays.asList("C", "B1", "B2")));
+        // The summaries of the callers of B1 and B2 do not change, so run is replayed
+        Assert.assertFalse(analyzed.toString(), analyzed.contains("run"));
+    }
+
+    private static InterAnalysisTransformer run(List<String> paths, String store) {
+        String[] cfg = Config.getCfg("test");
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(cfg));
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager);
+        if (store != null) {
+            driver.setSummaryStorePath(store);
+        }
+        return driver.runInterTaintAnalysis(paths, paths, false);
+    }
+
+    /**
+     * Extracts the test fixture classes to a directory, and recompiles the edited class from its source with
+     * a statement replaced.
+     */
+    private static Path buildEditedFixture(Path dir, String target, String replacement) throws IOException {
+        try (JarFile jar = new JarFile(Config.TEST_PATH)) {
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                if (entry.getName().endsWith(".class")) {
+                    Path file = dir.resolve(entry.getName());
+                    Files.createDirectories(file.getParent());
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        Files.copy(in, file);
+                    }
+                }
+            }
+        }
+        String source = new String(Files.readAllBytes(Paths.get("Test/src", EDITED_CLASS + ".java")),
+                StandardCharsets.UTF_8);
+        Assert.assertTrue(source.contains(target));
+        Path src = Files.createDirectories(dir.resolveSibling("edited-src")).resolve(EDITED_CLASS + ".java");
+        Files.write(src, source.replace(target, replacement).getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null,
+                "-source", "1.8", "-target", "1.8", "-d", dir.toString(), src.toString()));
+        return dir;
+    }
+
+}
@@ -0,0 +1,181 @@
+package taintAnalysisTest;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import taintAnalysis.Taint;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import taintAnalysis.taintWrapper.ITaintWrapper;
+import taintAnalysis.taintWrapper.SummaryTaintWrapper;
+import taintAnalysis.taintWrapper.TaintWrapper;
+import utility.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Generates the summaries of the test jar as a library, and checks the summaries of the SummaryLibrary fixture
+ * and the taints they generate once loaded.
+ */
+public class SummaryTaintWrapperTest extends TaintAnalysisTest {
+
+    private static final String CLASS = "SummaryLibrary";
+    private static final String PICK = "java.lang.String pick(boolean,java.lang.String,java.lang.String)";
+
+    private static File file;
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        file = File.createTempFile("summaries", ".txt");
+        String[] cfg = Config.getCfg("test");
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(new SourceSinkManager(Config.getInterface(cfg)));
+        driver.runLibrarySummaryGeneration(Config.getSourcePaths(cfg), Config.getClassPaths(cfg), file.getPath());
+        // As in the analyses of the applications using it, the wrapped library is not part of the application
+        Scene.v().getSootClass(CLASS).setLibraryClass();
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        file.delete();
+    }
+
+    @Test
+    public void testGeneratedSummaries() throws IOException {
+        // Only the public methods are summarized, the flow of the boolean parameter of pick is not tracked
+        Assert.assertEquals(Arrays.asList(
+                "<SummaryLibrary: java.lang.String constant(java.lang.String)>",
+                "<SummaryLibrary: java.lang.String get()>\tthis>return",
+                "<SummaryLibrary: java.lang.String pick(boolean,java.lang.String,java.lang.String)>\targ1>return\targ2>return",
+                "<SummaryLibrary: void <init>(java.lang.String)>\targ0>this",
+                "<SummaryLibrary: void set(java.lang.String)>\targ0>this"),
+                select(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), "<" + CLASS + ": "));
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        Map<String, long[]> summaries = new HashMap<>();
+        summaries.put("<a.B: void f(int,int)>", new long[]{0b10, 0b1001, 0, 0b11101});
+        summaries.put("<a.A: int g()>", new long[0]);
+        summaries.put("<a.A: void h()>", new long[]{0, 0});
+        File f = File.createTempFile("summaries", ".txt");
+        try {
+            SummaryTaintWrapper.write(summaries, f.getPath());
+            List<String> lines = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+            Assert.assertTrue(lines.get(0).startsWith("%"));
+            Assert.assertEquals(Arrays.asList(
+                    "<a.A: int g()>",
+                    "<a.A: void h()>",
+                    "<a.B: void f(int,int)>\tthis>return\treturn>this,arg1\targ1>this,arg0,arg1,arg2"),
+                    lines.subList(1, lines.size()));
+
+            SummaryTaintWrapper wrapper = new SummaryTaintWrapper(f.getPath(), null);
+            Assert.assertEquals(3, wrapper.getNumOfSummaries());
+            Assert.assertEquals(new SummaryTaintWrapper(summaries, null).fingerprint(), wrapper.fingerprint());
+
+            for (String line : Arrays.asList("<a.A: void h()>\tthis", "<a.A: void h()>\tthis>base",
+                    "<a.A: void h()>\targ62>this", "<a.A: void h()>\targx>this")) {
+                Files.write(f.toPath(), Collections.singletonList(line), StandardCharsets.UTF_8);
+                try {
+                    new SummaryTaintWrapper(f.getPath(), null);
+                    Assert.fail(line);
+                } catch (IOException expected) {
+                }
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testApplySummaries() throws IOException {
+        SummaryTaintWrapper wrapper = new SummaryTaintWrapper(file.getPath(), null);
+        Assert.assertEquals("[this]", apply(wrapper, "void <init>(java.lang.String)", 2));
+        Assert.assertEquals("[return]", apply(wrapper, "java.lang.String get()", 0));
+        Assert.assertEquals("[this]", apply(wrapper, "void set(java.lang.String)", 2));
+        // A slot tainting itself keeps its taint, generated summaries never kill
+        Assert.assertEquals("[]", apply(wrapper, "void set(java.lang.String)", 0));
+        Assert.assertEquals("[]", apply(wrapper, PICK, 2));
+        Assert.assertEquals("[return]", apply(wrapper, PICK, 3));
+        Assert.assertEquals("[return]", apply(wrapper, PICK, 4));
+        Assert.assertEquals("[]", apply(wrapper, "java.lang.String constant(java.lang.String)", 2));
+        // Without a summary nor a fallback
+        Assert.assertEquals("[]", apply(wrapper, "java.lang.String copy(java.lang.String)", 2));
+    }
+
+    @Test
+    public void testHandWrittenRulesTakePrecedence() throws IOException {
+        Set<String> exclude = new HashSet<>(Collections.singletonList("<SummaryLibrary: java.lang.String get()>"));
+        Set<String> taintReturn = new HashSet<>(Collections.singletonList(
+                "<SummaryLibrary: java.lang.String copy(java.lang.String)>"));
+        Set<String> kill = new HashSet<>(Collections.singletonList("<SummaryLibrary: void set(java.lang.String)>"));
+        TaintWrapper fallback = new TaintWrapper(new HashSet<>(), taintReturn, new HashSet<>(), exclude, kill);
+        SummaryTaintWrapper wrapper = new SummaryTaintWrapper(file.getPath(), fallback);
+
+        // The rules of the fallback win over the summaries
+        Assert.assertTrue(fallback.isRegistered(getMethod("java.lang.String get()")));
+        Assert.assertEquals("[]", apply(wrapper, "java.lang.String get()", 0));
+        Assert.assertEquals("[kill]", apply(wrapper, "void set(java.lang.String)", 0));
+        // The methods without a rule keep their summary, the methods without a summary get the fallback rules
+        Assert.assertEquals("[this]", apply(wrapper, "void <init>(java.lang.String)", 2));
+        Assert.assertEquals("[return]", apply(wrapper, "java.lang.String copy(java.lang.String)", 2));
+    }
+
+    private static SootMethod getMethod(String subSignature) {
+        return Scene.v().getSootClass(CLASS).getMethod(subSignature);
+    }
+
+    /**
+     * Applies a wrapper to an invocation of a method of the fixture with a slot tainted (0: base, 1: retVal,
+     * 2+: parameters).
+     *
+     * @return The sorted effects of the invocation: "kill" if the taint is killed, and the names of the slots
+     * tainted by the generated taints
+     */
+    private static String apply(ITaintWrapper wrapper, String subSignature, int slot) {
+        SootMethod method = getMethod(subSignature);
+        Local[] slots = new Local[method.getParameterCount() + 2];
+        slots[0] = method.isStatic() ? null : Jimple.v().newLocal("this", method.getDeclaringClass().getType());
+        slots[1] = method.getReturnType() instanceof VoidType ? null :
+                Jimple.v().newLocal("return", method.getReturnType());
+        List<Value> args = new ArrayList<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            slots[i + 2] = Jimple.v().newLocal("arg" + i, method.getParameterType(i));
+            args.add(slots[i + 2]);
+        }
+        InvokeExpr invoke;
+        if (method.isStatic()) {
+            invoke = Jimple.v().newStaticInvokeExpr(method.makeRef(), args);
+        } else if (method.isConstructor()) {
+            invoke = Jimple.v().newSpecialInvokeExpr(slots[0], method.makeRef(), args);
+        } else {
+            invoke = Jimple.v().newVirtualInvokeExpr(slots[0], method.makeRef(), args);
+        }
+        Stmt stmt = slots[1] == null ? Jimple.v().newInvokeStmt(invoke) : Jimple.v().newAssignStmt(slots[1], invoke);
+
+        SootMethod caller = getMethod("java.lang.String get()");
+        Taint t = Taint.getTaintFor(null, slots[slot], stmt, caller);
+        Set<Taint> kill = new HashSet<>();
+        Set<Taint> gen = new HashSet<>();
+        wrapper.genTaintsForMethodInternal(Collections.singleton(t), stmt, caller, kill, gen);
+
+        Set<String> effects = new TreeSet<>();
+        if (kill.contains(t)) {
+            effects.add("kill");
+        }
+        for (Taint g : gen) {
+            Assert.assertTrue(g.getPlainValue() instanceof Local);
+            effects.add(((Local) g.getPlainValue()).getName());
+        }
+        return effects.toString();
+    }
+
+}
@@ -1,5 +1,137 @@
 package taintAnalysisTest;
 
+import soot.SootMethod;
+import soot.jimple.Stmt;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.SinkSourceIndex;
+import taintAnalysis.Taint;
+import taintAnalysis.TaintAnalysisDriver;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+import taintAnalysis.sourceSinkManager.SourceSinkManager;
+import utility.Config;
+
+import java.util.*;
+import java.util.function.Consumer;
+
 public class TaintAnalysisTest {
 
-}
\ No newline at end of file
+    /**
+     * Runs the inter-procedural analysis on the test fixtures, with the driver configured by a setup.
+     */
+    protected static InterAnalysisTransformer runInterTaintAnalysis(Consumer<TaintAnalysisDriver> setup) {
+        String[] cfg = Config.getCfg("test");
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(cfg));
+        TaintAnalysisDriver driver = new TaintAnalysisDriver(sourceSinkManager);
+        setup.accept(driver);
+        return driver.runInterTaintAnalysis(Config.getSourcePaths(cfg), Config.getClassPaths(cfg), false);
+    }
+
+    /**
+     * Gets a source sink manager of the test fixtures naming the options of the sources of the test classes, as
+     * the test interface does not name options: the option of a source of a class "XTest" is "XTest.option",
+     * and the options of the other sources are unknown.
+     */
+    protected static ISourceSinkManager getNamingSourceSinkManager() {
+        ISourceSinkManager sourceSinkManager = new SourceSinkManager(Config.getInterface(Config.getCfg("test")));
+        return new ISourceSinkManager() {
+            @Override
+            public boolean isSource(Stmt stmt) {
+                return sourceSinkManager.isSource(stmt);
+            }
+
+            @Override
+            public boolean isSink(Stmt stmt) {
+                return sourceSinkManager.isSink(stmt);
+            }
+
+            @Override
+            public String getConfigName(Stmt stmt) {
+                String cls = stmt.getInvokeExpr().getMethod().getDeclaringClass().getName();
+                return cls.endsWith("Test") ? cls + ".option" : null;
+            }
+        };
+    }
+
+    /**
+     * Gets the summaries of an inter-procedural analysis as sorted lines, comparable between runs.
+     */
+    protected static List<String> getSummaries(InterAnalysisTransformer transformer) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<SootMethod, Map<Taint, List<Set<Taint>>>> e : transformer.getMethodSummary().entrySet()) {
+            for (Map.Entry<Taint, List<Set<Taint>>> e2 : e.getValue().entrySet()) {
+                List<String> taints = new ArrayList<>();
+                for (Set<Taint> s : e2.getValue()) {
+                    taints.add(toSortedStrings(s).toString());
+                }
+                lines.add(e.getKey() + " | " + e2.getKey() + " => " + taints);
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * Gets the sources of an inter-procedural analysis as sorted lines.
+     */
+    protected static List<String> getSources(InterAnalysisTransformer transformer) {
+        return toSortedStrings(transformer.getSources());
+    }
+
+    /**
+     * Gets the sinks reached by an inter-procedural analysis, with the options reaching them, as sorted lines.
+     */
+    protected static List<String> getSinks(InterAnalysisTransformer transformer) {
+        SinkSourceIndex index = transformer.getSinkSourceIndex();
+        List<String> lines = new ArrayList<>();
+        for (Taint sink : index.getSinks()) {
+            lines.add(sink + " <= " + index.getOptions(sink));
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * Gets the paths reconstructed by an inter-procedural analysis as sorted lines, each listing the taints of a
+     * path from its source to its sink.
+     */
+    protected static List<String> getPaths(InterAnalysisTransformer transformer) {
+        List<String> lines = new ArrayList<>();
+        for (List<List<Taint>> paths : transformer.getPathsMap().values()) {
+            for (List<Taint> path : paths) {
+                StringBuilder sb = new StringBuilder();
+                for (Taint t : path) {
+                    sb.append(sb.length() == 0 ? "" : " -> ").append(t);
+                }
+                lines.add(sb.toString());
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * Selects the lines starting with any of the prefixes, in order.
+     */
+    protected static List<String> select(List<String> lines, String... prefixes) {
+        List<String> selected = new ArrayList<>();
+        for (String line : lines) {
+            for (String prefix : prefixes) {
+                if (line.startsWith(prefix)) {
+                    selected.add(line);
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private static List<String> toSortedStrings(Collection<Taint> taints) {
+        List<String> strings = new ArrayList<>();
+        for (Taint t : taints) {
+            strings.add(t.toString());
+        }
+        Collections.sort(strings);
+        return strings;
+    }
+
+}
@@ -0,0 +1,215 @@
+package taintAnalysisTest;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+import taintAnalysis.Taint;
+import taintAnalysis.graph.TaintGraph;
+import taintAnalysis.graph.TaintGraphIndex;
+import taintAnalysis.graph.TaintGraphService;
+import taintAnalysis.graph.TaintGraphWriter;
+import taintAnalysis.sourceSinkManager.ISourceSinkManager;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Checks that a taint graph written from the results of an analysis loads back as the in-memory graph, and the
+ * answers to the queries over it.
+ */
+public class TaintGraphTest extends TaintAnalysisTest {
+
+    private static final String FILE_SINK = "<java.io.File: void <init>(java.lang.String)>";
+    private static final String SHORTEST_PATH_SINK_3 = "r3 in specialinvoke $r4.<java.io.File: void <init>(java.lang.String)>(r3) in method <ShortestPathTest: java.io.File run()>";
+    private static final String SHORTEST_PATH_SINK_6 = "r6 in specialinvoke $r7.<java.io.File: void <init>(java.lang.String)>(r6) in method <ShortestPathTest: java.io.File run()>";
+
+    private static List<Taint> sources;
+    private static ISourceSinkManager sourceSinkManager;
+    private static File file;
+    private static TaintGraph graph;
+
+    @BeforeClass
+    public static void analyze() throws IOException {
+        InterAnalysisTransformer transformer = runInterTaintAnalysis(driver -> { });
+        sources = new ArrayList<>(transformer.getSources());
+        sources.sort(Comparator.comparing(Taint::toString));
+
+        sourceSinkManager = getNamingSourceSinkManager();
+
+        file = File.createTempFile("taintGraph", ".bin");
+        TaintGraphWriter.write(sources, sourceSinkManager, file.getPath());
+        graph = TaintGraph.load(file.getPath());
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        file.delete();
+    }
+
+    @Test
+    public void testSources() {
+        int[] ids = graph.getSources();
+        Assert.assertEquals(sources.size(), ids.length);
+        boolean named = false;
+        boolean unnamed = false;
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(sources.get(i).toString(), graph.toString(ids[i]));
+            String option = sourceSinkManager.getConfigName(sources.get(i).getStmt());
+            int optionId = graph.getSourceOptionId(i);
+            if (option == null) {
+                Assert.assertEquals(-1, optionId);
+                unnamed = true;
+            } else {
+                Assert.assertEquals(option, graph.getString(optionId));
+                named = true;
+            }
+        }
+        Assert.assertTrue(named);
+        Assert.assertTrue(unnamed);
+    }
+
+    @Test
+    public void testNodesAndEdges() {
+        // Match the taints of the file to the in-memory taints along the edges, from the sources
+        Taint[] taints = new Taint[graph.getNumOfNodes()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] ids = graph.getSources();
+        for (int i = 0; i < ids.length; i++) {
+            match(taints, ids[i], sources.get(i), queue);
+        }
+        int numOfEdges = 0;
+        int numOfSinks = 0;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            Taint t = taints[node];
+            Assert.assertEquals(t.toString(), graph.toString(node));
+            Assert.assertEquals(t.getMethod().getSignature(), graph.getMethod(node));
+            Assert.assertEquals(t.getTransferType(), graph.getTransferType(node));
+            Assert.assertEquals(t.isSink(), graph.isSink(node));
+            if (t.isSink()) {
+                numOfSinks++;
+            }
+
+            List<Taint> successors = new ArrayList<>(t.getSuccessors());
+            successors.sort(Comparator.comparing(Taint::toString));
+            int[] nodeSuccessors = graph.getSuccessors(node);
+            Assert.assertEquals(successors.size(), nodeSuccessors.length);
+            for (int i = 0; i < nodeSuccessors.length; i++) {
+                match(taints, nodeSuccessors[i], successors.get(i), queue);
+            }
+            numOfEdges += nodeSuccessors.length;
+        }
+
+        // Every taint of the file is reachable from the sources
+        for (Taint t : taints) {
+            Assert.assertNotNull(t);
+        }
+        Assert.assertEquals(numOfEdges, graph.getNumOfEdges());
+        Assert.assertTrue(numOfSinks > 0);
+    }
+
+    @Test
+    public void testIndex() {
+        TaintGraphIndex index = new TaintGraphIndex(graph);
+        Assert.assertTrue(index.getOptions().contains("ShortestPathTest.option"));
+        Assert.assertTrue(index.getOptions().contains("ContextSensitivityTest.option"));
+        // The sources of the other classes are identified by their string representation
+        String unnamed = "r1 in r1 = specialinvoke r0.<SinkFixture: java.lang.String source(java.lang.String)>(\"hadoop.tmp.dir\") in method <SinkFixture: java.io.File openTwice()>";
+        Assert.assertTrue(index.getOptions().contains(unnamed));
+
+        Assert.assertEquals(Collections.singleton(FILE_SINK), index.getSinkMethods());
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("PathCountTest.option", "ShortestPathTest.option", unnamed)),
+                index.getOptions(FILE_SINK));
+        Assert.assertEquals(Collections.emptySet(), index.getOptions("<java.io.PrintStream: void println(int)>"));
+
+        Assert.assertEquals(Arrays.asList(SHORTEST_PATH_SINK_3, SHORTEST_PATH_SINK_6),
+                toStrings(index.getSinks("ShortestPathTest.option")));
+        Assert.assertEquals(Collections.emptyList(), index.getSinks("ContextSensitivityTest.option"));
+        Assert.assertEquals(Collections.emptyList(), index.getSinks("unknown"));
+    }
+
+    @Test
+    public void testWitnessPath() {
+        TaintGraphIndex index = new TaintGraphIndex(graph);
+        // The shortest path calls id twice, returning to each call site
+        int[] path = index.getWitnessPath("ShortestPathTest.option", FILE_SINK);
+        Assert.assertNotNull(path);
+        Assert.assertEquals("r1 in r1 = specialinvoke r0.<ShortestPathTest: java.lang.String source()>() in method <ShortestPathTest: java.io.File run()>",
+                graph.toString(path[0]));
+        Assert.assertEquals(SHORTEST_PATH_SINK_3, graph.toString(path[path.length - 1]));
+        for (int i = 0; i + 1 < path.length; i++) {
+            boolean edge = false;
+            for (int successor : graph.getSuccessors(path[i])) {
+                edge |= successor == path[i + 1];
+            }
+            Assert.assertTrue(edge);
+        }
+        Assert.assertArrayEquals(path, index.getWitnessPath("ShortestPathTest.option", null));
+
+        Assert.assertNull(index.getWitnessPath("ShortestPathTest.option", "<java.io.PrintStream: void println(int)>"));
+        Assert.assertNull(index.getWitnessPath("ContextSensitivityTest.option", null));
+        Assert.assertNull(index.getWitnessPath("unknown", null));
+    }
+
+    @Test
+    public void testService() throws IOException {
+        TaintGraphService service = TaintGraphService.load(file.getPath());
+        String queries = "sinks\n" +
+                "sinks ShortestPathTest.option\n" +
+                "options " + FILE_SINK + "\n" +
+                "path ShortestPathTest.option -> " + FILE_SINK + "\n" +
+                "path ContextSensitivityTest.option\n" +
+                "path\n" +
+                "unknown\n" +
+                "quit\n" +
+                "sinks\n";
+        StringWriter answers = new StringWriter();
+        service.serve(new BufferedReader(new StringReader(queries)), new PrintWriter(answers));
+
+        List<String> expected = Arrays.asList(
+                FILE_SINK,
+                "",
+                SHORTEST_PATH_SINK_3,
+                SHORTEST_PATH_SINK_6,
+                "",
+                "PathCountTest.option",
+                "ShortestPathTest.option",
+                "r1 in r1 = specialinvoke r0.<SinkFixture: java.lang.String source(java.lang.String)>(\"hadoop.tmp.dir\") in method <SinkFixture: java.io.File openTwice()>",
+                "",
+                // The phantom entry and exit taints of id are not printed
+                "r1 in r1 = specialinvoke r0.<ShortestPathTest: java.lang.String source()>() in method <ShortestPathTest: java.io.File run()>",
+                "[Call] r1 in r2 = specialinvoke r0.<ShortestPathTest: java.lang.String id(java.lang.String)>(r1) in method <ShortestPathTest: java.io.File run()>",
+                "[Return] r2 in r2 = specialinvoke r0.<ShortestPathTest: java.lang.String id(java.lang.String)>(r1) in method <ShortestPathTest: java.io.File run()>",
+                "[Call] r2 in r3 = specialinvoke r0.<ShortestPathTest: java.lang.String id(java.lang.String)>(r2) in method <ShortestPathTest: java.io.File run()>",
+                "[Return] r3 in r3 = specialinvoke r0.<ShortestPathTest: java.lang.String id(java.lang.String)>(r2) in method <ShortestPathTest: java.io.File run()>",
+                SHORTEST_PATH_SINK_3,
+                "",
+                "",
+                "error: missing option",
+                "",
+                "error: unknown query unknown",
+                "");
+        Assert.assertEquals(expected, Arrays.asList(answers.toString().split("\\R", -1)).subList(0, expected.size()));
+        Assert.assertEquals(expected.size() + 1, answers.toString().split("\\R", -1).length);
+    }
+
+    private static List<String> toStrings(List<Integer> nodes) {
+        List<String> strings = new ArrayList<>();
+        for (int node : nodes) {
+            strings.add(graph.toString(node));
+        }
+        return strings;
+    }
+
+    private static void match(Taint[] taints, int node, Taint t, Deque<Integer> queue) {
+        if (taints[node] == null) {
+            taints[node] = t;
+            queue.add(node);
+        } else {
+            Assert.assertSame(taints[node], t);
+        }
+    }
+
+}
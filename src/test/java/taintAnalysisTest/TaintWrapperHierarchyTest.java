@@ -0,0 +1,209 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import taintAnalysis.Taint;
+import taintAnalysis.taintWrapper.TaintWrapper;
+
+import java.util.*;
+
+/**
+ * Checks how the rules of the taint wrapper are resolved through the class hierarchy, by the taints a method
+ * generates or kills when its first argument, or else its base object, is tainted.
+ *
+ * The excluded JDK classes are phantom in the scene of the analysis, so the rules are resolved on library
+ * classes mirroring the collections of java.util, added to the scene by the test.
+ */
+public class TaintWrapperHierarchyTest extends TaintAnalysisTest {
+
+    private static final String ADD = "boolean add(java.lang.Object)";
+    private static final String CLEAR = "void clear()";
+
+    private static SootMethod caller;
+
+    @BeforeClass
+    public static void analyze() {
+        runInterTaintAnalysis(driver -> { });
+        caller = Scene.v().getSootClass("TaintWrapperTest").getMethodByName("run");
+
+        SootClass collection = addClass("lib.Collection", null, Modifier.PUBLIC | Modifier.INTERFACE);
+        SootClass list = addClass("lib.List", null, Modifier.PUBLIC | Modifier.INTERFACE, collection);
+        SootClass set = addClass("lib.Set", null, Modifier.PUBLIC | Modifier.INTERFACE, collection);
+        SootClass abstractCollection = addClass("lib.AbstractCollection", Scene.v().getObjectType().getSootClass(),
+                Modifier.PUBLIC | Modifier.ABSTRACT, collection);
+        SootClass abstractList = addClass("lib.AbstractList", abstractCollection,
+                Modifier.PUBLIC | Modifier.ABSTRACT, list);
+        SootClass arrayList = addClass("lib.ArrayList", abstractList, Modifier.PUBLIC, list);
+        SootClass linkedList = addClass("lib.LinkedList", abstractList, Modifier.PUBLIC, list);
+        SootClass hashSet = addClass("lib.HashSet", abstractCollection, Modifier.PUBLIC, set);
+
+        for (SootClass cls : Arrays.asList(collection, list, set)) {
+            addMethod(cls, "add", Collections.singletonList(Scene.v().getObjectType()), BooleanType.v(),
+                    Modifier.PUBLIC | Modifier.ABSTRACT);
+            addMethod(cls, "clear", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.ABSTRACT);
+        }
+        for (SootClass cls : Arrays.asList(abstractCollection, abstractList, arrayList, linkedList, hashSet)) {
+            addMethod(cls, "<init>", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC);
+            addMethod(cls, "add", Collections.singletonList(Scene.v().getObjectType()), BooleanType.v(),
+                    Modifier.PUBLIC);
+            addMethod(cls, "clear", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC);
+        }
+        for (SootClass cls : Arrays.asList(arrayList, linkedList, hashSet)) {
+            addMethod(cls, "<init>", Collections.singletonList(collection.getType()), VoidType.v(),
+                    Modifier.PUBLIC);
+            addMethod(cls, "size", Collections.emptyList(), IntType.v(), Modifier.PUBLIC);
+        }
+    }
+
+    @Test
+    public void testInterfaceRuleAppliesToImplementors() {
+        TaintWrapper wrapper = wrapper(rules(), rules(), rules("<lib.List: " + ADD + ">"), rules(), rules());
+        Assert.assertEquals("[base]", apply(wrapper, "lib.ArrayList", ADD));
+        Assert.assertEquals("[base]", apply(wrapper, "lib.LinkedList", ADD));
+        Assert.assertEquals("[base]", apply(wrapper, "lib.List", ADD));
+        // Not below the interface
+        Assert.assertFalse(isRegistered(wrapper, "lib.HashSet", ADD));
+    }
+
+    @Test
+    public void testNearestRuleWins() {
+        // AbstractList is a superclass of ArrayList, Collection an interface of its interface List
+        TaintWrapper wrapper = wrapper(rules(), rules("<lib.AbstractList: " + ADD + ">"),
+                rules("<lib.Collection: " + ADD + ">"), rules(), rules());
+        Assert.assertEquals("[return]", apply(wrapper, "lib.ArrayList", ADD));
+        Assert.assertEquals("[base]", apply(wrapper, "lib.HashSet", ADD));
+
+        // List is nearer to ArrayList than the superclass of its superclass
+        wrapper = wrapper(rules(), rules("<lib.AbstractCollection: " + ADD + ">"),
+                rules("<lib.List: " + ADD + ">"), rules(), rules());
+        Assert.assertEquals("[base]", apply(wrapper, "lib.ArrayList", ADD));
+
+        // The rule of the class itself wins over any inherited rule
+        wrapper = wrapper(rules(), rules("<lib.ArrayList: " + ADD + ">"),
+                rules("<lib.List: " + ADD + ">"), rules(), rules());
+        Assert.assertEquals("[return]", apply(wrapper, "lib.ArrayList", ADD));
+        Assert.assertEquals("[base]", apply(wrapper, "lib.LinkedList", ADD));
+    }
+
+    @Test
+    public void testConstructorsMatchExactly() {
+        String init = "void <init>(lib.Collection)";
+        TaintWrapper wrapper = wrapper(rules("<lib.ArrayList: " + init + ">"), rules(), rules(), rules(),
+                rules());
+        Assert.assertEquals("[base]", apply(wrapper, "lib.ArrayList", init));
+        wrapper = wrapper(rules("<lib.AbstractCollection: void <init>()>", "<lib.List: " + init + ">"),
+                rules(), rules(), rules(), rules());
+        Assert.assertFalse(isRegistered(wrapper, "lib.ArrayList", "void <init>()"));
+        Assert.assertFalse(isRegistered(wrapper, "lib.ArrayList", init));
+    }
+
+    @Test
+    public void testListPrecedence() {
+        String rule = "<lib.ArrayList: " + ADD + ">";
+        Assert.assertEquals("[base, return]",
+                apply(wrapper(rules(rule), rules(rule), rules(rule), rules(rule), rules(rule)),
+                        "lib.ArrayList", ADD));
+        Assert.assertEquals("[return]",
+                apply(wrapper(rules(), rules(rule), rules(rule), rules(rule), rules(rule)),
+                        "lib.ArrayList", ADD));
+        Assert.assertEquals("[base]",
+                apply(wrapper(rules(), rules(), rules(rule), rules(rule), rules(rule)),
+                        "lib.ArrayList", ADD));
+
+        // Excluded before killed
+        rule = "<lib.List: " + CLEAR + ">";
+        TaintWrapper wrapper = wrapper(rules(), rules(), rules(), rules(rule), rules(rule));
+        Assert.assertEquals("[]", apply(wrapper, "lib.ArrayList", CLEAR));
+        Assert.assertTrue(isRegistered(wrapper, "lib.ArrayList", CLEAR));
+        wrapper = wrapper(rules(), rules(), rules(), rules(), rules(rule));
+        Assert.assertEquals("[kill]", apply(wrapper, "lib.ArrayList", CLEAR));
+    }
+
+    private static TaintWrapper wrapper(Set<String> taintBoth, Set<String> taintReturn, Set<String> taintBase,
+                                        Set<String> exclude, Set<String> kill) {
+        return new TaintWrapper(taintBoth, taintReturn, taintBase, exclude, kill);
+    }
+
+    private static Set<String> rules(String... signatures) {
+        return new HashSet<>(Arrays.asList(signatures));
+    }
+
+    private static boolean isRegistered(TaintWrapper wrapper, String className, String subSignature) {
+        return wrapper.isRegistered(getMethod(className, subSignature));
+    }
+
+    /**
+     * Applies the wrapper to an invocation of a method whose first argument, or else its base object, is
+     * tainted.
+     *
+     * @return The sorted effects of the invocation: "kill" if the taint is killed, "base" and "return" if the
+     * base object and the return value are tainted
+     */
+    private static String apply(TaintWrapper wrapper, String className, String subSignature) {
+        SootMethod method = getMethod(className, subSignature);
+        Local base = Jimple.v().newLocal("base", method.getDeclaringClass().getType());
+        List<Value> args = new ArrayList<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            args.add(Jimple.v().newLocal("arg" + i, method.getParameterType(i)));
+        }
+        InvokeExpr invoke;
+        if (method.isConstructor()) {
+            invoke = Jimple.v().newSpecialInvokeExpr(base, method.makeRef(), args);
+        } else if (method.getDeclaringClass().isInterface()) {
+            invoke = Jimple.v().newInterfaceInvokeExpr(base, method.makeRef(), args);
+        } else {
+            invoke = Jimple.v().newVirtualInvokeExpr(base, method.makeRef(), args);
+        }
+        Local ret = method.getReturnType() instanceof VoidType ? null :
+                Jimple.v().newLocal("ret", method.getReturnType());
+        Stmt stmt = ret == null ? Jimple.v().newInvokeStmt(invoke) : Jimple.v().newAssignStmt(ret, invoke);
+
+        Taint t = Taint.getTaintFor(null, args.isEmpty() ? base : args.get(0), stmt, caller);
+        Set<Taint> kill = new HashSet<>();
+        Set<Taint> gen = new HashSet<>();
+        wrapper.genTaintsForMethodInternal(Collections.singleton(t), stmt, caller, kill, gen);
+
+        Set<String> effects = new TreeSet<>();
+        if (kill.contains(t)) {
+            effects.add("kill");
+        }
+        for (Taint g : gen) {
+            if (g.taints(base)) {
+                effects.add("base");
+            } else if (ret != null && g.taints(ret)) {
+                effects.add("return");
+            } else {
+                Assert.fail(g.toString());
+            }
+        }
+        return effects.toString();
+    }
+
+    private static SootClass addClass(String name, SootClass superclass, int modifiers, SootClass... interfaces) {
+        SootClass cls = new SootClass(name, modifiers);
+        if (superclass != null) {
+            cls.setSuperclass(superclass);
+        }
+        for (SootClass itf : interfaces) {
+            cls.addInterface(itf);
+        }
+        Scene.v().addClass(cls);
+        cls.setLibraryClass();
+        return cls;
+    }
+
+    private static void addMethod(SootClass cls, String name, List<Type> parameterTypes, Type returnType,
+                                  int modifiers) {
+        cls.addMethod(Scene.v().makeSootMethod(name, parameterTypes, returnType, modifiers));
+    }
+
+    private static SootMethod getMethod(String className, String subSignature) {
+        return Scene.v().getSootClass(className).getMethod(subSignature);
+    }
+
+}
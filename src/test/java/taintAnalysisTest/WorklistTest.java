@@ -0,0 +1,88 @@
+package taintAnalysisTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import taintAnalysis.InterAnalysisTransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks the summaries and sinks of the worklist solver against those of the round-robin loop it replaced.
+ */
+public class WorklistTest extends TaintAnalysisTest {
+
+    private static List<String> summaries;
+    private static List<String> sinks;
+
+    @BeforeClass
+    public static void analyze() {
+        InterAnalysisTransformer transformer = runInterTaintAnalysis(driver -> { });
+        summaries = getSummaries(transformer);
+        sinks = getSinks(transformer);
+    }
+
+    @Test
+    public void testContextSensitivitySummaries() {
+        // Only C returns its tainted parameter, A, B and D print it
+        Assert.assertEquals(Arrays.asList(
+                "<ContextSensitivityTest: int C(int)> | Empty Taint => [[], [], []]",
+                "<ContextSensitivityTest: int C(int)> | i0 in identity_stmt in method <ContextSensitivityTest: int C(int)> => [[], [i1 in return in method <ContextSensitivityTest: int C(int)>], []]",
+                "<ContextSensitivityTest: int source()> | Empty Taint => [[], []]",
+                "<ContextSensitivityTest: void <init>()> | Empty Taint => [[], []]",
+                "<ContextSensitivityTest: void A(int)> | Empty Taint => [[], [], []]",
+                "<ContextSensitivityTest: void A(int)> | i0 in identity_stmt in method <ContextSensitivityTest: void A(int)> => [[], [], []]",
+                "<ContextSensitivityTest: void B(int)> | Empty Taint => [[], [], []]",
+                "<ContextSensitivityTest: void B(int)> | i0 in identity_stmt in method <ContextSensitivityTest: void B(int)> => [[], [], []]",
+                "<ContextSensitivityTest: void D(int)> | Empty Taint => [[], [], []]",
+                "<ContextSensitivityTest: void D(int)> | i0 in identity_stmt in method <ContextSensitivityTest: void D(int)> => [[], [], []]",
+                "<ContextSensitivityTest: void run()> | Empty Taint => [[], []]"),
+                select(summaries, "<ContextSensitivityTest: "));
+    }
+
+    @Test
+    public void testDynamicBindingSummaries() {
+        // The methods called by InterTaintTest, the overriding methods taint their receiver from their own source
+        Assert.assertEquals(Arrays.asList(
+                "<Car: void dynamicBinding1(Vehicle)> | Empty Taint => [[r0.<Vehicle: int a> in return in method <Car: void dynamicBinding1(Vehicle)>], [], []]",
+                "<Car: void dynamicBinding2(Vehicle)> | Empty Taint => [[], [], []]",
+                "<Cat: void dynamicBinding(Animal)> | Empty Taint => [[r2.<Cat: int a> in return in method <Cat: void dynamicBinding(Animal)>], [], []]",
+                "<Vehicle: void dynamicBinding1(Vehicle)> | Empty Taint => [[], [], []]",
+                "<Vehicle: void dynamicBinding1(Vehicle)> | r0.<Vehicle: int a> in identity_stmt in method <Vehicle: void dynamicBinding1(Vehicle)> => [[], [], []]",
+                "<Vehicle: void dynamicBinding1(Vehicle)> | r1.<Vehicle: int a> in identity_stmt in method <Vehicle: void dynamicBinding1(Vehicle)> => [[r0.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding1(Vehicle)>], [], [r1.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding1(Vehicle)>]]",
+                "<Vehicle: void dynamicBinding2(Vehicle)> | Empty Taint => [[r0.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding2(Vehicle)>], [], []]",
+                "<Vehicle: void dynamicBinding2(Vehicle)> | r0.<Vehicle: int a> in identity_stmt in method <Vehicle: void dynamicBinding2(Vehicle)> => [[r0.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding2(Vehicle)>], [], []]",
+                "<Vehicle: void dynamicBinding2(Vehicle)> | r1.<Vehicle: int a> in identity_stmt in method <Vehicle: void dynamicBinding2(Vehicle)> => [[r0.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding2(Vehicle)>], [], [r1.<Vehicle: int a> in return in method <Vehicle: void dynamicBinding2(Vehicle)>]]"),
+                select(summaries, "<Car: void dynamicBinding", "<Cat: void dynamicBinding",
+                        "<Vehicle: void dynamicBinding"));
+    }
+
+    @Test
+    public void testSinks() {
+        // println is not a sink
+        Assert.assertEquals(Collections.emptyList(), selectMethod(sinks, "<ContextSensitivityTest: "));
+        Assert.assertEquals(Collections.emptyList(), selectMethod(sinks, "<InterTaintTest: "));
+        // Both sinks are reached through callees, id called from two call sites and the recursive repeat
+        Assert.assertEquals(Arrays.asList(
+                "r3 in specialinvoke $r4.<java.io.File: void <init>(java.lang.String)>(r3) in method <ShortestPathTest: java.io.File run()> <= [r1 in r1 = specialinvoke r0.<ShortestPathTest: java.lang.String source()>() in method <ShortestPathTest: java.io.File run()>]",
+                "r6 in specialinvoke $r7.<java.io.File: void <init>(java.lang.String)>(r6) in method <ShortestPathTest: java.io.File run()> <= [r1 in r1 = specialinvoke r0.<ShortestPathTest: java.lang.String source()>() in method <ShortestPathTest: java.io.File run()>]"),
+                selectMethod(sinks, "<ShortestPathTest: "));
+    }
+
+    /**
+     * Selects the sinks in the methods whose signatures start with a prefix, in order.
+     */
+    private static List<String> selectMethod(List<String> sinks, String prefix) {
+        List<String> selected = new ArrayList<>();
+        for (String sink : sinks) {
+            if (sink.contains(" in method " + prefix)) {
+                selected.add(sink);
+            }
+        }
+        return selected;
+    }
+
+}